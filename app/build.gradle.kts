@@ -16,6 +16,23 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+// The ICMP echo engine uses the Foreign Function & Memory API, still a preview API on JDK 21.
+val previewJvmArgs = listOf("--enable-preview", "--enable-native-access=ALL-UNNAMED")
+
+tasks.withType<JavaCompile> {
+    options.compilerArgs.add("--enable-preview")
+}
+
+tasks.withType<Test> {
+    jvmArgs(previewJvmArgs)
+}
+
 javafx {
     version = "21"
     modules = listOf("javafx.controls", "javafx.fxml")
@@ -23,6 +40,16 @@ javafx {
 
 application {
     mainClass.set("org.example.app.NetworkMonitorApp")
+    applicationDefaultJvmArgs = previewJvmArgs
+}
+
+// Headless monitoring without JavaFX: ./gradlew runDaemon --args="--config nodes.json"
+tasks.register<JavaExec>("runDaemon") {
+    group = "application"
+    description = "Runs the headless monitoring daemon."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.example.app.NetworkMonitorDaemon")
+    jvmArgs(previewJvmArgs)
 }
 
 tasks.withType<Copy> {
@@ -67,7 +94,7 @@ tasks.startScripts {
 jlink {
     launcher {
         name = "Network Node Monitor"
-        jvmArgs = listOf("--add-reads", "org.example=ALL-UNNAMED")
+        jvmArgs = listOf("--add-reads", "org.example=ALL-UNNAMED") + previewJvmArgs
     }
     jpackage {
         installerType = "exe"  // Windows installer.
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -14,6 +15,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -23,10 +28,21 @@ import org.example.model.ConnectionType;
 import org.example.model.DeviceType;
 import org.example.model.NetworkLocation;
 import org.example.model.NetworkNode;
+import org.example.model.OverflowPolicy;
+import org.example.service.AlertEngine;
+import org.example.service.DependencyTracker;
+import org.example.service.EventBus;
+import org.example.service.MetricsServer;
+import org.example.service.MonitorEvent;
+import org.example.service.MonitoringServices;
+import org.example.service.NodeStateTracker;
+import org.example.service.PercentileTracker;
+import org.example.service.ResolverCache;
 import org.example.service.TracerouteTask;
 import org.example.ui.components.ConnectionLine;
 import org.example.ui.forms.SlideOutForms;
 import org.example.ui.panels.NodeDetailPanel;
+import org.example.ui.panels.PortScanPanel;
 import org.example.ui.panels.RightSlidePanel;
 import org.example.ui.panels.SlideOutPanel;
 import org.example.ui.panels.TraceroutePanel;
@@ -76,12 +92,18 @@ public class NetworkMonitorApp extends Application {
     private static final String WINDOW_CONFIG_FILE = CONFIG_DIR + File.separator + "window.config";
     private static final double DETAIL_PANEL_WIDTH = 350;
     private static final double PANEL_WIDTH = 300;
+    private static final long HOSTNAME_RESOLVE_DEADLINE_MS = 5000;
+    private static final long FX_LAG_CHECK_MS = 1000;
 
     private EventHandler<MouseEvent> panelCloseHandler;
 
     private static NetworkMonitorApp instance;
     private Stage primaryStage;
 
+    // FX thread responsiveness for the metrics endpoint
+    private volatile long fxLagNanos = 0;
+    private volatile long fxLagPostedAt = 0;   // 0 when no check is waiting on the FX thread
+
     private double prevSceneWidth = 0;
     private double prevSceneHeight = 0;
 
@@ -192,6 +214,7 @@ public class NetworkMonitorApp extends Application {
         scene.getStylesheets().add(getClass().getResource("/styles/slide-panel.css").toExternalForm());
         scene.getStylesheets().add(getClass().getResource("/styles/node-detail-panel.css").toExternalForm());
         scene.getStylesheets().add(getClass().getResource("/styles/traceroute.css").toExternalForm());
+        scene.getStylesheets().add(getClass().getResource("/styles/portscan.css").toExternalForm());
 
         primaryStage.setScene(scene);
         primaryStage.show();
@@ -229,7 +252,33 @@ public class NetworkMonitorApp extends Application {
             prevSceneHeight = newHeight;
         });
 
+        // Probe history in memory and on disk, shared with the headless daemon
+        MonitoringServices.start(Paths.get(CONFIG_DIR));
+        watchFxLag();
+
+        // Keep each node's connected flag current from the event stream; only the
+        // latest state of a node matters, so a busy FX thread never sees a backlog.
+        // State events coalesce under their own key, so latency events cannot replace them
+        EventBus.getInstance().subscribe("ui", 256, OverflowPolicy.COALESCE_BY_NODE, event -> {
+            if (event instanceof MonitorEvent.NodeUp up) {
+                Platform.runLater(() -> setNodeConnected(up.nodeId(), true));
+            } else if (event instanceof MonitorEvent.NodeDown down) {
+                Platform.runLater(() -> setNodeConnected(down.nodeId(), false));
+            } else if (event instanceof MonitorEvent.NodeStable stable) {
+                Platform.runLater(() -> setNodeConnected(stable.nodeId(), stable.up()));
+            }
+        });
+
+        // Re-evaluate line routing every 2s; the actual probing is driven by ProbeScheduler
         Timeline connectionTimeline = new Timeline(new KeyFrame(Duration.seconds(2), event -> {
+            List<DependencyTracker.TrackedNode> topology = buildDependencyTopology();
+            DependencyTracker.getInstance().setTopology(topology);
+            PercentileTracker.getInstance().setTopology(topology);
+            NodeStateTracker.getInstance().setTopology(topology);
+            MetricsServer.getInstance().setNodes(persistentNodes);
+            if (AlertEngine.getInstance() != null) {
+                AlertEngine.getInstance().setNodes(persistentNodes);
+            }
             for (javafx.scene.Node node : spiderMapPane.getChildren()) {
                 if (node instanceof ConnectionLine) ((ConnectionLine) node).updateStatus();
             }
@@ -259,16 +308,6 @@ public class NetworkMonitorApp extends Application {
         centerStack.getChildren().add(rightSlidePanel);
         // Use CENTER_RIGHT alignment, which will respect the panel's translateX property
         StackPane.setAlignment(rightSlidePanel, Pos.CENTER_RIGHT);
-
-        // Perform ping sweep in background
-        Thread pingSweepThread = new Thread(() -> {
-            System.out.println("Starting network ping sweep...");
-            List<String> activeHosts = NetworkUtils.pingSweep();
-            System.out.println("Found " + activeHosts.size() + " active hosts:");
-            activeHosts.forEach(System.out::println);
-        });
-        pingSweepThread.setDaemon(true);
-        pingSweepThread.start();
     }
 
     public static void updateConnectionLinesVisibility() {
@@ -446,13 +485,17 @@ public class NetworkMonitorApp extends Application {
                 if (paneWidth < 100) paneWidth = primaryStage.getScene().getWidth();
                 if (paneHeight < 100) paneHeight = primaryStage.getScene().getHeight();
 
+                // Start resolving every hostname in one batch while the nodes are built
+                CompletableFuture<Map<String, InetAddress>> resolution = resolveHostnames(configs);
+
                 // First, create nodes without any connections
                 for (NodeConfig config : configs) {
                     NetworkNode node = new NetworkNode(
                         config.getIpOrHostname(), 
                         config.getDisplayName(),
                         config.getDeviceType(), 
-                        config.getNetworkLocation()
+                        config.getNetworkLocation(),
+                        false
                     );
                     node.setPrefSize(config.getWidth(), config.getHeight());
                     node.updateLayoutForSavedSize();
@@ -478,6 +521,7 @@ public class NetworkMonitorApp extends Application {
                     if (config.getHostNode() != null) {
                         node.setHostNodeWithoutIdUpdate(config.getHostNode());
                     }
+                    node.setProbeSettings(config.getProbeSettings());
                     
 
                     persistentNodes.add(node);
@@ -485,6 +529,25 @@ public class NetworkMonitorApp extends Application {
                     spiderMapPane.getChildren().add(node);
                 }
 
+                // Hand the addresses to the nodes in one go once the batch is done
+                resolution.thenAccept(resolved -> Platform.runLater(() -> {
+                    for (NetworkNode node : persistentNodes) {
+                        String target = node.getIpOrHostname();
+                        InetAddress address = resolved.get(target);
+                        if (address != null) {
+                            node.setResolvedIp(address.getHostAddress());
+                        } else if (target != null && !target.isEmpty()
+                                && !target.matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
+                            // Missed the deadline: joins the lookup still running and applies it when it lands
+                            ResolverCache.getInstance().resolveAsync(target).thenAccept(late -> Platform.runLater(() -> {
+                                if (target.equals(node.getIpOrHostname())) {
+                                    node.setResolvedIp(late.getHostAddress());
+                                }
+                            }));
+                        }
+                    }
+                }));
+
                 // Now create connections for ALL nodes based on their routing information
                 for (NetworkNode node : persistentNodes) {
                     // Check if the node has a switch routing defined
@@ -776,6 +839,7 @@ public class NetworkMonitorApp extends Application {
                 config.setHostNodeId(node.getHostNodeId());
                 config.setRouteSwitch(node.getRouteSwitch());
                 config.setHostNode(node.getHostNode());
+                config.setProbeSettings(node.getProbeSettingsOverride());
                 
                 configs.add(config);
             }
@@ -793,6 +857,7 @@ public class NetworkMonitorApp extends Application {
     public void stop() throws Exception {
         saveNodesToFile();
         saveWindowSize();
+        MonitoringServices.stop();
         super.stop();
     }
 
@@ -912,6 +977,78 @@ public class NetworkMonitorApp extends Application {
         return route;
     }
 
+    /**
+     * Resolve the hostnames of a map being loaded as one batch: each distinct
+     * name once, with the resolver's global concurrency limit, giving up on
+     * stragglers after HOSTNAME_RESOLVE_DEADLINE_MS.
+     */
+    private CompletableFuture<Map<String, InetAddress>> resolveHostnames(List<NodeConfig> configs) {
+        Set<String> hostnames = new HashSet<>();
+        for (NodeConfig config : configs) {
+            String target = config.getIpOrHostname();
+            if (target != null && !target.isEmpty() && !target.matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
+                hostnames.add(target);
+            }
+        }
+        if (hostnames.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        long start = System.currentTimeMillis();
+        return ResolverCache.getInstance().resolveAll(hostnames, HOSTNAME_RESOLVE_DEADLINE_MS)
+            .thenApply(resolved -> {
+                System.out.println("Resolved " + resolved.size() + " of " + hostnames.size()
+                    + " hostnames in " + (System.currentTimeMillis() - start) + " ms");
+                return resolved;
+            });
+    }
+
+    /** Apply a node's up/down state from the event bus to its map node(s) */
+    private void setNodeConnected(long nodeId, boolean connected) {
+        for (NetworkNode node : persistentNodes) {
+            if (node.getNodeId() == nodeId) {
+                node.setConnected(connected);
+            }
+        }
+    }
+
+    /**
+     * Measure how long the FX thread takes to get to a task posted to it and
+     * export it as nodemonitor_fx_pulse_lag_seconds. While a check is still
+     * waiting, the time it has waited so far counts, so a stalled FX thread
+     * shows up right away.
+     */
+    private void watchFxLag() {
+        ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fx-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(() -> {
+            if (fxLagPostedAt != 0) return;
+            long posted = System.nanoTime();
+            fxLagPostedAt = posted;
+            Platform.runLater(() -> {
+                fxLagNanos = System.nanoTime() - posted;
+                fxLagPostedAt = 0;
+            });
+        }, FX_LAG_CHECK_MS, FX_LAG_CHECK_MS, TimeUnit.MILLISECONDS);
+
+        MetricsServer.getInstance().registerGauge("nodemonitor_fx_pulse_lag_seconds", "gauge",
+            "Delay before the FX application thread runs a task posted to it", () -> {
+                long posted = fxLagPostedAt;
+                long waiting = posted != 0 ? System.nanoTime() - posted : 0;
+                return Math.max(fxLagNanos, waiting) / 1e9;
+            });
+    }
+
+    /**
+     * Snapshot of the routing tree for dependency-aware probing: a node depends
+     * on the switch it routes through, or on its host if it is a VM.
+     */
+    private List<DependencyTracker.TrackedNode> buildDependencyTopology() {
+        return DependencyTracker.topologyOf(persistentNodes);
+    }
+
     // Helper method to find a node by network location
     private NetworkNode findNodeByNetworkLocation(NetworkLocation location) {
         for (NetworkNode node : persistentNodes) {
@@ -1177,6 +1314,31 @@ public class NetworkMonitorApp extends Application {
         new Thread(tracerouteTask).start();
     }
 
+    public void performPortscan(NetworkNode node) {
+        // Check if node detail panel is open and close it to avoid overlap
+        if (nodeDetailPanel.isShowing()) {
+            nodeDetailPanel.hide();
+        }
+
+        // Same reset as the traceroute panel: let the old content slide out first
+        if (rightSlidePanel.isShowing()) {
+            rightSlidePanel.hide();
+
+            javafx.animation.PauseTransition delay = new javafx.animation.PauseTransition(Duration.millis(250));
+            delay.setOnFinished(e -> createAndShowPortScanPanel(node));
+            delay.play();
+        } else {
+            createAndShowPortScanPanel(node);
+        }
+    }
+
+    private void createAndShowPortScanPanel(NetworkNode node) {
+        PortScanPanel resultsPanel = new PortScanPanel(node);
+        rightSlidePanel.setContent(resultsPanel);
+        rightSlidePanel.show();
+        resultsPanel.startScan();
+    }
+
     // Modify the NodeDetailPanel.showForNode method
     // In NetworkMonitorApp.java, add this method:
     public void showNodeDetails(NetworkNode node) {
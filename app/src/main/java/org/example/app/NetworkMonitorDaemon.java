@@ -0,0 +1,221 @@
+package org.example.app;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.example.config.NodeConfig;
+import org.example.model.MonitoredNode;
+import org.example.model.NodeModel;
+import org.example.model.OverflowPolicy;
+import org.example.service.AlertEngine;
+import org.example.service.ContinuousDiscovery;
+import org.example.service.DependencyTracker;
+import org.example.service.EventBus;
+import org.example.service.MetricsServer;
+import org.example.service.MonitorEvent;
+import org.example.service.MonitoringServices;
+import org.example.service.NodeStateTracker;
+import org.example.service.PercentileTracker;
+import org.example.service.ProbeScheduler;
+import org.example.service.ResolverCache;
+
+/**
+ * Headless entry point: probes every node in nodes.json with the same
+ * engines as the desktop app and records to the same stores, without
+ * loading any JavaFX class. Meant to run as a long-lived service.
+ *
+ * Usage: NetworkMonitorDaemon [--config nodes.json] [--data dir] [--discover]
+ *
+ * With --discover, hosts appearing, disappearing or changing address on the
+ * local networks are logged as well.
+ */
+public class NetworkMonitorDaemon {
+    private static final String DEFAULT_DIR = System.getProperty("user.home") + File.separator + "NetworkMonitorApp";
+    private static final long HOSTNAME_RESOLVE_DEADLINE_MS = 5000;
+
+    // At this scale a day of 2 s samples per target would not fit a small VM;
+    // keep half an hour in memory and leave the long view to the stores
+    private static final String HISTORY_CAPACITY = "900";
+    private static final String HISTORY_MAX_TARGETS = "25000";
+    private static final String ROLLUPS_RECENT_LIMIT = "4";
+
+    private final List<MonitoredNode> nodes = new ArrayList<>();
+    private final Map<Long, MonitoredNode> nodesById = new HashMap<>();
+    private final List<ProbeScheduler.Subscription> subscriptions = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        long start = System.currentTimeMillis();
+        Path configFile = Paths.get(DEFAULT_DIR, "nodes.json");
+        Path dataDir = Paths.get(DEFAULT_DIR);
+        boolean discover = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--config" -> configFile = Paths.get(args[++i]);
+                case "--data" -> dataDir = Paths.get(args[++i]);
+                case "--discover" -> discover = true;
+                default -> {
+                    System.out.println("Usage: NetworkMonitorDaemon [--config nodes.json] [--data dir] [--discover]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        setDefault("nodemonitor.history.capacity", HISTORY_CAPACITY);
+        setDefault("nodemonitor.history.maxTargets", HISTORY_MAX_TARGETS);
+        setDefault("nodemonitor.rollups.recentLimit", ROLLUPS_RECENT_LIMIT);
+
+        NetworkMonitorDaemon daemon = new NetworkMonitorDaemon();
+        daemon.loadNodes(configFile);
+        MonitoringServices.start(dataDir);
+        daemon.startProbing();
+        System.out.println("Monitoring " + daemon.nodes.size() + " nodes, started in "
+            + (System.currentTimeMillis() - start) + " ms");
+
+        if (discover) {
+            daemon.discover();
+        }
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Shutting down");
+            ContinuousDiscovery.stop();
+            daemon.stopProbing();
+            MonitoringServices.stop();
+            stopped.countDown();
+        }, "daemon-shutdown"));
+        stopped.await();
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    private void loadNodes(Path configFile) {
+        try {
+            String json = new String(Files.readAllBytes(configFile));
+            Type listType = new TypeToken<List<NodeConfig>>(){}.getType();
+            List<NodeConfig> configs = new Gson().fromJson(json, listType);
+            if (configs == null) return;
+
+            // Ids are only missing from configs saved by very old versions
+            long fallbackId = -1;
+            for (NodeConfig config : configs) {
+                if (config.getIpOrHostname() == null || config.getIpOrHostname().isEmpty()) continue;
+                NodeModel node = NodeModel.fromConfig(config, fallbackId--);
+                nodes.add(node);
+                nodesById.put(node.getNodeId(), node);
+            }
+        } catch (Exception e) {
+            System.out.println("Could not load nodes from " + configFile + ": " + e.getMessage());
+        }
+    }
+
+    private void startProbing() {
+        // Warm the resolver in one batch; probes of a name not resolved yet
+        // simply wait on the same lookup
+        ResolverCache resolver = ResolverCache.getInstance();
+        Set<String> hostnames = new HashSet<>();
+        for (MonitoredNode node : nodes) {
+            if (!node.getIpOrHostname().matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
+                hostnames.add(node.getIpOrHostname());
+            }
+        }
+        if (!hostnames.isEmpty()) {
+            resolver.resolveAll(hostnames, HOSTNAME_RESOLVE_DEADLINE_MS)
+                .thenAccept(resolved -> System.out.println(
+                    "Resolved " + resolved.size() + " of " + hostnames.size() + " hostnames"));
+            // Discovery matches nodes by address, so each gets its own as soon as the
+            // name resolves, deadline or not
+            for (MonitoredNode node : nodes) {
+                if (node instanceof NodeModel model && hostnames.contains(node.getIpOrHostname())) {
+                    resolver.resolveAsync(node.getIpOrHostname())
+                        .thenAccept(address -> model.setResolvedIp(address.getHostAddress()));
+                }
+            }
+        }
+
+        List<DependencyTracker.TrackedNode> topology = DependencyTracker.topologyOf(nodes);
+        DependencyTracker.getInstance().setTopology(topology);
+        PercentileTracker.getInstance().setTopology(topology);
+        NodeStateTracker.getInstance().setTopology(topology);
+        MetricsServer.getInstance().setNodes(nodes);
+        if (AlertEngine.getInstance() != null) {
+            AlertEngine.getInstance().setNodes(nodes);
+        }
+        EventBus.getInstance().subscribe("log", EventBus.DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST, this::log);
+
+        // State changes come through the event bus; the subscriptions just keep the nodes on the schedule
+        ProbeScheduler scheduler = ProbeScheduler.getInstance();
+        for (MonitoredNode node : nodes) {
+            if (!node.isProbeable()) continue;
+            subscriptions.add(scheduler.subscribe(node.getIpOrHostname(), node.getProbeSettings(), result -> {
+                // Follows the resolver cache if the name later moves to another address
+                if (result.address != null && node instanceof NodeModel model
+                        && hostnames.contains(node.getIpOrHostname())) {
+                    model.setResolvedIp(result.address.getHostAddress());
+                }
+            }));
+        }
+    }
+
+    private void stopProbing() {
+        for (ProbeScheduler.Subscription subscription : subscriptions) {
+            subscription.cancel();
+        }
+        subscriptions.clear();
+    }
+
+    /** Log node events only; the stores keep every sample */
+    private void log(MonitorEvent event) {
+        String message = switch (event) {
+            case MonitorEvent.NodeUp up -> describe(up.nodeId()) + " UP (" + up.latencyMicros() / 1000 + " ms)";
+            case MonitorEvent.NodeDown down -> describe(down.nodeId()) + " DOWN"
+                + (down.reason() != null ? " (" + down.reason() + ")" : "");
+            case MonitorEvent.NodeFlapping flap -> describe(flap.nodeId()) + " FLAPPING, holding back its events";
+            case MonitorEvent.NodeStable stable -> describe(stable.nodeId()) + " settled "
+                + (stable.up() ? "UP" : "DOWN");
+            case MonitorEvent.LatencyDegraded slow -> describe(slow.nodeId()) + " latency "
+                + slow.latencyMicros() / 1000 + " ms, usually " + slow.baselineMicros() / 1000 + " ms";
+            case MonitorEvent.LatencyRecovered back -> describe(back.nodeId()) + " latency back to "
+                + back.latencyMicros() / 1000 + " ms";
+            case MonitorEvent.RouteChanged route -> describe(route.nodeId()) + " now routed through "
+                + (route.newParentId() != null ? describe(route.newParentId()) : "nothing");
+            case MonitorEvent.NodeDiscovered found -> "Discovered " + found.node().ip
+                + (found.node().hostname.isEmpty() ? "" : " (" + found.node().hostname + ")")
+                + " on " + found.node().iface;
+            case MonitorEvent.NodeVanished gone -> "Discovered host " + gone.node().ip + " is gone";
+            case MonitorEvent.AddressChanged moved -> (moved.nodeId() != null ? describe(moved.nodeId()) : moved.mac())
+                + " moved from " + moved.oldIp() + " to " + moved.newIp();
+        };
+        System.out.println(LocalTime.now().withNano(0) + " " + message);
+    }
+
+    private String describe(long nodeId) {
+        MonitoredNode node = nodesById.get(nodeId);
+        if (node == null) return "node " + nodeId;
+        String name = node.getDisplayName() != null ? node.getDisplayName() : node.getIpOrHostname();
+        return name + " [" + node.getIpOrHostname() + "]";
+    }
+
+    /** Keep discovering in the background; what it finds is logged from the event bus */
+    private void discover() {
+        ContinuousDiscovery.start(() -> nodes, ContinuousDiscovery.DEFAULT_INTERVAL_MS);
+        System.out.println("Continuous discovery started");
+    }
+}
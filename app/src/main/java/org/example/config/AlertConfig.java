@@ -0,0 +1,63 @@
+package org.example.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.example.model.AlertCondition;
+
+/**
+ * Alert rules and sinks, loaded from alerts.json in the data directory.
+ * A default file is written on first start so there is something to edit.
+ */
+public class AlertConfig {
+    private List<AlertRule> rules = new ArrayList<>();
+    private List<AlertSinkConfig> sinks = new ArrayList<>();
+    private int groupWaitSeconds = 10;             // collect correlated alerts this long before sending
+    private int maxNotificationsPerMinute = 6;     // per sink
+
+    public static AlertConfig defaults(Path dataDir) {
+        AlertConfig config = new AlertConfig();
+        config.rules.add(new AlertRule("Node down", AlertCondition.NODE_DOWN, 60, "critical"));
+        config.rules.add(new AlertRule("High latency", AlertCondition.P95_LATENCY_ABOVE, 250, "warning"));
+        config.rules.add(new AlertRule("Packet loss", AlertCondition.LOSS_ABOVE, 20, "warning"));
+        config.sinks.add(AlertSinkConfig.file(dataDir.toAbsolutePath().resolve("alerts.log").toString()));
+        return config;
+    }
+
+    /**
+     * Read dataDir/alerts.json, writing the defaults there first if it does
+     * not exist yet.
+     */
+    public static AlertConfig load(Path dataDir) throws IOException {
+        Path file = dataDir.resolve("alerts.json");
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        if (!Files.exists(file)) {
+            AlertConfig config = defaults(dataDir);
+            Files.createDirectories(dataDir);
+            Files.writeString(file, gson.toJson(config));
+            return config;
+        }
+        AlertConfig config = gson.fromJson(Files.readString(file), AlertConfig.class);
+        return config != null ? config : defaults(dataDir);
+    }
+
+    public List<AlertRule> getRules() { return rules; }
+    public void setRules(List<AlertRule> rules) { this.rules = rules; }
+
+    public List<AlertSinkConfig> getSinks() { return sinks; }
+    public void setSinks(List<AlertSinkConfig> sinks) { this.sinks = sinks; }
+
+    public int getGroupWaitSeconds() { return groupWaitSeconds; }
+    public void setGroupWaitSeconds(int groupWaitSeconds) { this.groupWaitSeconds = groupWaitSeconds; }
+
+    public int getMaxNotificationsPerMinute() { return maxNotificationsPerMinute; }
+    public void setMaxNotificationsPerMinute(int maxNotificationsPerMinute) {
+        this.maxNotificationsPerMinute = maxNotificationsPerMinute;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.config;
+
+import java.util.List;
+
+import org.example.model.AlertCondition;
+import org.example.model.DeviceType;
+
+/**
+ * One alert rule as stored in alerts.json.
+ */
+public class AlertRule {
+    public static final int DEFAULT_SAMPLES = 20;
+
+    private String name;
+    private AlertCondition condition;
+    private double threshold;            // in the condition's unit
+    private Integer samples;             // probes judged by latency and loss rules
+    private String severity = "warning";
+    private List<DeviceType> deviceTypes; // null or empty for every device type
+    private boolean enabled = true;
+
+    public AlertRule() { }
+
+    public AlertRule(String name, AlertCondition condition, double threshold, String severity) {
+        this.name = name;
+        this.condition = condition;
+        this.threshold = threshold;
+        this.severity = severity;
+    }
+
+    public boolean appliesTo(DeviceType deviceType) {
+        return enabled && condition != null
+            && (deviceTypes == null || deviceTypes.isEmpty() || deviceTypes.contains(deviceType));
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public AlertCondition getCondition() { return condition; }
+    public void setCondition(AlertCondition condition) { this.condition = condition; }
+
+    public double getThreshold() { return threshold; }
+    public void setThreshold(double threshold) { this.threshold = threshold; }
+
+    public int getSamples() { return samples != null && samples > 0 ? samples : DEFAULT_SAMPLES; }
+    public void setSamples(Integer samples) { this.samples = samples; }
+
+    public String getSeverity() { return severity; }
+    public void setSeverity(String severity) { this.severity = severity; }
+
+    public List<DeviceType> getDeviceTypes() { return deviceTypes; }
+    public void setDeviceTypes(List<DeviceType> deviceTypes) { this.deviceTypes = deviceTypes; }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+}
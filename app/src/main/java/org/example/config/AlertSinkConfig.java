@@ -0,0 +1,77 @@
+package org.example.config;
+
+import java.util.List;
+
+import org.example.model.AlertSinkType;
+
+/**
+ * Where alert notifications go, as stored in alerts.json. Only the fields
+ * for the sink's type are used.
+ */
+public class AlertSinkConfig {
+    private AlertSinkType type;
+    private String name;
+
+    // WEBHOOK
+    private String url;
+
+    // SMTP: plain SMTP to a relay, as with a local MTA
+    private String host;
+    private Integer port;
+    private String from;
+    private List<String> to;
+
+    // FILE
+    private String path;
+
+    public AlertSinkConfig() { }
+
+    public static AlertSinkConfig webhook(String url) {
+        AlertSinkConfig config = new AlertSinkConfig();
+        config.type = AlertSinkType.WEBHOOK;
+        config.url = url;
+        return config;
+    }
+
+    public static AlertSinkConfig smtp(String host, int port, String from, List<String> to) {
+        AlertSinkConfig config = new AlertSinkConfig();
+        config.type = AlertSinkType.SMTP;
+        config.host = host;
+        config.port = port;
+        config.from = from;
+        config.to = to;
+        return config;
+    }
+
+    public static AlertSinkConfig file(String path) {
+        AlertSinkConfig config = new AlertSinkConfig();
+        config.type = AlertSinkType.FILE;
+        config.path = path;
+        return config;
+    }
+
+    public AlertSinkType getType() { return type; }
+    public void setType(AlertSinkType type) { this.type = type; }
+
+    /** Defaults to the type, for thread names and logs */
+    public String getName() { return name != null ? name : type.name().toLowerCase(); }
+    public void setName(String name) { this.name = name; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getHost() { return host; }
+    public void setHost(String host) { this.host = host; }
+
+    public int getPort() { return port != null ? port : 25; }
+    public void setPort(Integer port) { this.port = port; }
+
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+
+    public List<String> getTo() { return to; }
+    public void setTo(List<String> to) { this.to = to; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+}
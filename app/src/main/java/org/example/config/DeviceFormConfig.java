@@ -111,6 +111,7 @@ public class DeviceFormConfig {
         put(DeviceType.SERVER, Arrays.asList(
             DeviceField.HOSTING_PROVIDER,
             DeviceField.REGION,
+            DeviceField.SSH_ENABLED,
             DeviceField.MAC_ADDRESS
         ));
         
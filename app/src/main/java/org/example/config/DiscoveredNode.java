@@ -2,11 +2,18 @@ package org.example.config;
 
 public class DiscoveredNode {
     public final String ip, mac, hostname, iface;
+    /** False while the host is only remembered from an earlier run and not yet seen in this one */
+    public final boolean confirmed;
 
     public DiscoveredNode(String ip, String mac, String hostname, String iface) {
-        this.ip       = ip;
-        this.mac      = mac;
-        this.hostname = hostname;
-        this.iface    = iface;
+        this(ip, mac, hostname, iface, true);
+    }
+
+    public DiscoveredNode(String ip, String mac, String hostname, String iface, boolean confirmed) {
+        this.ip        = ip;
+        this.mac       = mac;
+        this.hostname  = hostname;
+        this.iface     = iface;
+        this.confirmed = confirmed;
     }
 }
@@ -23,6 +23,7 @@ public class NodeConfig {
     private String hostNode;  // Add this field
     private Long nodeId;  // Add this field
     private NetworkLocation networkLocation; // Add new field
+    private ProbeSettings probeSettings; // null = device type default
 
     public NodeConfig() { }
 
@@ -168,4 +169,12 @@ public class NodeConfig {
     public void setNetworkLocation(NetworkLocation networkLocation) {
         this.networkLocation = networkLocation;
     }
+
+    public ProbeSettings getProbeSettings() {
+        return probeSettings;
+    }
+
+    public void setProbeSettings(ProbeSettings probeSettings) {
+        this.probeSettings = probeSettings;
+    }
 }
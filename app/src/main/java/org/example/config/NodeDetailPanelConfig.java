@@ -52,13 +52,15 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        addHistoryFields(fields);
         
         FIELD_CONFIGS.put(DeviceType.COMPUTER, fields);
         
         // Define which sections this device type has
         DEVICE_SECTIONS.put(DeviceType.COMPUTER, Arrays.asList(
             FieldSection.NODE_BASIC_INFORMATION,
-            FieldSection.CONNECTION_INFORMATION
+            FieldSection.CONNECTION_INFORMATION,
+            FieldSection.NOTIFICATIONS
         ));
     }
 
@@ -75,6 +77,8 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        // No history of its own: unmanaged switches are never probed, the devices behind them are
+        addField(fields, DeviceField.SUBTREE_LATENCY_PERCENTILES, false, "Downstream Latency (1h)", FieldSection.CONNECTION_INFORMATION);
         
         // Fix: Put fields into UNMANAGED_SWITCH instead of COMPUTER
         FIELD_CONFIGS.put(DeviceType.UNMANAGED_SWITCH, fields);
@@ -102,13 +106,16 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        addHistoryFields(fields);
+        addField(fields, DeviceField.SUBTREE_LATENCY_PERCENTILES, false, "Downstream Latency (1h)", FieldSection.CONNECTION_INFORMATION);
         
         FIELD_CONFIGS.put(DeviceType.MANAGED_SWITCH, fields);
         
         // Define which sections this device type has
         DEVICE_SECTIONS.put(DeviceType.MANAGED_SWITCH, Arrays.asList(
             FieldSection.NODE_BASIC_INFORMATION,
-            FieldSection.CONNECTION_INFORMATION
+            FieldSection.CONNECTION_INFORMATION,
+            FieldSection.NOTIFICATIONS
         ));
     }
     
@@ -125,13 +132,16 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        addHistoryFields(fields);
+        addField(fields, DeviceField.SUBTREE_LATENCY_PERCENTILES, false, "Downstream Latency (1h)", FieldSection.CONNECTION_INFORMATION);
         
         FIELD_CONFIGS.put(DeviceType.ROUTER, fields);
         
         // Define which sections this device type has
         DEVICE_SECTIONS.put(DeviceType.ROUTER, Arrays.asList(
             FieldSection.NODE_BASIC_INFORMATION,
-            FieldSection.CONNECTION_INFORMATION
+            FieldSection.CONNECTION_INFORMATION,
+            FieldSection.NOTIFICATIONS
         ));
     }
 
@@ -148,13 +158,16 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        addHistoryFields(fields);
+        addField(fields, DeviceField.SUBTREE_LATENCY_PERCENTILES, false, "Downstream Latency (1h)", FieldSection.CONNECTION_INFORMATION);
         
         FIELD_CONFIGS.put(DeviceType.GATEWAY, fields);
         
         // Define which sections this device type has
         DEVICE_SECTIONS.put(DeviceType.GATEWAY, Arrays.asList(
             FieldSection.NODE_BASIC_INFORMATION,
-            FieldSection.CONNECTION_INFORMATION
+            FieldSection.CONNECTION_INFORMATION,
+            FieldSection.NOTIFICATIONS
         ));
     }
 
@@ -171,13 +184,15 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        addHistoryFields(fields);
         
         FIELD_CONFIGS.put(DeviceType.VIRTUAL_MACHINE, fields);
         
         // Define which sections this device type has
         DEVICE_SECTIONS.put(DeviceType.VIRTUAL_MACHINE, Arrays.asList(
             FieldSection.NODE_BASIC_INFORMATION,
-            FieldSection.CONNECTION_INFORMATION
+            FieldSection.CONNECTION_INFORMATION,
+            FieldSection.NOTIFICATIONS
         ));
     }
 
@@ -197,13 +212,15 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        addHistoryFields(fields);
         
         FIELD_CONFIGS.put(DeviceType.LAPTOP, fields);
         
         // Define which sections this device type has
         DEVICE_SECTIONS.put(DeviceType.LAPTOP, Arrays.asList(
             FieldSection.NODE_BASIC_INFORMATION,
-            FieldSection.CONNECTION_INFORMATION
+            FieldSection.CONNECTION_INFORMATION,
+            FieldSection.NOTIFICATIONS
         ));
     }
 
@@ -223,18 +240,30 @@ public class NodeDetailPanelConfig {
         // Connection Info section
         addField(fields, DeviceField.TOTAL_CONNECTIONS, false, "Total Connections", FieldSection.CONNECTION_INFORMATION);
         addField(fields, DeviceField.ONLINE_CONNECTIONS, false, "Online Connections", FieldSection.CONNECTION_INFORMATION);
+        addHistoryFields(fields);
         
         FIELD_CONFIGS.put(DeviceType.PHONE, fields);
         
         // Define which sections this device type has
         DEVICE_SECTIONS.put(DeviceType.PHONE, Arrays.asList(
             FieldSection.NODE_BASIC_INFORMATION,
-            FieldSection.CONNECTION_INFORMATION
+            FieldSection.CONNECTION_INFORMATION,
+            FieldSection.NOTIFICATIONS
         ));
     }
 
     
     
+    // Probe history read from LatencyHistory
+    private static void addHistoryFields(List<NodeDetailFieldConfig> fields) {
+        addField(fields, DeviceField.AVAILABILITY_24H, false, "Availability (24h)", FieldSection.CONNECTION_INFORMATION);
+        addField(fields, DeviceField.AVG_LATENCY_1H, false, "Avg Latency (1h)", FieldSection.CONNECTION_INFORMATION);
+        addField(fields, DeviceField.AVAILABILITY_30D, false, "Availability (30d)", FieldSection.CONNECTION_INFORMATION);
+        addField(fields, DeviceField.LATENCY_PERCENTILES, false, "Latency Percentiles (1h)", FieldSection.CONNECTION_INFORMATION);
+        // Firing alerts from AlertEngine
+        addField(fields, DeviceField.ACTIVE_ALERTS, false, "Active Alerts", FieldSection.NOTIFICATIONS);
+    }
+
     private static void addField(List<NodeDetailFieldConfig> list, DeviceField field, 
                             boolean editable, String label, FieldSection section) {
         list.add(new NodeDetailFieldConfig(field, editable, label, section));
@@ -0,0 +1,187 @@
+package org.example.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.example.model.DeviceType;
+import org.example.model.ProbeType;
+
+/**
+ * How a node is probed for reachability and how often. Stored with the node
+ * config when a node overrides the defaults for its device type; any field
+ * left unset in an override falls back to the device type default.
+ *
+ * Intervals are adaptive: a node that stays up drifts from the base interval
+ * out to maxUpIntervalMs, a node that just changed state is re-checked every
+ * fastRecheckMs until the change is confirmed, and a node that stays down
+ * backs off exponentially up to maxDownIntervalMs.
+ */
+public class ProbeSettings {
+    public static final int SSH_PORT = 22;
+    public static final int RTSP_PORT = 554;
+
+    public static final long DEFAULT_FAST_RECHECK_MS = 500;
+    public static final long DEFAULT_BASE_INTERVAL_MS = 2000;
+    public static final long DEFAULT_MAX_UP_INTERVAL_MS = 30000;
+    public static final long DEFAULT_MAX_DOWN_INTERVAL_MS = 60000;
+
+    // Device types that usually drop ICMP and are probed on a TCP port instead
+    private static final Map<DeviceType, Integer> DEFAULT_TCP_PORTS = new HashMap<>() {{
+        put(DeviceType.SECURITY_CAMERA, RTSP_PORT);
+    }};
+
+    // Device types whose interval limits differ from the global defaults:
+    // { maxUpIntervalMs, maxDownIntervalMs }
+    private static final Map<DeviceType, long[]> DEFAULT_INTERVAL_LIMITS = new HashMap<>() {{
+        // Infrastructure takes everything behind it down, so keep it on a shorter leash
+        put(DeviceType.ROUTER, new long[] { 10000, 30000 });
+        put(DeviceType.GATEWAY, new long[] { 10000, 30000 });
+        put(DeviceType.MANAGED_SWITCH, new long[] { 10000, 30000 });
+        put(DeviceType.UNMANAGED_SWITCH, new long[] { 10000, 30000 });
+        put(DeviceType.WIRELESS_ACCESS_POINT, new long[] { 10000, 30000 });
+        // Portable devices come and go; don't waste probes while they are away
+        put(DeviceType.PHONE, new long[] { 60000, 300000 });
+        put(DeviceType.LAPTOP, new long[] { 60000, 300000 });
+    }};
+
+    private ProbeType probeType;      // null = device type default
+    private int port;                // only used for TCP_CONNECT
+    private Long fastRecheckMs;
+    private Long baseIntervalMs;
+    private Long maxUpIntervalMs;
+    private Long maxDownIntervalMs;
+
+    public ProbeSettings() { }
+
+    public ProbeSettings(ProbeType probeType, int port) {
+        this.probeType = probeType;
+        this.port = port;
+    }
+
+    public static ProbeSettings icmp() {
+        return new ProbeSettings(ProbeType.ICMP, 0);
+    }
+
+    public static ProbeSettings tcp(int port) {
+        return new ProbeSettings(ProbeType.TCP_CONNECT, port);
+    }
+
+    /**
+     * Default probe settings for a device type
+     */
+    public static ProbeSettings defaultsFor(DeviceType deviceType) {
+        Integer port = deviceType != null ? DEFAULT_TCP_PORTS.get(deviceType) : null;
+        ProbeSettings settings = port != null ? tcp(port) : icmp();
+
+        long[] limits = deviceType != null ? DEFAULT_INTERVAL_LIMITS.get(deviceType) : null;
+        settings.fastRecheckMs = DEFAULT_FAST_RECHECK_MS;
+        settings.baseIntervalMs = DEFAULT_BASE_INTERVAL_MS;
+        settings.maxUpIntervalMs = limits != null ? limits[0] : DEFAULT_MAX_UP_INTERVAL_MS;
+        settings.maxDownIntervalMs = limits != null ? limits[1] : DEFAULT_MAX_DOWN_INTERVAL_MS;
+        return settings;
+    }
+
+    /**
+     * What a node actually probes with: its override, if any, merged over the
+     * defaults for its device type.
+     */
+    public static ProbeSettings effective(ProbeSettings override, DeviceType deviceType) {
+        ProbeSettings defaults = defaultsFor(deviceType);
+        return override != null ? override.withDefaults(defaults) : defaults;
+    }
+
+    /**
+     * Returns a copy of these settings with every unset field taken from the defaults.
+     */
+    public ProbeSettings withDefaults(ProbeSettings defaults) {
+        ProbeSettings merged = copy();
+        if (probeType == null) {
+            merged.probeType = defaults.probeType;
+            merged.port = defaults.port;
+        }
+        if (fastRecheckMs == null) merged.fastRecheckMs = defaults.fastRecheckMs;
+        if (baseIntervalMs == null) merged.baseIntervalMs = defaults.baseIntervalMs;
+        if (maxUpIntervalMs == null) merged.maxUpIntervalMs = defaults.maxUpIntervalMs;
+        if (maxDownIntervalMs == null) merged.maxDownIntervalMs = defaults.maxDownIntervalMs;
+        return merged;
+    }
+
+    public ProbeSettings copy() {
+        ProbeSettings copy = new ProbeSettings(probeType, port);
+        copy.fastRecheckMs = fastRecheckMs;
+        copy.baseIntervalMs = baseIntervalMs;
+        copy.maxUpIntervalMs = maxUpIntervalMs;
+        copy.maxDownIntervalMs = maxDownIntervalMs;
+        return copy;
+    }
+
+    /** True if both settings probe the same way at the same intervals */
+    public boolean sameAs(ProbeSettings other) {
+        return other != null
+            && getProbeKey().equals(other.getProbeKey())
+            && getFastRecheckMs() == other.getFastRecheckMs()
+            && getBaseIntervalMs() == other.getBaseIntervalMs()
+            && getMaxUpIntervalMs() == other.getMaxUpIntervalMs()
+            && getMaxDownIntervalMs() == other.getMaxDownIntervalMs();
+    }
+
+    public ProbeType getProbeType() {
+        return probeType == null ? ProbeType.ICMP : probeType;
+    }
+
+    public void setProbeType(ProbeType probeType) {
+        this.probeType = probeType;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public long getFastRecheckMs() {
+        return fastRecheckMs != null ? fastRecheckMs : DEFAULT_FAST_RECHECK_MS;
+    }
+
+    public void setFastRecheckMs(Long fastRecheckMs) {
+        this.fastRecheckMs = fastRecheckMs;
+    }
+
+    public long getBaseIntervalMs() {
+        return baseIntervalMs != null ? baseIntervalMs : DEFAULT_BASE_INTERVAL_MS;
+    }
+
+    public void setBaseIntervalMs(Long baseIntervalMs) {
+        this.baseIntervalMs = baseIntervalMs;
+    }
+
+    public long getMaxUpIntervalMs() {
+        return maxUpIntervalMs != null ? maxUpIntervalMs : DEFAULT_MAX_UP_INTERVAL_MS;
+    }
+
+    public void setMaxUpIntervalMs(Long maxUpIntervalMs) {
+        this.maxUpIntervalMs = maxUpIntervalMs;
+    }
+
+    public long getMaxDownIntervalMs() {
+        return maxDownIntervalMs != null ? maxDownIntervalMs : DEFAULT_MAX_DOWN_INTERVAL_MS;
+    }
+
+    public void setMaxDownIntervalMs(Long maxDownIntervalMs) {
+        this.maxDownIntervalMs = maxDownIntervalMs;
+    }
+
+    public boolean isTcp() {
+        return getProbeType() == ProbeType.TCP_CONNECT;
+    }
+
+    /**
+     * Short identifier of what is actually sent on the wire, e.g. "icmp" or "tcp/554".
+     * Two settings with the same key produce the same probe.
+     */
+    public String getProbeKey() {
+        return isTcp() ? "tcp/" + port : "icmp";
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.model;
+
+/**
+ * What an alert rule watches. The rule's threshold is in the unit given here.
+ */
+public enum AlertCondition {
+    NODE_DOWN("Down for", "s"),             // down for at least threshold seconds
+    P95_LATENCY_ABOVE("p95 latency above", "ms"),
+    LOSS_ABOVE("Packet loss above", "%");
+
+    private final String label;
+    private final String unit;
+
+    AlertCondition(String label, String unit) {
+        this.label = label;
+        this.unit = unit;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.model;
+
+public enum AlertSinkType {
+    WEBHOOK("Webhook"),
+    SMTP("Email (SMTP)"),
+    FILE("Local file");
+
+    private final String label;
+
+    AlertSinkType(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -69,7 +69,13 @@ public enum DeviceField {
     HOST_NODE("Host Node"),
 
     TOTAL_CONNECTIONS("Total Connections"),
-    ONLINE_CONNECTIONS("Online Connections");
+    ONLINE_CONNECTIONS("Online Connections"),
+    AVAILABILITY_24H("Availability (24h)"),
+    AVG_LATENCY_1H("Avg Latency (1h)"),
+    AVAILABILITY_30D("Availability (30d)"),
+    LATENCY_PERCENTILES("Latency Percentiles (1h)"),
+    SUBTREE_LATENCY_PERCENTILES("Downstream Latency (1h)"),
+    ACTIVE_ALERTS("Active Alerts");
 
     private final String label;
     
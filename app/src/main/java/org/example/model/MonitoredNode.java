@@ -0,0 +1,52 @@
+package org.example.model;
+
+import org.example.config.ProbeSettings;
+
+/**
+ * What the probing and history services need to know about a node, without
+ * any of the UI. Implemented by the map's {@link NetworkNode} and by the
+ * plain {@link NodeModel} the headless daemon runs on.
+ */
+public interface MonitoredNode {
+    long getNodeId();
+
+    String getIpOrHostname();
+
+    String getDisplayName();
+
+    DeviceType getDeviceType();
+
+    NetworkLocation getNetworkLocation();
+
+    ConnectionType getConnectionType();
+
+    Long getRouteSwitchId();
+
+    Long getHostNodeId();
+
+    /** Effective settings: the node's override merged over its device type defaults */
+    ProbeSettings getProbeSettings();
+
+    /** The address the hostname last resolved to, or null */
+    String getResolvedIp();
+
+    /** The MAC address entered for the node, or null */
+    default String getMacAddress() {
+        return null;
+    }
+
+    /** The node this one depends on: the switch it routes through, or its host if it is a VM */
+    default Long getDependencyParentId() {
+        Long parentId = getRouteSwitchId();
+        if (parentId == null && getDeviceType() == DeviceType.VIRTUAL_MACHINE) {
+            parentId = getHostNodeId();
+        }
+        return parentId;
+    }
+
+    /** Remote private nodes can't be reached from here and unmanaged switches have no address */
+    default boolean isProbeable() {
+        return getNetworkLocation() != NetworkLocation.REMOTE_PRIVATE
+            && getDeviceType() != DeviceType.UNMANAGED_SWITCH;
+    }
+}
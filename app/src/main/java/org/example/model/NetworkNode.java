@@ -1,8 +1,8 @@
 package org.example.model;
 
-import java.net.InetAddress;
-
 import org.example.app.NetworkMonitorApp;
+import org.example.config.ProbeSettings;
+import org.example.service.ResolverCache;
 import org.example.ui.components.ConnectionLine;
 
 import javafx.animation.ScaleTransition;
@@ -25,7 +25,7 @@ import javafx.util.Duration;
  * Represents a network node on the spider map.
  * Displays as a square icon with a glow and label below.
  */
-public class NetworkNode extends StackPane {
+public class NetworkNode extends StackPane implements MonitoredNode {
     private static long nextId = 1; // Static counter for generating IDs
     private final long nodeId;      // Unique ID for this node
 
@@ -36,7 +36,7 @@ public class NetworkNode extends StackPane {
     private boolean mainNode = false;
     private Long routeSwitchId; // Change from String to Long
     private ConnectionType connectionType = ConnectionType.ETHERNET;
-    private String resolvedIp = null;
+    private volatile String resolvedIp = null;
     private boolean connected = false;
     private long startTime;
 
@@ -76,6 +76,16 @@ public class NetworkNode extends StackPane {
 
     public NetworkNode(String ipOrHostname, String displayName,
                        DeviceType deviceType, NetworkLocation networkLocation) {
+        this(ipOrHostname, displayName, deviceType, networkLocation, true);
+    }
+
+    /**
+     * @param resolveHostname false when the caller resolves hostnames itself,
+     *                        e.g. in one batch for a whole map being loaded
+     */
+    public NetworkNode(String ipOrHostname, String displayName,
+                       DeviceType deviceType, NetworkLocation networkLocation,
+                       boolean resolveHostname) {
         this.nodeId = nextId++;
         this.ipOrHostname = ipOrHostname;
         this.displayName  = displayName;
@@ -220,8 +230,8 @@ public class NetworkNode extends StackPane {
             // Use the traceroute functionality from NetworkMonitorApp
             tracerouteItem.setOnAction(a -> NetworkMonitorApp.getInstance().performTraceroute(NetworkNode.this));
             
-            // Placeholder for portscan functionality
-            portscanItem.setOnAction(a -> System.out.println("Portscan for: " + getDisplayName()));
+            // Open the portscan panel for this node
+            portscanItem.setOnAction(a -> NetworkMonitorApp.getInstance().performPortscan(NetworkNode.this));
             
             cm.getItems().addAll(tracerouteItem, portscanItem);
             cm.show(this, e.getScreenX(), e.getScreenY());
@@ -229,13 +239,9 @@ public class NetworkNode extends StackPane {
         });
 
         // --- Resolve hostname asynchronously ---
-        if (!ipOrHostname.matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
-            new Thread(() -> {
-                try {
-                    InetAddress addr = InetAddress.getByName(ipOrHostname);
-                    resolvedIp = addr.getHostAddress();
-                } catch (Exception ignored) {}
-            }).start();
+        if (resolveHostname && !ipOrHostname.matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
+            ResolverCache.getInstance().resolveAsync(ipOrHostname)
+                .thenAccept(addr -> resolvedIp = addr.getHostAddress());
         }
     }
 
@@ -299,6 +305,7 @@ public class NetworkNode extends StackPane {
     public void setConnectionType(ConnectionType ct) { this.connectionType = ct; }
 
     public String getResolvedIp()               { return resolvedIp; }
+    public void setResolvedIp(String ip)        { this.resolvedIp = ip; }
 
     public boolean isConnected()                { return this.connected; }
     public void setConnected(boolean c)         { this.connected = c; }
@@ -315,6 +322,22 @@ public class NetworkNode extends StackPane {
         return macAddress;
     }
 
+    private ProbeSettings probeSettings; // null = defaults for the device type
+
+    /** Effective probe settings: the node's own override on top of the device type default */
+    public ProbeSettings getProbeSettings() {
+        return ProbeSettings.effective(probeSettings, deviceType);
+    }
+
+    /** The node's own override, or null if it uses the device type default */
+    public ProbeSettings getProbeSettingsOverride() {
+        return probeSettings;
+    }
+
+    public void setProbeSettings(ProbeSettings probeSettings) {
+        this.probeSettings = probeSettings;
+    }
+
     public void setRouteVia(NetworkNode node) {
         this.routeViaId = node != null ? node.getNodeId() : null;
     }
@@ -0,0 +1,105 @@
+package org.example.model;
+
+import org.example.config.NodeConfig;
+import org.example.config.ProbeSettings;
+
+/**
+ * A node as plain data, loaded straight from its {@link NodeConfig}. Used
+ * where there is no map to draw it on.
+ */
+public class NodeModel implements MonitoredNode {
+    private final long nodeId;
+    private final String ipOrHostname;
+    private final String displayName;
+    private final DeviceType deviceType;
+    private final NetworkLocation networkLocation;
+    private final ConnectionType connectionType;
+    private final Long routeSwitchId;
+    private final Long hostNodeId;
+    private final ProbeSettings probeSettings;
+    private volatile String resolvedIp;
+
+    public NodeModel(long nodeId, String ipOrHostname, String displayName, DeviceType deviceType,
+                     NetworkLocation networkLocation, ConnectionType connectionType,
+                     Long routeSwitchId, Long hostNodeId, ProbeSettings probeSettings) {
+        this.nodeId = nodeId;
+        this.ipOrHostname = ipOrHostname;
+        this.displayName = displayName;
+        this.deviceType = deviceType;
+        this.networkLocation = networkLocation;
+        this.connectionType = connectionType != null ? connectionType : ConnectionType.ETHERNET;
+        this.routeSwitchId = routeSwitchId;
+        this.hostNodeId = hostNodeId;
+        this.probeSettings = ProbeSettings.effective(probeSettings, deviceType);
+    }
+
+    /**
+     * @param fallbackId used when the config predates saved node ids
+     */
+    public static NodeModel fromConfig(NodeConfig config, long fallbackId) {
+        return new NodeModel(
+            config.getNodeId() != null ? config.getNodeId() : fallbackId,
+            config.getIpOrHostname(),
+            config.getDisplayName(),
+            config.getDeviceType(),
+            config.getNetworkLocation(),
+            config.getConnectionType(),
+            config.getRouteSwitchId(),
+            config.getHostNodeId(),
+            config.getProbeSettings());
+    }
+
+    @Override
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public String getIpOrHostname() {
+        return ipOrHostname;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public DeviceType getDeviceType() {
+        return deviceType;
+    }
+
+    @Override
+    public NetworkLocation getNetworkLocation() {
+        return networkLocation;
+    }
+
+    @Override
+    public ConnectionType getConnectionType() {
+        return connectionType;
+    }
+
+    @Override
+    public Long getRouteSwitchId() {
+        return routeSwitchId;
+    }
+
+    @Override
+    public Long getHostNodeId() {
+        return hostNodeId;
+    }
+
+    @Override
+    public ProbeSettings getProbeSettings() {
+        return probeSettings;
+    }
+
+    @Override
+    public String getResolvedIp() {
+        return resolvedIp;
+    }
+
+    public void setResolvedIp(String resolvedIp) {
+        this.resolvedIp = resolvedIp;
+    }
+}
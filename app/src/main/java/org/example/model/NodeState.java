@@ -0,0 +1,22 @@
+package org.example.model;
+
+/**
+ * A node's state after flap damping, as opposed to the raw result of its
+ * last probe.
+ */
+public enum NodeState {
+    UNKNOWN("Unknown"),
+    UP("Up"),
+    DOWN("Down"),
+    FLAPPING("Flapping");
+
+    private final String label;
+
+    NodeState(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.model;
+
+/**
+ * What an event subscriber's queue does when it is full.
+ */
+public enum OverflowPolicy {
+    DROP_OLDEST("Drop oldest"),       // make room by discarding the oldest queued event
+    COALESCE_BY_NODE("Coalesce"),     // keep only the latest event per MonitorEvent.key(); drop oldest if still full
+    BLOCK("Block");                   // make the publisher wait; only for consumers that must see everything
+
+    private final String label;
+
+    OverflowPolicy(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.model;
+
+/**
+ * What a TCP port scan found on one port.
+ */
+public enum PortState {
+    OPEN("Open"),           // handshake completed
+    CLOSED("Closed"),       // refused: the host answered with a reset
+    FILTERED("Filtered");   // no answer within the timeout, or unreachable
+
+    private final String label;
+
+    PortState(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
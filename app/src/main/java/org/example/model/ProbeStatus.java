@@ -0,0 +1,18 @@
+package org.example.model;
+
+public enum ProbeStatus {
+    UP("Up"),
+    DOWN("Down"),
+    ERROR("Error"),
+    UPSTREAM_UNREACHABLE("Unreachable (upstream)");
+
+    private final String label;
+
+    ProbeStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
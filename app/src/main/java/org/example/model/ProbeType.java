@@ -0,0 +1,16 @@
+package org.example.model;
+
+public enum ProbeType {
+    ICMP("ICMP Echo"),
+    TCP_CONNECT("TCP Connect");
+
+    private final String label;
+
+    ProbeType(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
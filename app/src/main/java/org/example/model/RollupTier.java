@@ -0,0 +1,46 @@
+package org.example.model;
+
+/**
+ * Aggregation levels for long-term latency history, finest first. Each tier
+ * is built from the one below it and kept for its own retention period; on
+ * disk it is split into segment files of segmentMs each.
+ */
+public enum RollupTier {
+    ONE_MINUTE("1m", 60_000L, 24 * 3600_000L, 7 * 24 * 3600_000L),
+    FIFTEEN_MINUTES("15m", 15 * 60_000L, 7 * 24 * 3600_000L, 90 * 24 * 3600_000L),
+    ONE_HOUR("1h", 3600_000L, 30 * 24 * 3600_000L, 730 * 24 * 3600_000L);
+
+    private final String label;
+    private final long bucketMs;
+    private final long segmentMs;
+    private final long retentionMs;
+
+    RollupTier(String label, long bucketMs, long segmentMs, long retentionMs) {
+        this.label = label;
+        this.bucketMs = bucketMs;
+        this.segmentMs = segmentMs;
+        this.retentionMs = retentionMs;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getBucketMs() {
+        return bucketMs;
+    }
+
+    public long getSegmentMs() {
+        return segmentMs;
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    /** The next coarser tier, or null for the coarsest */
+    public RollupTier coarser() {
+        RollupTier[] tiers = values();
+        return ordinal() + 1 < tiers.length ? tiers[ordinal() + 1] : null;
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.service;
+
+/**
+ * One alert: a rule that fired for a node. Immutable; resolving an alert
+ * makes a copy with resolvedAt set.
+ */
+public class Alert {
+    public final String rule;
+    public final String severity;
+    public final long nodeId;
+    public final String nodeName;
+    public final String target;
+    public final String message;     // what was seen, e.g. "p95 412 ms over the last 20 probes"
+    public final long firedAt;
+    public final long resolvedAt;    // 0 while firing
+
+    public Alert(String rule, String severity, long nodeId, String nodeName, String target,
+                 String message, long firedAt, long resolvedAt) {
+        this.rule = rule;
+        this.severity = severity;
+        this.nodeId = nodeId;
+        this.nodeName = nodeName;
+        this.target = target;
+        this.message = message;
+        this.firedAt = firedAt;
+        this.resolvedAt = resolvedAt;
+    }
+
+    public Alert resolved(long at) {
+        return new Alert(rule, severity, nodeId, nodeName, target, message, firedAt, at);
+    }
+
+    /** The same alert firing again, when its resolution was never sent */
+    public Alert reopened() {
+        return new Alert(rule, severity, nodeId, nodeName, target, message, firedAt, 0);
+    }
+
+    public boolean isFiring() {
+        return resolvedAt == 0;
+    }
+
+    @Override
+    public String toString() {
+        return (isFiring() ? "FIRING" : "RESOLVED") + " [" + severity + "] " + rule + ": "
+            + nodeName + " (" + target + ") " + message;
+    }
+}
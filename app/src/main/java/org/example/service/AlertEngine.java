@@ -0,0 +1,496 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.example.config.AlertConfig;
+import org.example.config.AlertRule;
+import org.example.model.AlertCondition;
+import org.example.model.DeviceType;
+import org.example.model.MonitoredNode;
+import org.example.model.OverflowPolicy;
+
+/**
+ * Evaluates the alert rules of alerts.json and sends notifications to the
+ * configured sinks.
+ *
+ * Evaluation is incremental. Down rules are driven by the damped NodeDown and
+ * NodeUp events of the {@link EventBus}: a NodeDown arms a timer per rule and
+ * the timer fires the alert if no NodeUp came first. Latency and loss rules
+ * keep a window of the last probes per target and are only evaluated for the
+ * nodes behind the target of each new result. The one-second tick only looks
+ * at timers that expired and groups that are due, so no step walks every node.
+ *
+ * An alert fires once per episode and resolves once. Alerts of nodes behind
+ * the same upstream switch (or host) are collected for groupWaitSeconds and
+ * sent as one notification; an alert that fires and resolves within that wait
+ * is never sent at all. Each sink has its own rate limit and its own thread,
+ * so a slow mail relay holds up neither probing nor the other sinks. What the
+ * rate limit holds back is merged into the sink's next notification, so a
+ * resolution is late at worst, never lost.
+ *
+ * Once started, probe results and bus events are only handed over to the
+ * engine's own thread, which also ticks. Probe workers and the bus never
+ * wait for the engine's lock, so a backlog here cannot stall probing.
+ */
+public class AlertEngine {
+    private static final long TICK_MS = 1000;
+    private static final double RESOLVE_FRACTION = 0.8;   // hysteresis for latency and loss rules
+
+    private static AlertEngine instance;
+
+    private final List<AlertRule> rules;
+    private final long groupWaitMs;
+    private final List<SinkWorker> sinks = new ArrayList<>();
+    private EventBus.Subscriber subscription;
+    private volatile ScheduledExecutorService ticker;
+
+    // All state below is guarded by this
+    private Map<Long, Watched> nodes = new HashMap<>();
+    private Map<String, List<Watched>> nodesByTarget = new HashMap<>();
+    private final Map<String, ProbeWindow> windows = new HashMap<>();
+    private final Map<Long, Long> downSince = new HashMap<>();
+    private final PriorityQueue<DownTimer> timers = new PriorityQueue<>();
+    private final Map<Long, Map<AlertRule, Alert>> active = new HashMap<>();
+    private final Map<Long, PendingGroup> pending = new LinkedHashMap<>();
+
+    /**
+     * Start evaluating the rules against the event stream and ticking.
+     * Results still have to be fed to {@link #record}.
+     */
+    public static synchronized AlertEngine start(AlertConfig config, List<AlertSink> sinks) {
+        if (instance == null) {
+            AlertEngine engine = new AlertEngine(config, sinks);
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "alert-engine");
+                t.setDaemon(true);
+                return t;
+            });
+            engine.ticker = ticker;
+            // BLOCK, so no down or up is lost; the handler only queues it for the engine thread
+            engine.subscription = EventBus.getInstance().subscribe("alerts", EventBus.DEFAULT_CAPACITY,
+                OverflowPolicy.BLOCK, event -> engine.runOnEngineThread(() -> engine.onEvent(event)));
+            ticker.scheduleAtFixedRate(() -> engine.tick(System.currentTimeMillis()),
+                TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+            instance = engine;
+        }
+        return instance;
+    }
+
+    /** The running engine, or null if alerting was not started */
+    public static synchronized AlertEngine getInstance() {
+        return instance;
+    }
+
+    /** Not subscribed and not ticking; tests drive it through onEvent and tick */
+    AlertEngine(AlertConfig config, List<AlertSink> sinks) {
+        this.rules = new ArrayList<>(config.getRules());
+        this.groupWaitMs = config.getGroupWaitSeconds() * 1000L;
+        for (AlertSink sink : sinks) {
+            this.sinks.add(new SinkWorker(sink, config.getMaxNotificationsPerMinute()));
+        }
+    }
+
+    public void close() {
+        if (subscription != null) subscription.cancel();
+        if (ticker != null) ticker.shutdownNow();
+        for (SinkWorker worker : sinks) {
+            worker.executor.shutdown();
+        }
+        synchronized (AlertEngine.class) {
+            if (instance == this) instance = null;
+        }
+    }
+
+    /**
+     * Replace the set of watched nodes. Cheap when nothing changed; alerts of
+     * nodes that are gone are dropped without a notification.
+     */
+    public synchronized void setNodes(Collection<? extends MonitoredNode> monitored) {
+        Map<Long, Watched> updated = new HashMap<>();
+        for (MonitoredNode node : monitored) {
+            String target = node.getIpOrHostname();
+            String name = node.getDisplayName() != null && !node.getDisplayName().isEmpty() ? node.getDisplayName() : target;
+            // Unprobed nodes are still kept so the groups they head can be named
+            boolean probed = node.isProbeable() && target != null && !target.isEmpty();
+            updated.put(node.getNodeId(), new Watched(node.getNodeId(), name, probed ? target : null,
+                node.getDeviceType(), node.getDependencyParentId()));
+        }
+        if (updated.equals(nodes)) return;
+
+        Map<String, List<Watched>> byTarget = new HashMap<>();
+        for (Watched node : updated.values()) {
+            if (node.target() != null) {
+                byTarget.computeIfAbsent(node.target(), k -> new ArrayList<>()).add(node);
+            }
+        }
+        nodes = updated;
+        nodesByTarget = byTarget;
+        windows.keySet().retainAll(byTarget.keySet());
+        downSince.keySet().retainAll(updated.keySet());
+        active.keySet().retainAll(updated.keySet());
+        timers.removeIf(timer -> !updated.containsKey(timer.nodeId));
+        for (PendingGroup group : pending.values()) {
+            group.alerts.values().removeIf(alert -> !updated.containsKey(alert.nodeId));
+        }
+        pending.values().removeIf(group -> group.alerts.isEmpty());
+        for (SinkWorker worker : sinks) {
+            worker.held.values().removeIf(alert -> !updated.containsKey(alert.nodeId));
+        }
+    }
+
+    /**
+     * Hand a probe result to the engine thread. This is what probe workers
+     * call; before {@link #start} it evaluates right away.
+     */
+    public void submit(ProbeResult result) {
+        runOnEngineThread(() -> record(result));
+    }
+
+    private void runOnEngineThread(Runnable task) {
+        ScheduledExecutorService thread = ticker;
+        if (thread == null) {
+            task.run();
+            return;
+        }
+        try {
+            thread.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Evaluate a probe result. Runs on the engine thread once started; tests call it directly.
+     */
+    synchronized void record(ProbeResult result) {
+        if (result.isUpstreamUnreachable()) return;
+        List<Watched> watching = nodesByTarget.get(result.target);
+        if (watching == null) return;
+
+        ProbeWindow window = windows.computeIfAbsent(result.target, k -> new ProbeWindow(largestWindow()));
+        window.add(result);
+        for (Watched node : watching) {
+            for (AlertRule rule : rules) {
+                if (rule.getCondition() == AlertCondition.NODE_DOWN || !rule.appliesTo(node.deviceType())) continue;
+                evaluate(node, rule, window, result.timestamp);
+            }
+        }
+    }
+
+    /** Down rules follow the damped node state */
+    synchronized void onEvent(MonitorEvent event) {
+        switch (event) {
+            case MonitorEvent.NodeDown down -> nodeDown(down.nodeId(), down.timestamp());
+            case MonitorEvent.NodeUp up -> nodeUp(up.nodeId(), up.timestamp());
+            case MonitorEvent.NodeStable stable -> {
+                if (stable.up()) {
+                    nodeUp(stable.nodeId(), stable.timestamp());
+                } else {
+                    nodeDown(stable.nodeId(), stable.timestamp());
+                }
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * Fire the down alerts whose time has come and send the groups whose wait
+     * is over.
+     */
+    synchronized void tick(long now) {
+        while (!timers.isEmpty() && timers.peek().deadline <= now) {
+            DownTimer timer = timers.poll();
+            Long since = downSince.get(timer.nodeId);
+            Watched node = nodes.get(timer.nodeId);
+            if (since == null || since != timer.since || node == null) continue;   // came back up first
+            fire(node, timer.rule, "down for " + (now - since) / 1000 + " s", now);
+        }
+
+        Iterator<PendingGroup> groups = pending.values().iterator();
+        while (groups.hasNext()) {
+            PendingGroup group = groups.next();
+            if (group.firstAt + groupWaitMs > now) continue;
+            groups.remove();
+            if (group.alerts.isEmpty()) continue;
+            AlertNotification notification = new AlertNotification(group.label,
+                new ArrayList<>(group.alerts.values()), 0);
+            for (SinkWorker worker : sinks) {
+                worker.offer(notification, now);
+            }
+        }
+        // Whatever the rate limit held back goes out once the sink has a token again
+        for (SinkWorker worker : sinks) {
+            worker.flush(now);
+        }
+    }
+
+    /** Alerts currently firing for a node, for the details panel */
+    public synchronized List<Alert> getActiveAlerts(long nodeId) {
+        Map<AlertRule, Alert> alerts = active.get(nodeId);
+        return alerts == null ? List.of() : new ArrayList<>(alerts.values());
+    }
+
+    private void nodeDown(long nodeId, long timestamp) {
+        Watched node = nodes.get(nodeId);
+        if (node == null || downSince.containsKey(nodeId)) return;
+        downSince.put(nodeId, timestamp);
+        for (AlertRule rule : rules) {
+            if (rule.getCondition() == AlertCondition.NODE_DOWN && rule.appliesTo(node.deviceType())) {
+                timers.add(new DownTimer(timestamp + Math.round(rule.getThreshold() * 1000), nodeId, rule, timestamp));
+            }
+        }
+    }
+
+    private void nodeUp(long nodeId, long timestamp) {
+        if (downSince.remove(nodeId) == null) return;
+        // Expired timers see downSince gone and are dropped when they come up
+        Map<AlertRule, Alert> alerts = active.get(nodeId);
+        if (alerts == null) return;
+        for (AlertRule rule : new ArrayList<>(alerts.keySet())) {
+            if (rule.getCondition() == AlertCondition.NODE_DOWN) {
+                resolve(nodeId, rule, timestamp);
+            }
+        }
+    }
+
+    private void evaluate(Watched node, AlertRule rule, ProbeWindow window, long now) {
+        int samples = rule.getSamples();
+        if (window.count < samples) return;
+        double value;
+        String message;
+        if (rule.getCondition() == AlertCondition.LOSS_ABOVE) {
+            value = window.lossPercent(samples);
+            message = Math.round(value) + "% loss over the last " + samples + " probes";
+        } else {
+            long p95 = window.p95Micros(samples);
+            if (p95 < 0) return;   // nothing answered; that is for the down rules
+            value = p95 / 1000.0;
+            message = "p95 " + Math.round(value) + " ms over the last " + samples + " probes";
+        }
+
+        boolean firing = active.containsKey(node.id()) && active.get(node.id()).containsKey(rule);
+        if (!firing && value > rule.getThreshold()) {
+            fire(node, rule, message, now);
+        } else if (firing && value < rule.getThreshold() * RESOLVE_FRACTION) {
+            resolve(node.id(), rule, now);
+        }
+    }
+
+    private void fire(Watched node, AlertRule rule, String message, long now) {
+        Map<AlertRule, Alert> alerts = active.computeIfAbsent(node.id(), k -> new HashMap<>());
+        if (alerts.containsKey(rule)) return;
+
+        PendingGroup group = pendingGroupOf(node, now);
+        Alert unsent = group.alerts.get(key(node.id(), rule));
+        if (unsent != null && !unsent.isFiring()) {
+            // Resolved and fired again before anyone heard about it: the first episode goes on
+            alerts.put(rule, group.alerts.remove(key(node.id(), rule)).reopened());
+            return;
+        }
+        Alert alert = new Alert(rule.getName(), rule.getSeverity(), node.id(), node.name(), node.target(),
+            message, now, 0);
+        alerts.put(rule, alert);
+        group.alerts.put(key(node.id(), rule), alert);
+    }
+
+    private void resolve(long nodeId, AlertRule rule, long now) {
+        Map<AlertRule, Alert> alerts = active.get(nodeId);
+        Alert alert = alerts != null ? alerts.remove(rule) : null;
+        if (alert == null) return;
+        if (alerts.isEmpty()) active.remove(nodeId);
+
+        Watched node = nodes.get(nodeId);
+        if (node == null) return;
+        PendingGroup group = pendingGroupOf(node, now);
+        if (group.alerts.remove(key(nodeId, rule)) != null) {
+            return;   // fired and resolved within the group wait: nothing to tell
+        }
+        group.alerts.put(key(nodeId, rule), alert.resolved(now));
+    }
+
+    /** Correlated alerts share the node they depend on; alerts of a top-level node group on the node */
+    private PendingGroup pendingGroupOf(Watched node, long now) {
+        long groupId = node.parentId() != null ? node.parentId() : node.id();
+        return pending.computeIfAbsent(groupId, id -> {
+            Watched parent = nodes.get(id);
+            String label = id == node.id() ? node.name()
+                : "behind " + (parent != null ? parent.name() : "node " + id);
+            return new PendingGroup(label, now);
+        });
+    }
+
+    private static String key(long nodeId, AlertRule rule) {
+        return nodeId + "/" + rule.getName();
+    }
+
+    private int largestWindow() {
+        int largest = 1;
+        for (AlertRule rule : rules) {
+            if (rule.getCondition() != AlertCondition.NODE_DOWN) {
+                largest = Math.max(largest, rule.getSamples());
+            }
+        }
+        return largest;
+    }
+
+    /** What a rule needs to know about a node */
+    private record Watched(long id, String name, String target, DeviceType deviceType, Long parentId) { }
+
+    private static final class DownTimer implements Comparable<DownTimer> {
+        final long deadline;
+        final long nodeId;
+        final AlertRule rule;
+        final long since;    // the down episode it belongs to
+
+        DownTimer(long deadline, long nodeId, AlertRule rule, long since) {
+            this.deadline = deadline;
+            this.nodeId = nodeId;
+            this.rule = rule;
+            this.since = since;
+        }
+
+        @Override
+        public int compareTo(DownTimer other) {
+            return Long.compare(deadline, other.deadline);
+        }
+    }
+
+    private static final class PendingGroup {
+        final String label;
+        final long firstAt;
+        final Map<String, Alert> alerts = new LinkedHashMap<>();
+
+        PendingGroup(String label, long firstAt) {
+            this.label = label;
+            this.firstAt = firstAt;
+        }
+    }
+
+    /**
+     * The last probes of one target, newest last.
+     */
+    private static final class ProbeWindow {
+        final boolean[] reachable;
+        final long[] latencyMicros;
+        int next;
+        int count;
+
+        ProbeWindow(int size) {
+            reachable = new boolean[size];
+            latencyMicros = new long[size];
+        }
+
+        void add(ProbeResult result) {
+            reachable[next] = result.reachable;
+            latencyMicros[next] = result.latencyMicros;
+            next = (next + 1) % reachable.length;
+            count = Math.min(count + 1, reachable.length);
+        }
+
+        double lossPercent(int samples) {
+            int lost = 0;
+            for (int i = 1; i <= samples; i++) {
+                if (!reachable[index(i)]) lost++;
+            }
+            return lost * 100.0 / samples;
+        }
+
+        /** p95 of the answered probes among the last samples, or -1 if none answered */
+        long p95Micros(int samples) {
+            long[] answered = new long[samples];
+            int n = 0;
+            for (int i = 1; i <= samples; i++) {
+                int index = index(i);
+                if (reachable[index]) answered[n++] = latencyMicros[index];
+            }
+            if (n == 0) return -1;
+            Arrays.sort(answered, 0, n);
+            return answered[(int) Math.ceil(n * 0.95) - 1];
+        }
+
+        private int index(int back) {
+            return (next - back + reachable.length) % reachable.length;
+        }
+    }
+
+    /**
+     * A sink with its own thread and a token bucket of maxPerMinute
+     * notifications. Notifications over the limit are held and merged into
+     * the next one sent, a later state of the same alert replacing the
+     * earlier one; how many were merged goes out with it.
+     */
+    private static final class SinkWorker {
+        final AlertSink sink;
+        final ExecutorService executor;
+        final double perMinute;
+        double tokens;
+        long refilledAt;
+        // Held back by the rate limit, by node, rule and episode
+        final Map<String, Alert> held = new LinkedHashMap<>();
+        final List<String> heldGroups = new ArrayList<>();
+        int heldNotifications;
+
+        SinkWorker(AlertSink sink, int maxPerMinute) {
+            this.sink = sink;
+            this.perMinute = Math.max(1, maxPerMinute);
+            this.tokens = perMinute;
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "alerts-" + sink.getName());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        void offer(AlertNotification notification, long now) {
+            for (Alert alert : notification.alerts) {
+                held.put(alert.nodeId + "/" + alert.rule + "/" + alert.firedAt, alert);
+            }
+            if (!heldGroups.contains(notification.group)) heldGroups.add(notification.group);
+            heldNotifications++;
+            flush(now);
+        }
+
+        /** Send what is held if the bucket has a token */
+        void flush(long now) {
+            if (refilledAt != 0) {
+                tokens = Math.min(perMinute, tokens + (now - refilledAt) * perMinute / 60_000.0);
+            }
+            refilledAt = now;
+            if (held.isEmpty()) {
+                heldGroups.clear();
+                heldNotifications = 0;
+                return;
+            }
+            if (tokens < 1) return;
+            tokens--;
+            AlertNotification toSend = new AlertNotification(String.join(", ", heldGroups),
+                new ArrayList<>(held.values()), heldNotifications - 1);
+            held.clear();
+            heldGroups.clear();
+            heldNotifications = 0;
+            executor.execute(() -> {
+                try {
+                    sink.send(toSend);
+                } catch (IOException e) {
+                    System.out.println("Alert sink " + sink.getName() + " failed: " + e.getMessage());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+}
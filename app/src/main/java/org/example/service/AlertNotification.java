@@ -0,0 +1,60 @@
+package org.example.service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * One message to the sinks: the alerts of one group that fired or resolved
+ * within the group wait, so an outage behind a switch arrives as one
+ * notification instead of one per device.
+ */
+public class AlertNotification {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+        .withZone(ZoneId.systemDefault());
+
+    public final String group;        // the upstream node the alerts share, or the node itself
+    public final List<Alert> alerts;
+    public final int suppressed;      // earlier notifications the rate limit held back and merged into this one
+
+    public AlertNotification(String group, List<Alert> alerts, int suppressed) {
+        this.group = group;
+        this.alerts = List.copyOf(alerts);
+        this.suppressed = suppressed;
+    }
+
+    public AlertNotification withSuppressed(int suppressed) {
+        return new AlertNotification(group, alerts, suppressed);
+    }
+
+    public String getSubject() {
+        if (alerts.size() == 1) {
+            Alert alert = alerts.get(0);
+            return "[NodeMonitor] " + (alert.isFiring() ? "FIRING" : "RESOLVED") + ": "
+                + alert.rule + " - " + alert.nodeName;
+        }
+        long firing = alerts.stream().filter(Alert::isFiring).count();
+        return "[NodeMonitor] " + firing + " firing, " + (alerts.size() - firing) + " resolved - " + group;
+    }
+
+    public String getBody() {
+        StringBuilder body = new StringBuilder();
+        for (Alert alert : alerts) {
+            body.append(alert.isFiring() ? "FIRING  " : "RESOLVED").append(' ')
+                .append('[').append(alert.severity).append("] ")
+                .append(alert.rule).append(": ").append(alert.nodeName)
+                .append(" (").append(alert.target).append(") ")
+                .append(alert.message)
+                .append(", since ").append(TIME.format(Instant.ofEpochMilli(alert.firedAt)));
+            if (!alert.isFiring()) {
+                body.append(", resolved ").append(TIME.format(Instant.ofEpochMilli(alert.resolvedAt)));
+            }
+            body.append('\n');
+        }
+        if (suppressed > 0) {
+            body.append('\n').append(suppressed).append(" earlier notification(s) were held back by the rate limit and are included above\n");
+        }
+        return body.toString();
+    }
+}
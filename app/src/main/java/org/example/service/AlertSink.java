@@ -0,0 +1,13 @@
+package org.example.service;
+
+import java.io.IOException;
+
+/**
+ * Somewhere alert notifications are delivered. Called on the sink's own
+ * thread, so a slow sink only holds up itself.
+ */
+public interface AlertSink {
+    String getName();
+
+    void send(AlertNotification notification) throws IOException;
+}
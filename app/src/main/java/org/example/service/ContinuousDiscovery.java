@@ -0,0 +1,226 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.example.config.DiscoveredNode;
+import org.example.model.MonitoredNode;
+import org.example.util.NetworkUtils;
+import org.example.util.Subnet;
+
+/**
+ * Background discovery: every pass diffs what the network shows against the
+ * inventory and what the previous pass saw, and publishes only the
+ * differences on the {@link EventBus}:
+ * <ul>
+ *   <li>NodeDiscovered for a host that is neither on the map nor already reported</li>
+ *   <li>NodeVanished for a reported host missing from MISSES_TO_VANISH passes in a row</li>
+ *   <li>AddressChanged when a known MAC turns up at another address</li>
+ * </ul>
+ * What the network shows is the {@link NeighborTable}, plus the hosts that
+ * answered the last {@link NetworkSweep}, which runs every SWEEP_EVERY passes
+ * (the sweep also fills the neighbor table for the passes in between). The
+ * inventory is indexed by IP and MAC in hash sets; MACs of map nodes are
+ * learned from the neighbor table when not entered on the node. A pass does
+ * no work in consumers beyond the events, so a quiet network costs them
+ * nothing.
+ */
+public class ContinuousDiscovery {
+    public static final long DEFAULT_INTERVAL_MS = 60_000;
+    private static final int SWEEP_EVERY = 10;
+    private static final int MISSES_TO_VANISH = 3;
+    private static final long HOSTNAME_DEADLINE_MS = 3_000;
+
+    private static ContinuousDiscovery instance;
+
+    private final Supplier<? extends Collection<? extends MonitoredNode>> knownNodes;
+    private final ScheduledExecutorService timer;
+
+    // Only touched on the timer thread
+    private int passes;
+    private Set<String> sweptHosts = new HashSet<>();
+    private final Map<String, DiscoveredNode> reported = new ConcurrentHashMap<>();   // by IP, read by views
+    private final Map<String, Integer> misses = new HashMap<>();
+    private final Map<String, String> ipByMac = new HashMap<>();            // where each MAC was last seen
+    private final Map<String, Long> nodeByMac = new HashMap<>();            // MACs learned for map nodes
+
+    /**
+     * Start passes every intervalMs, the first one right away.
+     *
+     * @param knownNodes the inventory, read once per pass
+     */
+    public static synchronized ContinuousDiscovery start(Supplier<? extends Collection<? extends MonitoredNode>> knownNodes,
+                                                         long intervalMs) {
+        if (instance == null) {
+            instance = new ContinuousDiscovery(knownNodes, intervalMs);
+        }
+        return instance;
+    }
+
+    /** The running discovery, or null when it is off */
+    public static synchronized ContinuousDiscovery getInstance() {
+        return instance;
+    }
+
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.timer.shutdownNow();
+            instance = null;
+        }
+    }
+
+    private ContinuousDiscovery(Supplier<? extends Collection<? extends MonitoredNode>> knownNodes, long intervalMs) {
+        this.knownNodes = knownNodes;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "continuous-discovery");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::pass, 0, intervalMs, TimeUnit.MILLISECONDS);
+
+        // Discovery is on, so keep the hosts remembered from earlier runs current too
+        DiscoveryCache cache = DiscoveryCache.getInstance();
+        if (cache != null) {
+            cache.startRevalidating();
+        }
+    }
+
+    /** Hosts reported and not vanished, for a view opened after the fact */
+    public List<DiscoveredNode> getReported() {
+        return new ArrayList<>(reported.values());
+    }
+
+    private void pass() {
+        try {
+            if (passes++ % SWEEP_EVERY == 0) {
+                sweep();
+            }
+            diff(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.out.println("Continuous discovery pass failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void sweep() {
+        Set<String> local = new HashSet<>();
+        for (String[] networkInfo : NetworkUtils.getAllLocalNetworkInfo()) {
+            local.add(networkInfo[0]);
+        }
+        List<Subnet> subnets = NetworkUtils.getLocalSubnets();
+        if (subnets.isEmpty()) return;
+        sweptHosts = new HashSet<>(new NetworkSweep().sweep(subnets, local, result -> { }).join());
+    }
+
+    private void diff(long now) {
+        // The inventory, by address and by MAC
+        Map<String, Long> knownIps = new HashMap<>();
+        Map<Long, String> nodeIps = new HashMap<>();
+        for (MonitoredNode node : knownNodes.get()) {
+            knownIps.put(node.getIpOrHostname(), node.getNodeId());
+            nodeIps.put(node.getNodeId(), node.getResolvedIp() != null ? node.getResolvedIp() : node.getIpOrHostname());
+            if (node.getResolvedIp() != null) knownIps.put(node.getResolvedIp(), node.getNodeId());
+            if (node.getMacAddress() != null && !node.getMacAddress().isEmpty()) {
+                nodeByMac.put(NeighborTable.normalizeMac(node.getMacAddress()), node.getNodeId());
+            }
+        }
+
+        // What the network shows now
+        NeighborTable table = NeighborTable.getInstance();
+        table.refresh();
+        Map<String, NeighborTable.Neighbor> seen = new HashMap<>();
+        for (NeighborTable.Neighbor neighbor : table.getNeighbors()) {
+            if (NetworkDiscoveryService.isCandidate(neighbor)) seen.put(neighbor.ip(), neighbor);
+        }
+        for (String ip : sweptHosts) {
+            seen.putIfAbsent(ip, new NeighborTable.Neighbor(ip, "", "", true));
+        }
+
+        DiscoveryCache cache = DiscoveryCache.getInstance();
+        if (cache != null) {
+            seen.values().forEach(neighbor -> cache.record(neighbor.ip(), neighbor.mac(), "", neighbor.iface()));
+        }
+
+        // A MAC answering for several addresses (proxy ARP, aliases) says nothing about moves
+        Map<String, Integer> addressesPerMac = new HashMap<>();
+        for (NeighborTable.Neighbor neighbor : seen.values()) {
+            if (!neighbor.mac().isEmpty()) addressesPerMac.merge(neighbor.mac(), 1, Integer::sum);
+        }
+
+        List<MonitorEvent> events = new ArrayList<>();
+        List<NeighborTable.Neighbor> fresh = new ArrayList<>();
+        for (NeighborTable.Neighbor neighbor : seen.values()) {
+            String ip = neighbor.ip();
+            String mac = neighbor.mac();
+            Long knownId = knownIps.get(ip);
+            if (!mac.isEmpty() && addressesPerMac.get(mac) == 1) {
+                if (knownId != null) nodeByMac.put(mac, knownId);
+                String previousIp = ipByMac.put(mac, ip);
+                if (previousIp == null && nodeByMac.containsKey(mac)) {
+                    // First sighting of a map node's MAC: compare with the node's own address
+                    previousIp = nodeIps.get(nodeByMac.get(mac));
+                }
+                if (previousIp != null && !previousIp.equals(ip)) {
+                    Long nodeId = nodeByMac.get(mac);
+                    events.add(new MonitorEvent.AddressChanged(nodeId, mac, previousIp, ip, now));
+                    DiscoveredNode moved = reported.remove(previousIp);
+                    misses.remove(previousIp);
+                    if (moved != null && knownId == null) {
+                        reported.put(ip, new DiscoveredNode(ip, mac, moved.hostname, neighbor.iface()));
+                    }
+                    continue;
+                }
+            }
+            if (knownId != null) {
+                // Added to the map since it was reported: no longer news
+                reported.remove(ip);
+                misses.remove(ip);
+                continue;
+            }
+            misses.remove(ip);
+            if (!reported.containsKey(ip) && (mac.isEmpty() || !nodeByMac.containsKey(mac))) {
+                fresh.add(neighbor);
+            }
+        }
+
+        // Only new hosts are looked up, all at once, so a pass with nothing new does no DNS at all
+        if (!fresh.isEmpty()) {
+            List<String> ips = new ArrayList<>();
+            fresh.forEach(neighbor -> ips.add(neighbor.ip()));
+            Map<String, String> hostnames = ReverseDnsCache.getInstance()
+                .lookupAll(ips, HOSTNAME_DEADLINE_MS, (ip, hostname) -> { }).join();
+            for (NeighborTable.Neighbor neighbor : fresh) {
+                DiscoveredNode node = new DiscoveredNode(neighbor.ip(), neighbor.mac(),
+                    hostnames.getOrDefault(neighbor.ip(), ""), neighbor.iface());
+                reported.put(node.ip, node);
+                if (cache != null && !node.hostname.isEmpty()) cache.record(node);
+                events.add(new MonitorEvent.NodeDiscovered(node, now));
+            }
+        }
+
+        Iterator<Map.Entry<String, DiscoveredNode>> it = reported.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, DiscoveredNode> entry = it.next();
+            if (seen.containsKey(entry.getKey())) continue;
+            if (misses.merge(entry.getKey(), 1, Integer::sum) >= MISSES_TO_VANISH) {
+                it.remove();
+                misses.remove(entry.getKey());
+                events.add(new MonitorEvent.NodeVanished(entry.getValue(), now));
+            }
+        }
+
+        EventBus bus = EventBus.getInstance();
+        events.forEach(bus::publish);
+    }
+}
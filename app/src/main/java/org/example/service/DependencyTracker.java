@@ -0,0 +1,247 @@
+package org.example.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.example.config.ProbeSettings;
+import org.example.model.ConnectionType;
+import org.example.model.MonitoredNode;
+
+/**
+ * Suppresses probes behind a node that is down.
+ *
+ * The topology is the routing tree the map already draws: a node depends on
+ * the switch it routes through, or on its host if it is a VM. Every node that
+ * has dependents is watched through the {@link ProbeScheduler}. Once one is
+ * confirmed down, everything below it is suspended and reported as
+ * unreachable (upstream) instead of being probed. When it comes back, its
+ * dependents are resumed; a dependent that is itself a parent keeps its own
+ * subtree suspended until it has reported in.
+ */
+public class DependencyTracker {
+    private static final int FAILURES_BEFORE_DOWN = 2;
+
+    private static DependencyTracker instance;
+
+    private final ProbeScheduler scheduler;
+
+    // All state below is guarded by this
+    private Map<Long, TrackedNode> nodes = new HashMap<>();
+    private Map<Long, List<Long>> children = new HashMap<>();
+    private final Map<Long, ProbeScheduler.Subscription> parentSubscriptions = new HashMap<>();
+    private final Map<Long, Integer> failures = new HashMap<>();
+    private final Set<Long> downParents = new HashSet<>();
+    private final Set<Long> unconfirmedParents = new HashSet<>(); // resumed, no result yet
+    private Set<Long> suspendedNodes = new HashSet<>();
+
+    public static synchronized DependencyTracker getInstance() {
+        if (instance == null) {
+            instance = new DependencyTracker(ProbeScheduler.getInstance());
+        }
+        return instance;
+    }
+
+    public DependencyTracker(ProbeScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Replace the dependency tree. Cheap to call repeatedly; nothing happens
+     * unless the tree actually changed.
+     */
+    public synchronized void setTopology(Collection<TrackedNode> topology) {
+        Map<Long, TrackedNode> updated = new HashMap<>();
+        for (TrackedNode node : topology) {
+            updated.put(node.id, node);
+        }
+        if (updated.equals(nodes)) return;
+
+        nodes = updated;
+        children = new HashMap<>();
+        for (TrackedNode node : nodes.values()) {
+            if (node.parentId != null && nodes.containsKey(node.parentId)) {
+                children.computeIfAbsent(node.parentId, k -> new ArrayList<>()).add(node.id);
+            }
+        }
+
+        // Watch every probeable node that has dependents, drop the rest
+        Iterator<Map.Entry<Long, ProbeScheduler.Subscription>> it = parentSubscriptions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, ProbeScheduler.Subscription> entry = it.next();
+            TrackedNode node = nodes.get(entry.getKey());
+            if (node == null || !isWatchable(node)
+                    || !entry.getValue().matches(node.target, node.settings)) {
+                entry.getValue().cancel();
+                it.remove();
+                failures.remove(entry.getKey());
+                downParents.remove(entry.getKey());
+                unconfirmedParents.remove(entry.getKey());
+            }
+        }
+        for (TrackedNode node : nodes.values()) {
+            if (isWatchable(node) && !parentSubscriptions.containsKey(node.id)) {
+                long id = node.id;
+                parentSubscriptions.put(id, scheduler.subscribe(node.target, node.settings,
+                    result -> onParentResult(id, result)));
+            }
+        }
+
+        refreshSuspensions();
+    }
+
+    /**
+     * Snapshot of the routing tree of a set of nodes, for {@link #setTopology}.
+     */
+    public static List<TrackedNode> topologyOf(Collection<? extends MonitoredNode> nodes) {
+        List<TrackedNode> topology = new ArrayList<>(nodes.size());
+        for (MonitoredNode node : nodes) {
+            topology.add(new TrackedNode(node.getNodeId(), node.getDependencyParentId(),
+                node.getIpOrHostname(), node.getProbeSettings(), node.isProbeable(),
+                node.getConnectionType() == ConnectionType.WIRELESS));
+        }
+        return topology;
+    }
+
+    /** True if the node is currently suspended because something it depends on is down */
+    public synchronized boolean isUpstreamUnreachable(long nodeId) {
+        return suspendedNodes.contains(nodeId);
+    }
+
+    public synchronized int getSuspendedCount() {
+        return suspendedNodes.size();
+    }
+
+    public synchronized Set<Long> getDownParents() {
+        return Collections.unmodifiableSet(new HashSet<>(downParents));
+    }
+
+    private boolean isWatchable(TrackedNode node) {
+        return node.probeable && children.containsKey(node.id);
+    }
+
+    private synchronized void onParentResult(long id, ProbeResult result) {
+        if (!parentSubscriptions.containsKey(id)) return;
+        if (result.isUpstreamUnreachable()) {
+            // Suspended itself; whatever it said before no longer counts
+            failures.remove(id);
+            return;
+        }
+
+        boolean changed = false;
+        if (result.reachable) {
+            failures.remove(id);
+            changed |= downParents.remove(id);
+            changed |= unconfirmedParents.remove(id);
+        } else if (failures.merge(id, 1, Integer::sum) >= FAILURES_BEFORE_DOWN) {
+            changed |= downParents.add(id);
+            changed |= unconfirmedParents.remove(id);
+        }
+        if (changed) {
+            refreshSuspensions();
+        }
+    }
+
+    /**
+     * Work out which nodes should be suspended and tell the scheduler about
+     * the difference.
+     */
+    private void refreshSuspensions() {
+        downParents.retainAll(nodes.keySet());
+        unconfirmedParents.retainAll(nodes.keySet());
+
+        Set<Long> wanted;
+        boolean held;
+        do {
+            wanted = subtreesOf(downParents, unconfirmedParents);
+            // A watched parent coming out of suspension keeps its own subtree
+            // held until it has reported in
+            held = false;
+            for (Long id : suspendedNodes) {
+                TrackedNode node = nodes.get(id);
+                if (!wanted.contains(id) && node != null && isWatchable(node)) {
+                    held |= unconfirmedParents.add(id);
+                }
+            }
+        } while (held);
+
+        for (Long id : suspendedNodes) {
+            TrackedNode node = nodes.get(id);
+            if (!wanted.contains(id) && node != null && node.probeable) {
+                scheduler.resumeTarget(node.target);
+            }
+        }
+        for (Long id : wanted) {
+            TrackedNode node = nodes.get(id);
+            unconfirmedParents.remove(id);
+            if (!suspendedNodes.contains(id) && node.probeable) {
+                scheduler.suspendTarget(node.target, ProbeResult.upstreamUnreachable(node.target));
+            }
+        }
+        suspendedNodes = wanted;
+    }
+
+    private Set<Long> subtreesOf(Set<Long> first, Set<Long> second) {
+        Set<Long> result = new HashSet<>();
+        Deque<Long> queue = new ArrayDeque<>(first);
+        queue.addAll(second);
+        while (!queue.isEmpty()) {
+            for (Long child : children.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (result.add(child)) {
+                    queue.add(child);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One node of the dependency tree, decoupled from the UI node it came from.
+     */
+    public static final class TrackedNode {
+        final long id;
+        final Long parentId;
+        final String target;
+        final ProbeSettings settings;
+        final boolean probeable;
+        final boolean wireless;   // noisier link, judged more leniently by NodeStateTracker
+
+        public TrackedNode(long id, Long parentId, String target, ProbeSettings settings, boolean probeable) {
+            this(id, parentId, target, settings, probeable, false);
+        }
+
+        public TrackedNode(long id, Long parentId, String target, ProbeSettings settings, boolean probeable,
+                           boolean wireless) {
+            this.id = id;
+            this.parentId = parentId;
+            this.target = target;
+            this.settings = settings;
+            this.probeable = probeable && target != null && !target.isEmpty();
+            this.wireless = wireless;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TrackedNode)) return false;
+            TrackedNode other = (TrackedNode) o;
+            return id == other.id && probeable == other.probeable && wireless == other.wireless
+                && Objects.equals(parentId, other.parentId)
+                && Objects.equals(target, other.target)
+                && settings.sameAs(other.settings);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, parentId, target);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.example.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.example.config.DiscoveredNode;
+import org.example.util.NetworkUtils;
+import org.example.util.Subnet;
+
+/**
+ * Every host discovery has seen, kept in dataDir/discovery.cache so a launch
+ * starts with what the last one knew instead of an empty network.
+ *
+ * The file is one tab separated line per host: IP, MAC, hostname,
+ * interface, first and last seen, and the entry's TTL. It is read in one pass
+ * when the cache is opened, dropping entries past their TTL, and rewritten
+ * (to a temporary file, then moved over) at most every SAVE_EVERY_MS and on
+ * close. A host whose MAC is known keeps for TTL_WITH_MAC_MS, since it is on
+ * a local segment and likely to come back; one that only ever answered a
+ * sweep keeps for TTL_WITHOUT_MAC_MS.
+ *
+ * Opening the cache only loads and saves it. Once background discovery is
+ * on ({@link #startRevalidating}), entries are revalidated right away and
+ * then every REVALIDATE_EVERY_MS: whatever the neighbor table holds is
+ * confirmed for free and the rest are probed again. The local subnets are
+ * swept only when the last full sweep is older than FULL_SWEEP_EVERY_MS, so
+ * a launch no longer starts from scratch.
+ */
+public class DiscoveryCache {
+    static final long TTL_WITH_MAC_MS = 7 * 24 * 60 * 60_000L;
+    static final long TTL_WITHOUT_MAC_MS = 24 * 60 * 60_000L;
+    private static final long SAVE_EVERY_MS = 30_000;
+    private static final long REVALIDATE_EVERY_MS = 10 * 60_000L;
+    private static final long FULL_SWEEP_EVERY_MS = 24 * 60 * 60_000L;
+    private static final String HEADER = "# nodemonitor discovery cache v1";
+
+    private static DiscoveryCache instance;
+
+    /**
+     * One cached host.
+     *
+     * @param mac      "" when never seen in the neighbor table
+     * @param hostname "" when it has no PTR record, or none was looked up yet
+     */
+    public record Entry(String ip, String mac, String hostname, String iface,
+                        long firstSeen, long lastSeen, long ttlMs) {
+        boolean isExpired(long now) {
+            return now >= lastSeen + ttlMs;
+        }
+    }
+
+    private final Path file;
+    private final ConcurrentHashMap<String, Entry> byIp = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private volatile long lastFullSweep;
+    private volatile boolean dirty;
+    private boolean revalidating = false;
+
+    /**
+     * Load directory/discovery.cache. Nothing is probed until
+     * {@link #startRevalidating}.
+     */
+    public static synchronized DiscoveryCache open(Path directory) throws IOException {
+        if (instance == null) {
+            instance = new DiscoveryCache(directory);
+        }
+        return instance;
+    }
+
+    /** The open cache, or null before {@link #open} */
+    public static synchronized DiscoveryCache getInstance() {
+        return instance;
+    }
+
+    private DiscoveryCache(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        file = directory.resolve("discovery.cache");
+        load();
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "discovery-cache");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::saveQuietly, SAVE_EVERY_MS, SAVE_EVERY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Revalidate the entries now and every REVALIDATE_EVERY_MS from here on.
+     * Only for when discovery is enabled: it probes every cached host and
+     * sweeps the local subnets once a day. Later calls do nothing.
+     */
+    public synchronized void startRevalidating() {
+        if (revalidating || timer.isShutdown()) return;
+        revalidating = true;
+        timer.scheduleWithFixedDelay(this::revalidate, 0, REVALIDATE_EVERY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Note a host as seen now. Empty details leave what is already cached,
+     * so a later sighting without a hostname does not lose the name.
+     */
+    public void record(String ip, String mac, String hostname, String iface) {
+        long now = System.currentTimeMillis();
+        byIp.compute(ip, (k, old) -> {
+            String m = !isEmpty(mac) ? mac : old != null ? old.mac : "";
+            String h = !isEmpty(hostname) ? hostname : old != null ? old.hostname : "";
+            String i = !isEmpty(iface) ? iface : old != null ? old.iface : "";
+            long firstSeen = old != null ? old.firstSeen : now;
+            return new Entry(ip, m, h, i, firstSeen, now, m.isEmpty() ? TTL_WITHOUT_MAC_MS : TTL_WITH_MAC_MS);
+        });
+        dirty = true;
+    }
+
+    public void record(DiscoveredNode node) {
+        record(node.ip, node.mac, node.hostname, node.iface);
+    }
+
+    /** The last MAC seen at the address, or null */
+    public String getMac(String ip) {
+        Entry entry = ip != null ? byIp.get(ip) : null;
+        return entry != null && !entry.mac.isEmpty() && !entry.isExpired(System.currentTimeMillis())
+            ? entry.mac : null;
+    }
+
+    /** Entries still within their TTL */
+    public List<Entry> getEntries() {
+        long now = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<>();
+        for (Entry entry : byIp.values()) {
+            if (!entry.isExpired(now)) entries.add(entry);
+        }
+        return entries;
+    }
+
+    public synchronized void close() {
+        timer.shutdownNow();
+        saveQuietly();
+    }
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        long now = System.currentTimeMillis();
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (line.startsWith(HEADER)) {
+                    String[] header = line.split("\t");
+                    if (header.length > 1) lastFullSweep = Long.parseLong(header[1]);
+                    continue;
+                }
+                String[] f = line.split("\t", -1);
+                if (f.length != 7) continue;
+                Entry entry = new Entry(f[0], f[1], f[2], f[3],
+                    Long.parseLong(f[4]), Long.parseLong(f[5]), Long.parseLong(f[6]));
+                if (!entry.isExpired(now)) byIp.put(entry.ip, entry);
+            }
+            System.out.println("Loaded " + byIp.size() + " cached hosts from " + file);
+        } catch (IOException | RuntimeException e) {
+            // A damaged cache only costs a sweep
+            System.out.println("Discovery cache not loaded: " + e.getMessage());
+            byIp.clear();
+            lastFullSweep = 0;
+        }
+    }
+
+    private synchronized void save() throws IOException {
+        if (!dirty) return;
+        dirty = false;
+        long now = System.currentTimeMillis();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER + "\t" + lastFullSweep + "\n");
+            for (Entry e : byIp.values()) {
+                if (e.isExpired(now)) {
+                    byIp.remove(e.ip, e);
+                    continue;
+                }
+                writer.write(e.ip + "\t" + e.mac + "\t" + e.hostname + "\t" + e.iface + "\t"
+                    + e.firstSeen + "\t" + e.lastSeen + "\t" + e.ttlMs + "\n");
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            dirty = true;
+            System.out.println("Discovery cache not saved: " + e.getMessage());
+        }
+    }
+
+    /** Runs on the timer thread */
+    private void revalidate() {
+        try {
+            // Anything the neighbor table holds is confirmed without a probe
+            NeighborTable table = NeighborTable.getInstance();
+            table.refresh();
+            Set<String> confirmed = new HashSet<>();
+            for (NeighborTable.Neighbor neighbor : table.getNeighbors()) {
+                if (!NetworkDiscoveryService.isCandidate(neighbor)) continue;
+                record(neighbor.ip(), neighbor.mac(), "", neighbor.iface());
+                confirmed.add(neighbor.ip());
+            }
+
+            Map<String, Subnet> subnets = NetworkUtils.getLocalSubnetsByAddress();
+            NetworkSweep sweep = new NetworkSweep();
+            long start = System.currentTimeMillis();
+            if (start - lastFullSweep >= FULL_SWEEP_EVERY_MS && !subnets.isEmpty()) {
+                Set<String> skip = new HashSet<>(subnets.keySet());   // ourselves
+                skip.addAll(confirmed);
+                List<String> found = sweep.sweep(new ArrayList<>(new HashSet<>(subnets.values())), skip, result -> {
+                    if (result.reachable) {
+                        record(result.target, table.getMac(result.target), "",
+                            NetworkDiscoveryService.interfaceFor(result.target, subnets));
+                    }
+                }).join();
+                lastFullSweep = start;
+                dirty = true;
+                System.out.println("Discovery cache sweep found " + found.size() + " hosts in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            } else {
+                List<Inet4Address> stale = new ArrayList<>();
+                for (Entry entry : getEntries()) {
+                    if (confirmed.contains(entry.ip)) continue;
+                    InetAddress address = InetAddress.getByName(entry.ip);
+                    if (address instanceof Inet4Address v4) stale.add(v4);
+                }
+                if (!stale.isEmpty()) {
+                    sweep.probe(stale, result -> {
+                        if (result.reachable) record(result.target, table.getMac(result.target), "", null);
+                    }).join();
+                }
+            }
+            saveQuietly();
+        } catch (Exception e) {
+            System.out.println("Discovery cache revalidation failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.example.model.OverflowPolicy;
+
+/**
+ * In-process publish/subscribe for {@link MonitorEvent}s.
+ *
+ * Every subscriber has its own bounded queue and its own delivery thread, so
+ * consumers see events in publish order but never wait on each other, and
+ * publishing is only a few lock-free queue operations per subscriber. When a
+ * queue is full the subscriber's {@link OverflowPolicy} decides: drop the
+ * oldest event, keep only the latest event per node, or make the publisher
+ * wait. Publishers are usually probe workers, so BLOCK is only for consumers
+ * that are fast and must not miss anything.
+ */
+public class EventBus {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static EventBus instance;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+
+    public static synchronized EventBus getInstance() {
+        if (instance == null) {
+            instance = new EventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Start delivering events to a handler on a thread of its own.
+     *
+     * @param name     names the delivery thread and shows up in metrics
+     * @param capacity most events held for this subscriber at once
+     */
+    public Subscriber subscribe(String name, int capacity, OverflowPolicy policy, Consumer<? super MonitorEvent> handler) {
+        Subscriber subscriber = new Subscriber(name, capacity, policy, handler);
+        subscribers.add(subscriber);
+        subscriber.thread.start();
+        return subscriber;
+    }
+
+    public void publish(MonitorEvent event) {
+        published.incrementAndGet();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public List<Subscriber> getSubscribers() {
+        return List.copyOf(subscribers);
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * One consumer's queue and delivery thread. Cancel it when the consumer
+     * goes away.
+     */
+    public class Subscriber {
+        private final String name;
+        private final int capacity;
+        private final OverflowPolicy policy;
+        private final Consumer<? super MonitorEvent> handler;
+        private final Thread thread;
+
+        // Events, or coalescing keys whose latest event is in latest
+        private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+        private final ConcurrentHashMap<Object, MonitorEvent> latest;
+        private final AtomicInteger size = new AtomicInteger();
+        private final Semaphore space;
+        private volatile boolean waiting = false;
+        private volatile boolean cancelled = false;
+
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+
+        Subscriber(String name, int capacity, OverflowPolicy policy, Consumer<? super MonitorEvent> handler) {
+            this.name = name;
+            this.capacity = Math.max(1, capacity);
+            this.policy = policy;
+            this.handler = handler;
+            this.latest = policy == OverflowPolicy.COALESCE_BY_NODE ? new ConcurrentHashMap<>() : null;
+            this.space = policy == OverflowPolicy.BLOCK ? new Semaphore(this.capacity) : null;
+            this.thread = new Thread(this::deliverLoop, "events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscribers.remove(this);
+            if (space != null) {
+                space.release(capacity);   // let any blocked publisher through
+            }
+            LockSupport.unpark(thread);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OverflowPolicy getPolicy() {
+            return policy;
+        }
+
+        /** Events waiting to be handled */
+        public int getBacklog() {
+            return size.get();
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        /** Events discarded because the queue was full */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /** Events replaced by a newer one for the same node before delivery */
+        public long getCoalesced() {
+            return coalesced.get();
+        }
+
+        private void offer(MonitorEvent event) {
+            if (cancelled) return;
+            switch (policy) {
+                case BLOCK -> {
+                    try {
+                        space.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.incrementAndGet();
+                        return;
+                    }
+                    size.incrementAndGet();
+                    queue.add(event);
+                }
+                case COALESCE_BY_NODE -> {
+                    if (latest.put(event.key(), event) != null) {
+                        // Its key is still queued; the consumer will pick up this one instead
+                        coalesced.incrementAndGet();
+                        return;
+                    }
+                    addBounded(event.key());
+                }
+                case DROP_OLDEST -> addBounded(event);
+            }
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        // Bounded to capacity, give or take publishers racing each other
+        private void addBounded(Object item) {
+            if (size.incrementAndGet() > capacity) {
+                Object oldest = queue.poll();
+                if (oldest != null) {
+                    size.decrementAndGet();
+                    dropped.incrementAndGet();
+                    if (latest != null) latest.remove(oldest);
+                }
+            }
+            queue.add(item);
+        }
+
+        private void deliverLoop() {
+            while (!cancelled) {
+                Object item = queue.poll();
+                if (item == null) {
+                    // Publishers check waiting after enqueueing, so re-check before parking
+                    waiting = true;
+                    if (queue.isEmpty() && !cancelled) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                size.decrementAndGet();
+                if (space != null) space.release();
+
+                MonitorEvent event = latest != null ? latest.remove(item) : (MonitorEvent) item;
+                if (event == null) continue;
+                try {
+                    handler.accept(event);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                delivered.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.example.model.OverflowPolicy;
+
+/**
+ * Appends every {@link MonitorEvent} to a JSON-lines file, one object per
+ * line with the event type and its fields. When the file passes
+ * MAX_BYTES it is renamed to events.log.1 (replacing the previous one) and a
+ * new file is started.
+ */
+public class EventLog {
+    private static final long MAX_BYTES = 10L * 1024 * 1024;
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private static EventLog instance;
+
+    private final Path file;
+    private final Gson gson = new Gson();
+    private final EventBus.Subscriber subscription;
+    private BufferedWriter writer;   // delivery thread only, apart from close
+    private long bytes;
+
+    /**
+     * Start logging bus events to directory/events.log.
+     */
+    public static synchronized EventLog open(Path directory) throws IOException {
+        if (instance == null) {
+            instance = new EventLog(directory);
+        }
+        return instance;
+    }
+
+    public static synchronized EventLog getInstance() {
+        return instance;
+    }
+
+    private EventLog(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        file = directory.resolve("events.log");
+        openWriter();
+        // Dropping the oldest keeps probing going if the disk stalls; the
+        // drop count is exported with the bus metrics
+        subscription = EventBus.getInstance().subscribe("event-log", QUEUE_CAPACITY,
+            OverflowPolicy.DROP_OLDEST, this::append);
+    }
+
+    public synchronized void close() {
+        subscription.cancel();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized void append(MonitorEvent event) {
+        try {
+            JsonObject json = gson.toJsonTree(event).getAsJsonObject();
+            json.addProperty("type", event.getClass().getSimpleName());
+            String line = json.toString() + "\n";
+            writer.write(line);
+            // Events are rare next to probes, so make each one durable right away
+            writer.flush();
+            bytes += line.length();
+            if (bytes > MAX_BYTES) {
+                writer.close();
+                Files.move(file, file.resolveSibling("events.log.1"), StandardCopyOption.REPLACE_EXISTING);
+                openWriter();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void openWriter() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        bytes = Files.size(file);
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Appends each notification to a local text file.
+ */
+public class FileAlertSink implements AlertSink {
+    private final String name;
+    private final Path file;
+
+    public FileAlertSink(String name, Path file) {
+        this.name = name;
+        this.file = file;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized void send(AlertNotification notification) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        String entry = Instant.now() + " " + notification.getSubject() + "\n" + notification.getBody() + "\n";
+        Files.writeString(file, entry, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,278 @@
+package org.example.service;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.net.Inet4Address;
+import java.nio.ByteOrder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ICMP echo engine built on Linux unprivileged ping sockets
+ * (SOCK_DGRAM / IPPROTO_ICMP, allowed by net.ipv4.ping_group_range),
+ * called through the Foreign Function & Memory API.
+ *
+ * A single socket and receiver thread serve every target. Replies are matched
+ * to their request by sequence number and source address; the kernel owns the
+ * echo identifier on ping sockets so it is not used for matching.
+ */
+public class IcmpEchoEngine {
+    private static final int AF_INET = 2;
+    private static final int SOCK_DGRAM = 2;
+    private static final int IPPROTO_ICMP = 1;
+    private static final int SOL_SOCKET = 1;
+    private static final int SO_RCVTIMEO = 20;
+
+    private static final byte ICMP_ECHO_REPLY = 0;
+    private static final byte ICMP_ECHO_REQUEST = 8;
+    private static final int PACKET_SIZE = 16;       // 8 byte header + 8 byte payload
+    private static final int SOCKADDR_IN_SIZE = 16;
+    private static final int RECV_BUFFER_SIZE = 1500;
+    private static final long RECV_POLL_MICROS = 250_000;
+
+    private static final ValueLayout.OfShort SHORT_BE = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt INT_BE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private static IcmpEchoEngine instance;
+    private static boolean initAttempted = false;
+
+    private final MethodHandle sendto;
+    private final MethodHandle recvfrom;
+    private final MethodHandle close;
+    private final int fd;
+
+    private final ConcurrentHashMap<Integer, PendingEcho> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSequence = new AtomicInteger();
+    private final AtomicLong echoesSent = new AtomicLong();
+    private final AtomicLong repliesReceived = new AtomicLong();
+    private final Thread receiver;
+    private volatile boolean running = true;
+
+    /**
+     * Returns the shared engine, or null when ping sockets are not available
+     * (non-Linux, ping_group_range excludes us, or native access is disabled).
+     */
+    public static synchronized IcmpEchoEngine getInstance() {
+        if (!initAttempted) {
+            initAttempted = true;
+            if (!System.getProperty("os.name").toLowerCase().contains("linux")) {
+                return null;
+            }
+            try {
+                instance = new IcmpEchoEngine();
+                System.out.println("ICMP echo engine started on ping socket fd " + instance.fd);
+            } catch (Throwable t) {
+                System.out.println("ICMP echo engine unavailable: " + t.getMessage());
+                instance = null;
+            }
+        }
+        return instance;
+    }
+
+    private IcmpEchoEngine() throws Throwable {
+        Linker linker = Linker.nativeLinker();
+        SymbolLookup libc = linker.defaultLookup();
+
+        StructLayout captureLayout = Linker.Option.captureStateLayout();
+        VarHandle errnoHandle = captureLayout.varHandle(MemoryLayout.PathElement.groupElement("errno"));
+
+        MethodHandle socket = linker.downcallHandle(libc.find("socket").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT),
+            Linker.Option.captureCallState("errno"));
+        MethodHandle setsockopt = linker.downcallHandle(libc.find("setsockopt").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT,
+                ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        sendto = linker.downcallHandle(libc.find("sendto").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS,
+                ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        recvfrom = linker.downcallHandle(libc.find("recvfrom").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS,
+                ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        close = linker.downcallHandle(libc.find("close").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment callState = arena.allocate(captureLayout);
+            fd = (int) socket.invokeExact(callState, AF_INET, SOCK_DGRAM, IPPROTO_ICMP);
+            if (fd < 0) {
+                int errno = (int) errnoHandle.get(callState);
+                throw new IllegalStateException("socket(AF_INET, SOCK_DGRAM, IPPROTO_ICMP) failed, errno " + errno);
+            }
+
+            // Bounded blocking receive so the receiver thread can notice shutdown
+            MemorySegment timeval = arena.allocate(16);
+            timeval.set(ValueLayout.JAVA_LONG, 0, 0L);
+            timeval.set(ValueLayout.JAVA_LONG, 8, RECV_POLL_MICROS);
+            int rc = (int) setsockopt.invokeExact(fd, SOL_SOCKET, SO_RCVTIMEO, timeval, 16);
+            if (rc < 0) {
+                int ignored = (int) close.invokeExact(fd);
+                throw new IllegalStateException("setsockopt(SO_RCVTIMEO) failed");
+            }
+        }
+
+        receiver = new Thread(this::receiveLoop, "icmp-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * Send one echo request. The returned future completes with a reachable result
+     * when the reply arrives, or an unreachable one once the timeout passes.
+     */
+    public CompletableFuture<ProbeResult> ping(String target, Inet4Address address, int timeoutMs) {
+        CompletableFuture<ProbeResult> reply = new CompletableFuture<>();
+        PendingEcho echo = new PendingEcho(target, address, reply);
+
+        int sequence = claimSequence(echo);
+        if (sequence < 0) {
+            return CompletableFuture.completedFuture(ProbeResult.failed(target, "too many outstanding echo requests"));
+        }
+        reply.whenComplete((r, e) -> pending.remove(sequence, echo));
+
+        byte[] packet = buildEchoRequest(sequence);
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment packetSegment = arena.allocate(PACKET_SIZE);
+            MemorySegment.copy(packet, 0, packetSegment, ValueLayout.JAVA_BYTE, 0, PACKET_SIZE);
+
+            MemorySegment sockaddr = arena.allocate(SOCKADDR_IN_SIZE);
+            sockaddr.set(ValueLayout.JAVA_SHORT, 0, (short) AF_INET);
+            MemorySegment.copy(address.getAddress(), 0, sockaddr, ValueLayout.JAVA_BYTE, 4, 4);
+
+            echo.sentNanos = System.nanoTime();
+            long sent = (long) sendto.invokeExact(fd, packetSegment, (long) PACKET_SIZE, 0, sockaddr, SOCKADDR_IN_SIZE);
+            if (sent < 0) {
+                reply.complete(new ProbeResult(target, address, false, 0, System.currentTimeMillis(), "sendto failed"));
+                return reply;
+            }
+            echoesSent.incrementAndGet();
+        } catch (Throwable t) {
+            reply.complete(ProbeResult.failed(target, t.getMessage()));
+            return reply;
+        }
+
+        return reply.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).exceptionally(e -> {
+            if (e instanceof TimeoutException || e.getCause() instanceof TimeoutException) {
+                return new ProbeResult(target, address, false, 0, System.currentTimeMillis(), null);
+            }
+            return ProbeResult.failed(target, e.getMessage());
+        });
+    }
+
+    public long getEchoesSent() {
+        return echoesSent.get();
+    }
+
+    public long getRepliesReceived() {
+        return repliesReceived.get();
+    }
+
+    public int getOutstanding() {
+        return pending.size();
+    }
+
+    public void shutdown() {
+        running = false;
+        try {
+            int ignored = (int) close.invokeExact(fd);
+        } catch (Throwable ignored) {}
+    }
+
+    private int claimSequence(PendingEcho echo) {
+        // Sequence numbers are 16 bit; skip any still waiting for a reply
+        for (int attempt = 0; attempt < 0x10000; attempt++) {
+            int sequence = nextSequence.getAndIncrement() & 0xFFFF;
+            if (pending.putIfAbsent(sequence, echo) == null) {
+                return sequence;
+            }
+        }
+        return -1;
+    }
+
+    private void receiveLoop() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment buffer = arena.allocate(RECV_BUFFER_SIZE);
+            MemorySegment from = arena.allocate(SOCKADDR_IN_SIZE);
+            MemorySegment fromLength = arena.allocate(ValueLayout.JAVA_INT);
+
+            while (running) {
+                fromLength.set(ValueLayout.JAVA_INT, 0, SOCKADDR_IN_SIZE);
+                long received = (long) recvfrom.invokeExact(fd, buffer, (long) RECV_BUFFER_SIZE, 0, from, fromLength);
+                long now = System.nanoTime();
+                if (received < 8) continue; // timeout, error or runt
+
+                // Ping sockets deliver the ICMP message without the IP header
+                if (buffer.get(ValueLayout.JAVA_BYTE, 0) != ICMP_ECHO_REPLY) continue;
+
+                int sequence = buffer.get(SHORT_BE, 6) & 0xFFFF;
+                PendingEcho echo = pending.get(sequence);
+                if (echo == null || from.get(INT_BE, 4) != echo.addressBits) continue;
+
+                repliesReceived.incrementAndGet();
+                echo.reply.complete(new ProbeResult(echo.target, echo.address, true,
+                    (now - echo.sentNanos) / 1000, System.currentTimeMillis(), null));
+            }
+        } catch (Throwable t) {
+            if (running) {
+                System.out.println("ICMP receiver stopped: " + t.getMessage());
+                t.printStackTrace();
+            }
+        }
+    }
+
+    private static byte[] buildEchoRequest(int sequence) {
+        byte[] packet = new byte[PACKET_SIZE];
+        packet[0] = ICMP_ECHO_REQUEST;
+        packet[1] = 0;                                 // code
+        packet[6] = (byte) (sequence >>> 8);
+        packet[7] = (byte) sequence;
+        long stamp = System.nanoTime();
+        for (int i = 0; i < 8; i++) {
+            packet[8 + i] = (byte) (stamp >>> (56 - 8 * i));
+        }
+
+        // The kernel fills in the identifier and recomputes this, but keep the packet valid
+        int checksum = checksum(packet);
+        packet[2] = (byte) (checksum >>> 8);
+        packet[3] = (byte) checksum;
+        return packet;
+    }
+
+    private static int checksum(byte[] data) {
+        int sum = 0;
+        for (int i = 0; i < data.length; i += 2) {
+            sum += ((data[i] & 0xFF) << 8) | (i + 1 < data.length ? data[i + 1] & 0xFF : 0);
+        }
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xFFFF) + (sum >>> 16);
+        }
+        return ~sum & 0xFFFF;
+    }
+
+    private static class PendingEcho {
+        final String target;
+        final Inet4Address address;
+        final int addressBits;
+        final CompletableFuture<ProbeResult> reply;
+        volatile long sentNanos;
+
+        PendingEcho(String target, Inet4Address address, CompletableFuture<ProbeResult> reply) {
+            this.target = target;
+            this.address = address;
+            this.reply = reply;
+            byte[] b = address.getAddress();
+            this.addressBits = ((b[0] & 0xFF) << 24) | ((b[1] & 0xFF) << 16) | ((b[2] & 0xFF) << 8) | (b[3] & 0xFF);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.model.ProbeStatus;
+
+/**
+ * In-memory probe history per target, kept in fixed-size ring buffers.
+ *
+ * Each sample is two ints in parallel primitive arrays: the completion time in
+ * epoch seconds (read back unsigned, good until 2106) and the RTT in
+ * microseconds with the {@link ProbeStatus} packed into the top two bits
+ * (RTTs are capped at 2^30 us, about 18 minutes). That is 8 bytes per sample
+ * instead of 13 for long/int/byte columns, so 24 h at 2 s resolution is
+ * 43,200 samples = 345,600 bytes per target, and the default budget of
+ * 5,000 targets tops out at about 1.7 GB. Rings are allocated on first use,
+ * so a map of 50 nodes costs 17 MB. Targets beyond the budget are not
+ * recorded and are counted in {@link #getRejectedTargets()}.
+ *
+ * There is one writer per ring at a time; readers get a {@link Window} over
+ * the live arrays without copying and can check afterwards whether the ring
+ * wrapped over the part they read.
+ */
+public class LatencyHistory {
+    public static final int DEFAULT_CAPACITY = 43_200;   // 24 h at 2 s
+    public static final int DEFAULT_MAX_TARGETS = 5_000;
+
+    private static final int STATUS_SHIFT = 30;
+    private static final int MICROS_MASK = (1 << STATUS_SHIFT) - 1;
+    private static final ProbeStatus[] STATUSES = ProbeStatus.values();
+
+    private static LatencyHistory instance;
+
+    private final int capacity;
+    private final int maxTargets;
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+    private final AtomicInteger ringCount = new AtomicInteger();
+    private final AtomicLong rejectedTargets = new AtomicLong();
+
+    public static synchronized LatencyHistory getInstance() {
+        if (instance == null) {
+            instance = new LatencyHistory(
+                Integer.getInteger("nodemonitor.history.capacity", DEFAULT_CAPACITY),
+                Integer.getInteger("nodemonitor.history.maxTargets", DEFAULT_MAX_TARGETS));
+        }
+        return instance;
+    }
+
+    public LatencyHistory(int capacity, int maxTargets) {
+        this.capacity = capacity;
+        this.maxTargets = maxTargets;
+    }
+
+    /**
+     * Record a probe result. Safe to call from any probe thread.
+     */
+    public void record(ProbeResult result) {
+        Ring ring = rings.get(result.target);
+        if (ring == null) {
+            if (ringCount.incrementAndGet() > maxTargets) {
+                ringCount.decrementAndGet();
+                rejectedTargets.incrementAndGet();
+                return;
+            }
+            Ring created = new Ring(capacity);
+            ring = rings.putIfAbsent(result.target, created);
+            if (ring == null) {
+                ring = created;
+            } else {
+                ringCount.decrementAndGet(); // lost the race, nothing allocated on our side
+            }
+        }
+        ring.append(result.timestamp, result.latencyMicros, result.status);
+    }
+
+    /**
+     * Samples for a target with completion time in [fromMs, toMs], oldest first.
+     * Returns an empty window if nothing has been recorded.
+     */
+    public Window window(String target, long fromMs, long toMs) {
+        Ring ring = rings.get(target);
+        if (ring == null) return Window.EMPTY;
+        return ring.window(fromMs, toMs);
+    }
+
+    /** The most recent samples, up to count of them */
+    public Window latest(String target, int count) {
+        Ring ring = rings.get(target);
+        if (ring == null) return Window.EMPTY;
+        return ring.latest(count);
+    }
+
+    public void remove(String target) {
+        if (rings.remove(target) != null) {
+            ringCount.decrementAndGet();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getTargetCount() {
+        return ringCount.get();
+    }
+
+    public long getRejectedTargets() {
+        return rejectedTargets.get();
+    }
+
+    /** Bytes held by allocated rings */
+    public long getAllocatedBytes() {
+        return (long) ringCount.get() * capacity * 8;
+    }
+
+    /** Status in the top two bits, RTT in microseconds (capped) in the rest */
+    static int pack(ProbeStatus status, long latencyMicros) {
+        return (status.ordinal() << STATUS_SHIFT) | (int) Math.min(Math.max(latencyMicros, 0), MICROS_MASK);
+    }
+
+    static long unpackMicros(int packed) {
+        return packed & MICROS_MASK;
+    }
+
+    static ProbeStatus unpackStatus(int packed) {
+        return STATUSES[packed >>> STATUS_SHIFT];
+    }
+
+    private static final class Ring {
+        final int[] seconds;
+        final int[] packed;
+        final int capacity;
+        // Total samples ever written; slot = sequence % capacity
+        volatile long written = 0;
+        long lastSeconds = 0;
+
+        Ring(int capacity) {
+            this.capacity = capacity;
+            this.seconds = new int[capacity];
+            this.packed = new int[capacity];
+        }
+
+        synchronized void append(long timestampMs, long latencyMicros, ProbeStatus status) {
+            // Keep the ring sorted even if results from different probe types
+            // complete slightly out of order
+            long secs = Math.max(timestampMs / 1000, lastSeconds);
+            lastSeconds = secs;
+            int slot = (int) (written % capacity);
+            seconds[slot] = (int) secs;
+            packed[slot] = pack(status, latencyMicros);
+            written = written + 1; // publishes the slot to readers
+        }
+
+        Window latest(int count) {
+            long end = written;
+            long start = Math.max(Math.max(0, end - capacity), end - count);
+            return new Window(this, start, end);
+        }
+
+        Window window(long fromMs, long toMs) {
+            long end = written;
+            long oldest = Math.max(0, end - capacity);
+            long from = lowerBound(oldest, end, fromMs / 1000);
+            long to = lowerBound(from, end, toMs / 1000 + 1);
+            return new Window(this, from, to);
+        }
+
+        // First sequence in [lo, hi) whose time is >= secs
+        private long lowerBound(long lo, long hi, long secs) {
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (Integer.toUnsignedLong(seconds[(int) (mid % capacity)]) < secs) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Read-only view of a range of samples, backed by the live ring arrays.
+     * Index 0 is the oldest sample in the window.
+     */
+    public static final class Window {
+        static final Window EMPTY = new Window(null, 0, 0);
+
+        private final Ring ring;
+        private final long start;
+        private final long end;
+
+        private Window(Ring ring, long start, long end) {
+            this.ring = ring;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int size() {
+            return (int) (end - start);
+        }
+
+        public boolean isEmpty() {
+            return end == start;
+        }
+
+        public long getTimestampMs(int i) {
+            return Integer.toUnsignedLong(ring.seconds[slot(i)]) * 1000;
+        }
+
+        public long getLatencyMicros(int i) {
+            return unpackMicros(ring.packed[slot(i)]);
+        }
+
+        public ProbeStatus getStatus(int i) {
+            return unpackStatus(ring.packed[slot(i)]);
+        }
+
+        public boolean isUp(int i) {
+            return (ring.packed[slot(i)] >>> STATUS_SHIFT) == ProbeStatus.UP.ordinal();
+        }
+
+        /**
+         * True if none of the samples in this window have been overwritten
+         * since it was taken. Check after reading to know the values were stable.
+         */
+        public boolean isIntact() {
+            return ring == null || ring.written - start <= ring.capacity;
+        }
+
+        /** Fraction of samples that were up, ignoring upstream placeholders; NaN if none */
+        public double getAvailability() {
+            int counted = 0;
+            int up = 0;
+            for (int i = 0; i < size(); i++) {
+                ProbeStatus status = getStatus(i);
+                if (status == ProbeStatus.UPSTREAM_UNREACHABLE) continue;
+                counted++;
+                if (status == ProbeStatus.UP) up++;
+            }
+            return counted == 0 ? Double.NaN : (double) up / counted;
+        }
+
+        /** Mean RTT of successful samples in microseconds; NaN if none */
+        public double getMeanLatencyMicros() {
+            long sum = 0;
+            int count = 0;
+            for (int i = 0; i < size(); i++) {
+                if (isUp(i)) {
+                    sum += getLatencyMicros(i);
+                    count++;
+                }
+            }
+            return count == 0 ? Double.NaN : (double) sum / count;
+        }
+
+        private int slot(int i) {
+            if (i < 0 || i >= size()) throw new IndexOutOfBoundsException(i);
+            return (int) ((start + i) % ring.capacity);
+        }
+    }
+}
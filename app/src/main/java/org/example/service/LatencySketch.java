@@ -0,0 +1,146 @@
+package org.example.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch for RTTs, in the style of DDSketch.
+ *
+ * Values are counted in logarithmic buckets whose width grows with the value,
+ * so any quantile comes back within 1% of the true sample at that rank, no
+ * matter how many samples went in. RTTs are clamped to 1 us .. 2^30 us, which
+ * bounds the sketch at about 1,050 buckets (4 KiB) in the worst case; in
+ * practice a node's samples cluster and only a few dozen buckets are used.
+ * Adding a sample is O(1) apart from the occasional array growth, and two
+ * sketches merge by adding their counts bucket for bucket.
+ *
+ * Not thread-safe; callers guard it with whatever owns it.
+ */
+public class LatencySketch {
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final long MAX_MICROS = 1L << 30;
+    private static final int MAX_INDEX = indexOf(MAX_MICROS);
+
+    // counts[i] holds bucket (offset + i)
+    private int[] counts = new int[0];
+    private int offset = 0;
+    private long count = 0;
+
+    public void add(long latencyMicros) {
+        int index = indexOf(latencyMicros);
+        ensureRange(index);
+        counts[index - offset]++;
+        count++;
+    }
+
+    public void merge(LatencySketch other) {
+        if (other.count == 0) return;
+        ensureRange(other.offset);
+        ensureRange(other.offset + other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[other.offset + i - offset] += other.counts[i];
+        }
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Estimated value at quantile q (0..1) in microseconds; NaN if empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        long rank = (long) Math.floor(Math.min(Math.max(q, 0), 1) * (count - 1));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return valueOf(offset + i);
+            }
+        }
+        return valueOf(offset + counts.length - 1);
+    }
+
+    public LatencySketch copy() {
+        LatencySketch copy = new LatencySketch();
+        copy.counts = counts.clone();
+        copy.offset = offset;
+        copy.count = count;
+        return copy;
+    }
+
+    public void clear() {
+        counts = new int[0];
+        offset = 0;
+        count = 0;
+    }
+
+    /** Writes the non-empty buckets only */
+    public void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (int c : counts) {
+            if (c != 0) used++;
+        }
+        out.writeShort(used);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(offset + i);
+                out.writeInt(counts[i]);
+            }
+        }
+    }
+
+    public static LatencySketch readFrom(DataInput in) throws IOException {
+        LatencySketch sketch = new LatencySketch();
+        int used = in.readUnsignedShort();
+        for (int i = 0; i < used; i++) {
+            int index = in.readShort();
+            int c = in.readInt();
+            sketch.ensureRange(index);
+            sketch.counts[index - sketch.offset] += c;
+            sketch.count += c;
+        }
+        return sketch;
+    }
+
+    private static int indexOf(long latencyMicros) {
+        long clamped = Math.min(Math.max(latencyMicros, 1), MAX_MICROS);
+        return (int) Math.ceil(Math.log(clamped) / LOG_GAMMA);
+    }
+
+    // Midpoint of the bucket, which keeps the relative error under RELATIVE_ACCURACY
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private void ensureRange(int index) {
+        if (counts.length == 0) {
+            counts = new int[8];
+            offset = index;
+            return;
+        }
+        if (index < offset) {
+            // Leave some slack below so a slowly falling RTT doesn't copy every time
+            int newOffset = Math.min(index, Math.max(0, offset - counts.length / 2));
+            int[] grown = new int[counts.length + (offset - newOffset)];
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+        } else if (index >= offset + counts.length) {
+            int needed = index - offset + 1;
+            int limit = MAX_INDEX - offset + 1;
+            counts = Arrays.copyOf(counts, Math.max(needed, Math.min(limit, counts.length + counts.length / 2)));
+        }
+    }
+}
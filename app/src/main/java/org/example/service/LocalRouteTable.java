@@ -0,0 +1,245 @@
+package org.example.service;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Which local interface is on-link for a destination, by longest prefix match
+ * over the subnets of the interfaces that are up.
+ *
+ * The subnets go into one trie per address family, stored as flat arrays
+ * with a byte per level. A lookup takes at most 4 (IPv4) or 16 (IPv6) steps
+ * and, for IPv4, allocates nothing. The interfaces are re-enumerated every
+ * 30 s on a background thread and the tries are only rebuilt when the set of
+ * subnets actually changed; readers always see a complete table.
+ */
+public class LocalRouteTable {
+    private static final long REFRESH_INTERVAL_MS = 30_000;
+
+    private static LocalRouteTable instance;
+
+    private volatile Table table = Table.EMPTY;
+    private final ScheduledExecutorService refresher;
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public static synchronized LocalRouteTable getInstance() {
+        if (instance == null) {
+            instance = new LocalRouteTable();
+        }
+        return instance;
+    }
+
+    private LocalRouteTable() {
+        refresh();
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "route-table-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh,
+            REFRESH_INTERVAL_MS, REFRESH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Name of the local interface whose subnet contains the destination, or
+     * "" if it is not on any local subnet.
+     */
+    public String interfaceFor(InetAddress destination) {
+        Table current = table;
+        int index = -1;
+        if (destination instanceof Inet4Address) {
+            // Inet4Address.hashCode() is the address itself, no array copy
+            index = current.v4.lookup((long) destination.hashCode() << 32, 0, 32);
+        } else if (destination instanceof Inet6Address) {
+            byte[] bytes = destination.getAddress();
+            index = current.v6.lookup(toLong(bytes, 0), toLong(bytes, 8), 128);
+        }
+        return index < 0 ? "" : current.names[index];
+    }
+
+    /**
+     * Re-read the local interfaces and rebuild the table if anything changed.
+     */
+    public synchronized void refresh() {
+        try {
+            List<Route> routes = new ArrayList<>();
+            for (NetworkInterface ni : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!ni.isUp()) continue;
+                for (InterfaceAddress ia : ni.getInterfaceAddresses()) {
+                    routes.add(new Route(ni.getName(), ia.getAddress(), ia.getNetworkPrefixLength()));
+                }
+            }
+            if (routes.equals(table.routes)) return;
+            table = Table.build(routes);
+            rebuilds.incrementAndGet();
+        } catch (SocketException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getRebuildCount() {
+        return rebuilds.get();
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * One subnet of one interface, as enumerated.
+     */
+    private static final class Route {
+        final String interfaceName;
+        final InetAddress address;
+        final int prefixLength;
+
+        Route(String interfaceName, InetAddress address, int prefixLength) {
+            this.interfaceName = interfaceName;
+            this.address = address;
+            this.prefixLength = prefixLength;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Route)) return false;
+            Route other = (Route) o;
+            return prefixLength == other.prefixLength && interfaceName.equals(other.interfaceName)
+                && Arrays.equals(address.getAddress(), other.address.getAddress());
+        }
+
+        @Override
+        public int hashCode() {
+            return interfaceName.hashCode() * 31 + Arrays.hashCode(address.getAddress());
+        }
+    }
+
+    /**
+     * Immutable snapshot: both tries plus the interface names they point into.
+     */
+    private static final class Table {
+        static final Table EMPTY = new Table(Collections.emptyList(), new String[0], new Trie(), new Trie());
+
+        final List<Route> routes;
+        final String[] names;
+        final Trie v4;
+        final Trie v6;
+
+        Table(List<Route> routes, String[] names, Trie v4, Trie v6) {
+            this.routes = routes;
+            this.names = names;
+            this.v4 = v4;
+            this.v6 = v6;
+        }
+
+        static Table build(List<Route> routes) {
+            List<String> names = new ArrayList<>();
+            Trie v4 = new Trie();
+            Trie v6 = new Trie();
+            for (Route route : routes) {
+                int index = names.indexOf(route.interfaceName);
+                if (index < 0) {
+                    index = names.size();
+                    names.add(route.interfaceName);
+                }
+                byte[] bytes = route.address.getAddress();
+                if (bytes.length == 4) {
+                    long hi = (long) (((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16)
+                        | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF)) << 32;
+                    v4.insert(hi, 0, Math.min(route.prefixLength, 32), index);
+                } else {
+                    v6.insert(toLong(bytes, 0), toLong(bytes, 8), Math.min(route.prefixLength, 128), index);
+                }
+            }
+            return new Table(routes, names.toArray(new String[0]), v4, v6);
+        }
+    }
+
+    /**
+     * Multibit trie over the high bits of a 128 bit key (hi, lo), one byte per
+     * level, so an IPv4 lookup is at most 4 steps. Node n owns slots
+     * n * 256 .. n * 256 + 255. A prefix that ends inside a byte is expanded
+     * over every slot it covers; value[] holds the interface index (-1 for
+     * none) and child[] the next node (0 for none, the root is nobody's child).
+     */
+    private static final class Trie {
+        int[] child = new int[256];
+        int[] value = filled(256);
+        byte[] prefixLength = new byte[256];   // only used while building
+        int size = 1;
+
+        /** Longer prefixes win; on a tie the first interface enumerated keeps it */
+        void insert(long hi, long lo, int bits, int index) {
+            int node = 0;
+            int depth = 0;
+            while (bits - depth > 8) {
+                int slot = node * 256 + byteAt(hi, lo, depth);
+                if (child[slot] == 0) {
+                    int next = allocate();
+                    child[slot] = next;
+                }
+                node = child[slot];
+                depth += 8;
+            }
+            int remaining = bits - depth;
+            int first = remaining == 0 ? 0 : byteAt(hi, lo, depth) & (0xFF << (8 - remaining)) & 0xFF;
+            int count = 1 << (8 - remaining);
+            for (int b = first; b < first + count; b++) {
+                int slot = node * 256 + b;
+                if (value[slot] < 0 || (prefixLength[slot] & 0xFF) < bits) {
+                    value[slot] = index;
+                    prefixLength[slot] = (byte) bits;
+                }
+            }
+        }
+
+        int lookup(long hi, long lo, int bits) {
+            int node = 0;
+            int best = -1;
+            for (int depth = 0; depth < bits; depth += 8) {
+                int slot = node * 256 + byteAt(hi, lo, depth);
+                if (value[slot] >= 0) best = value[slot];
+                node = child[slot];
+                if (node == 0) break;
+            }
+            return best;
+        }
+
+        private int allocate() {
+            if ((size + 1) * 256 > value.length) {
+                int length = value.length * 2;
+                child = Arrays.copyOf(child, length);
+                prefixLength = Arrays.copyOf(prefixLength, length);
+                int old = value.length;
+                value = Arrays.copyOf(value, length);
+                Arrays.fill(value, old, length, -1);
+            }
+            return size++;
+        }
+
+        private static int byteAt(long hi, long lo, int depth) {
+            return depth < 64 ? (int) (hi >>> (56 - depth)) & 0xFF : (int) (lo >>> (120 - depth)) & 0xFF;
+        }
+
+        private static int[] filled(int length) {
+            int[] array = new int[length];
+            Arrays.fill(array, -1);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.example.model.DeviceType;
+import org.example.model.MonitoredNode;
+import org.example.model.NetworkLocation;
+import org.example.model.OverflowPolicy;
+import org.example.model.ProbeStatus;
+
+/**
+ * Prometheus text-format metrics at /metrics on an embedded HTTP server.
+ *
+ * Every probeable node gets one set of series, labelled by node id, device
+ * type, network location, display name and target. The label part of each
+ * line is encoded to bytes once, when the node set changes, and a probe
+ * result only updates a few primitive fields of its target. A scrape is then
+ * a walk over those byte arrays into one reused buffer, with numbers
+ * formatted straight into it. Percentiles come from {@link PercentileTracker}
+ * and are merged every 15 s on a background thread, not on every scrape.
+ * Node events are counted off the {@link EventBus} like any other consumer.
+ *
+ * The port is nodemonitor.metrics.port (default 9464); a negative port
+ * turns the endpoint off. The endpoint lists node names and addresses and
+ * has no authentication, so it only listens on loopback unless
+ * nodemonitor.metrics.bind names another address (0.0.0.0 for all).
+ */
+public class MetricsServer {
+    public static final int DEFAULT_PORT = 9464;
+    public static final String DEFAULT_BIND_ADDRESS = "127.0.0.1";
+    private static final long REFRESH_INTERVAL_MS = 15_000;
+    private static final int LOSS_WINDOW = 64;   // probes, one bit each
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Family UP = new Family("nodemonitor_node_up", "gauge",
+        "1 if the last probe succeeded, 0 if it failed");
+    private static final Family UPSTREAM = new Family("nodemonitor_node_upstream_unreachable", "gauge",
+        "1 while the node is not probed because a node it depends on is down");
+    private static final Family RTT = new Family("nodemonitor_node_rtt_seconds", "gauge",
+        "Round trip time of the last successful probe");
+    private static final Family LOSS = new Family("nodemonitor_node_loss_ratio", "gauge",
+        "Share of the last " + LOSS_WINDOW + " probes that failed");
+    private static final Family QUANTILE = new Family("nodemonitor_node_rtt_quantile_seconds", "gauge",
+        "Round trip time quantiles over the last hour");
+    private static final Family EVENTS = new Family("nodemonitor_events_total", "counter",
+        "Node events published, by type");
+    private static final Family EVENT_BACKLOG = new Family("nodemonitor_event_backlog", "gauge",
+        "Events waiting for a subscriber");
+    private static final Family EVENT_DROPPED = new Family("nodemonitor_event_dropped_total", "counter",
+        "Events a subscriber's full queue discarded");
+    private static final byte[][] QUANTILE_LABELS = {
+        ascii(",quantile=\"0.5\"} "), ascii(",quantile=\"0.95\"} "), ascii(",quantile=\"0.99\"} ")
+    };
+    private static final double[] QUANTILES = {0.50, 0.95, 0.99};
+    private static final byte[] CLOSE_LABELS = ascii("} ");
+    private static final byte[] SPACE = ascii(" ");
+    private static final byte[] NAN = ascii("NaN");
+    private static final byte[] POS_INF = ascii("+Inf");
+    private static final byte[] NEG_INF = ascii("-Inf");
+
+    private static MetricsServer instance;
+
+    private final Map<String, TargetState> targets = new ConcurrentHashMap<>();
+    private volatile NodeSeries[] series = new NodeSeries[0];
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService refresher;
+    private HttpServer server;
+
+    // Events by type, counted off the bus; the order matches eventLines
+    private final Class<?>[] eventTypes = MonitorEvent.class.getPermittedSubclasses();
+    private final AtomicLong[] eventCounts = new AtomicLong[eventTypes.length];
+    private final byte[][] eventLines = new byte[eventTypes.length][];
+    private final Map<String, byte[]> subscriberLabels = new ConcurrentHashMap<>();
+    private EventBus.Subscriber eventSubscription;
+
+    private volatile double probesPerSecond;
+    private long lastProbeCount;            // refresher only
+    private long lastRefreshNanos;          // refresher only
+    private volatile long lastScrapeNanos;
+
+    // Scrape output, guarded by renderLock rather than this, so a scrape never
+    // holds up setNodes (called on the FX thread). Scrapes are served one at a
+    // time, so the lock is only ever contended by tests
+    private final Object renderLock = new Object();
+    private byte[] buffer = new byte[64 * 1024];
+    private int length;
+
+    public static synchronized MetricsServer getInstance() {
+        if (instance == null) {
+            instance = new MetricsServer();
+        }
+        return instance;
+    }
+
+    private MetricsServer() {
+        ProbeScheduler scheduler = ProbeScheduler.getInstance();
+        registerGauge("nodemonitor_probes_total", "counter", "Scheduled probes started since startup",
+            scheduler::getProbesDispatched);
+        registerGauge("nodemonitor_probes_per_second", "gauge", "Scheduled probes started per second",
+            () -> probesPerSecond);
+        registerGauge("nodemonitor_probe_queue_depth", "gauge", "Due probes waiting for a free worker",
+            scheduler::getQueueDepth);
+        registerGauge("nodemonitor_probe_targets", "gauge", "Targets on the probe schedule",
+            scheduler::getTargetCount);
+        registerGauge("nodemonitor_scrape_duration_seconds", "gauge", "Time taken to render the previous scrape",
+            () -> lastScrapeNanos / 1e9);
+
+        for (int i = 0; i < eventTypes.length; i++) {
+            eventCounts[i] = new AtomicLong();
+            eventLines[i] = ascii(EVENTS.nameString + "{type=\"" + eventTypes[i].getSimpleName() + "\"} ");
+        }
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start serving on the given port on loopback. Also starts the percentile refresh.
+     */
+    public void start(int port) throws IOException {
+        start(DEFAULT_BIND_ADDRESS, port);
+    }
+
+    /**
+     * Start serving on the given address and port. Also starts the percentile refresh.
+     */
+    public synchronized void start(String bindAddress, int port) throws IOException {
+        if (server != null) return;
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        server.createContext("/metrics", this::handle);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        lastRefreshNanos = System.nanoTime();
+        lastProbeCount = ProbeScheduler.getInstance().getProbesDispatched();
+        eventSubscription = EventBus.getInstance().subscribe("metrics", EventBus.DEFAULT_CAPACITY,
+            OverflowPolicy.DROP_OLDEST, this::countEvent);
+        refresher.scheduleWithFixedDelay(this::refresh,
+            REFRESH_INTERVAL_MS, REFRESH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        System.out.println("Metrics available at http://" + bindAddress + ":" + getPort() + "/metrics");
+    }
+
+    public synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        eventSubscription.cancel();
+        server = null;
+        refresher.shutdownNow();
+    }
+
+    /** The bound port, or -1 if not started */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * Export a value that lives elsewhere, read on every scrape. type is
+     * "gauge" or "counter"; the supplier should be cheap.
+     */
+    public void registerGauge(String name, String type, String help, DoubleSupplier value) {
+        gauges.add(new Gauge(new Family(name, type, help), value));
+    }
+
+    /**
+     * Replace the set of exported nodes. Cheap when nothing changed, so it
+     * can be called on every topology refresh.
+     */
+    public synchronized void setNodes(Collection<? extends MonitoredNode> nodes) {
+        NodeSeries[] current = series;
+        List<MonitoredNode> probeable = new ArrayList<>(nodes.size());
+        for (MonitoredNode node : nodes) {
+            if (node.isProbeable() && node.getIpOrHostname() != null && !node.getIpOrHostname().isEmpty()) {
+                probeable.add(node);
+            }
+        }
+        if (probeable.size() == current.length) {
+            boolean same = true;
+            for (int i = 0; i < current.length && same; i++) {
+                same = current[i].describes(probeable.get(i));
+            }
+            if (same) return;
+        }
+
+        // Keep the series (and percentiles) of nodes that did not change
+        Map<Long, NodeSeries> byId = new HashMap<>();
+        for (NodeSeries s : current) {
+            byId.put(s.nodeId, s);
+        }
+        NodeSeries[] updated = new NodeSeries[probeable.size()];
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            MonitoredNode node = probeable.get(i);
+            NodeSeries existing = byId.get(node.getNodeId());
+            if (existing != null && existing.describes(node)) {
+                updated[i] = existing;
+            } else {
+                TargetState state = targets.computeIfAbsent(node.getIpOrHostname(), k -> new TargetState());
+                updated[i] = new NodeSeries(node, state);
+            }
+            used.add(node.getIpOrHostname());
+        }
+        targets.keySet().retainAll(used);
+        series = updated;
+    }
+
+    /**
+     * Take in a scheduled probe result. Called on a probe worker thread.
+     */
+    public void record(ProbeResult result) {
+        TargetState state = targets.get(result.target);
+        if (state != null) state.update(result);
+    }
+
+    private void countEvent(MonitorEvent event) {
+        for (int i = 0; i < eventTypes.length; i++) {
+            if (eventTypes[i] == event.getClass()) {
+                eventCounts[i].incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void refresh() {
+        try {
+            long now = System.nanoTime();
+            long probes = ProbeScheduler.getInstance().getProbesDispatched();
+            probesPerSecond = (probes - lastProbeCount) / ((now - lastRefreshNanos) / 1e9);
+            lastProbeCount = probes;
+            lastRefreshNanos = now;
+
+            PercentileTracker percentiles = PercentileTracker.getInstance();
+            for (NodeSeries s : series) {
+                LatencySketch sketch = percentiles.getNodeSketch(s.nodeId);
+                for (int q = 0; q < QUANTILES.length; q++) {
+                    s.quantileMicros[q] = sketch.isEmpty() ? -1 : Math.round(sketch.quantile(QUANTILES[q]));
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            // Straight from the buffer; the next scrape cannot start before this one is written
+            synchronized (renderLock) {
+                renderLocked();
+                exchange.sendResponseHeaders(200, length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(buffer, 0, length);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Render every series into the buffer. Package-private for tests.
+     */
+    void render() {
+        synchronized (renderLock) {
+            renderLocked();
+        }
+    }
+
+    /** Caller holds renderLock */
+    private void renderLocked() {
+        long start = System.nanoTime();
+        length = 0;
+        NodeSeries[] current = series;
+
+        write(UP.header);
+        for (NodeSeries s : current) {
+            int status = s.state.status;
+            if (status == TargetState.NONE || status == TargetState.UPSTREAM) continue;
+            writeSeries(UP, s, status == TargetState.UP ? 1 : 0);
+        }
+        write(UPSTREAM.header);
+        for (NodeSeries s : current) {
+            int status = s.state.status;
+            if (status == TargetState.NONE) continue;
+            writeSeries(UPSTREAM, s, status == TargetState.UPSTREAM ? 1 : 0);
+        }
+        write(RTT.header);
+        for (NodeSeries s : current) {
+            long rtt = s.state.rttMicros;
+            if (rtt < 0) continue;
+            write(RTT.name);
+            write(s.labels);
+            write(CLOSE_LABELS);
+            writeFixed(rtt, 6);
+            writeByte('\n');
+        }
+        write(LOSS.header);
+        for (NodeSeries s : current) {
+            int loss = s.state.lossPerTenThousand;
+            if (loss < 0) continue;
+            write(LOSS.name);
+            write(s.labels);
+            write(CLOSE_LABELS);
+            writeFixed(loss, 4);
+            writeByte('\n');
+        }
+        write(QUANTILE.header);
+        for (NodeSeries s : current) {
+            for (int q = 0; q < QUANTILES.length; q++) {
+                long micros = s.quantileMicros[q];
+                if (micros < 0) continue;
+                write(QUANTILE.name);
+                write(s.labels);
+                write(QUANTILE_LABELS[q]);
+                writeFixed(micros, 6);
+                writeByte('\n');
+            }
+        }
+
+        write(EVENTS.header);
+        for (int i = 0; i < eventTypes.length; i++) {
+            write(eventLines[i]);
+            writeLong(eventCounts[i].get());
+            writeByte('\n');
+        }
+        List<EventBus.Subscriber> subscribers = EventBus.getInstance().getSubscribers();
+        write(EVENT_BACKLOG.header);
+        for (EventBus.Subscriber subscriber : subscribers) {
+            write(EVENT_BACKLOG.name);
+            write(subscriberLabels(subscriber));
+            writeLong(subscriber.getBacklog());
+            writeByte('\n');
+        }
+        write(EVENT_DROPPED.header);
+        for (EventBus.Subscriber subscriber : subscribers) {
+            write(EVENT_DROPPED.name);
+            write(subscriberLabels(subscriber));
+            writeLong(subscriber.getDropped());
+            writeByte('\n');
+        }
+
+        for (Gauge gauge : gauges) {
+            write(gauge.family.header);
+            write(gauge.family.name);
+            write(SPACE);
+            writeDouble(gauge.value.getAsDouble());
+            writeByte('\n');
+        }
+        lastScrapeNanos = System.nanoTime() - start;
+    }
+
+    /** The last rendered scrape. Package-private for tests. */
+    String rendered() {
+        synchronized (renderLock) {
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] subscriberLabels(EventBus.Subscriber subscriber) {
+        return subscriberLabels.computeIfAbsent(subscriber.getName(),
+            name -> ascii("{subscriber=\"" + escapeLabel(name) + "\"} "));
+    }
+
+    private void writeSeries(Family family, NodeSeries s, long value) {
+        write(family.name);
+        write(s.labels);
+        write(CLOSE_LABELS);
+        writeLong(value);
+        writeByte('\n');
+    }
+
+    private void write(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeByte(char c) {
+        ensure(1);
+        buffer[length++] = (byte) c;
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        ensure(20);
+        int startPos = length;
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        // Digits came out least significant first
+        for (int i = startPos, j = length - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    /** value / 10^decimals, written with exactly that many decimals */
+    private void writeFixed(long value, int decimals) {
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+        writeLong(value / scale);
+        writeByte('.');
+        long fraction = value % scale;
+        for (long digit = scale / 10; digit > 0; digit /= 10) {
+            writeByte((char) ('0' + fraction / digit % 10));
+        }
+    }
+
+    private void writeDouble(double value) {
+        if (Double.isNaN(value)) {
+            write(NAN);
+        } else if (Double.isInfinite(value)) {
+            write(value > 0 ? POS_INF : NEG_INF);
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            writeLong((long) value);
+        } else if (Math.abs(value) < 1e12) {
+            writeFixed(Math.round(value * 1e6), 6);
+        } else {
+            write(ascii(Double.toString(value)));
+        }
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String escapeLabel(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Latest state of one probe target, shared by every node probing it.
+     */
+    private static final class TargetState {
+        static final int NONE = -1, DOWN = 0, UP = 1, UPSTREAM = 2;
+
+        volatile int status = NONE;
+        volatile long rttMicros = -1;
+        volatile int lossPerTenThousand = -1;
+
+        // Guarded by this: one bit per probe, set for a failure
+        private long failures;
+        private int seen;
+
+        void update(ProbeResult result) {
+            if (result.status == ProbeStatus.UPSTREAM_UNREACHABLE) {
+                status = UPSTREAM;
+                return;
+            }
+            status = result.reachable ? UP : DOWN;
+            if (result.reachable) rttMicros = result.latencyMicros;
+            synchronized (this) {
+                failures = (failures << 1) | (result.reachable ? 0 : 1);
+                if (seen < LOSS_WINDOW) seen++;
+                long window = seen == 64 ? failures : failures & ((1L << seen) - 1);
+                lossPerTenThousand = (int) (Long.bitCount(window) * 10_000L / seen);
+            }
+        }
+    }
+
+    /**
+     * One node's label set, pre-encoded, plus its percentiles.
+     */
+    private static final class NodeSeries {
+        final long nodeId;
+        final String target;
+        final String displayName;
+        final DeviceType deviceType;
+        final NetworkLocation location;
+        final TargetState state;
+        final byte[] labels;   // "{name=value,..." without the closing brace
+        final long[] quantileMicros = {-1, -1, -1};
+
+        NodeSeries(MonitoredNode node, TargetState state) {
+            this.nodeId = node.getNodeId();
+            this.target = node.getIpOrHostname();
+            this.displayName = node.getDisplayName();
+            this.deviceType = node.getDeviceType();
+            this.location = node.getNetworkLocation();
+            this.state = state;
+            this.labels = ascii("{node_id=\"" + nodeId
+                + "\",device_type=\"" + (deviceType != null ? deviceType : "")
+                + "\",location=\"" + (location != null ? location : "")
+                + "\",name=\"" + escapeLabel(displayName)
+                + "\",target=\"" + escapeLabel(target) + "\"");
+        }
+
+        boolean describes(MonitoredNode node) {
+            return nodeId == node.getNodeId() && target.equals(node.getIpOrHostname())
+                && Objects.equals(displayName, node.getDisplayName())
+                && deviceType == node.getDeviceType() && location == node.getNetworkLocation();
+        }
+    }
+
+    /**
+     * A metric name with its HELP and TYPE lines.
+     */
+    private static final class Family {
+        final byte[] header;
+        final byte[] name;
+        final String nameString;
+
+        Family(String name, String type, String help) {
+            this.header = ascii("# HELP " + name + " " + help + "\n# TYPE " + name + " " + type + "\n");
+            this.name = ascii(name);
+            this.nameString = name;
+        }
+    }
+
+    private static final class Gauge {
+        final Family family;
+        final DoubleSupplier value;
+
+        Gauge(Family family, DoubleSupplier value) {
+            this.family = family;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.service;
+
+import org.example.config.DiscoveredNode;
+
+/**
+ * Something that happened to a node, published on the {@link EventBus}.
+ *
+ * Every event has a coalescing key: the node id for events about a
+ * monitored node, the address for a discovered one. A subscriber that
+ * coalesces keeps only the latest event per key. Up, down and stable share
+ * a {@link StateKey} of their own, so a latency or route event that follows
+ * never replaces the node's latest state.
+ */
+public sealed interface MonitorEvent {
+
+    long timestamp();
+
+    Object key();
+
+    /** Coalescing key of the events that say whether a node is up */
+    record StateKey(long nodeId) { }
+
+    /** A node answered after being down (or on its first result) */
+    record NodeUp(long nodeId, String target, long latencyMicros, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return new StateKey(nodeId);
+        }
+    }
+
+    /** A node stopped answering; reason is the probe error, if any */
+    record NodeDown(long nodeId, String target, String reason, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return new StateKey(nodeId);
+        }
+    }
+
+    /**
+     * A node changed state so often that further up/down events are held
+     * back until it settles; score is its decayed flap score
+     */
+    record NodeFlapping(long nodeId, String target, double score, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return nodeId;
+        }
+    }
+
+    /** A flapping node settled; up is the state it settled in */
+    record NodeStable(long nodeId, String target, boolean up, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return new StateKey(nodeId);
+        }
+    }
+
+    /** RTT went well above the node's own baseline */
+    record LatencyDegraded(long nodeId, String target, long latencyMicros, long baselineMicros, long timestamp)
+            implements MonitorEvent {
+        public Object key() {
+            return nodeId;
+        }
+    }
+
+    /** RTT is back near the baseline after a {@link LatencyDegraded} */
+    record LatencyRecovered(long nodeId, String target, long latencyMicros, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return nodeId;
+        }
+    }
+
+    /** A host not on the map answered a discovery scan */
+    record NodeDiscovered(DiscoveredNode node, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return node.ip;
+        }
+    }
+
+    /** A discovered host that is not on the map has not been seen for a while */
+    record NodeVanished(DiscoveredNode node, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return node.ip;
+        }
+    }
+
+    /**
+     * The host with this MAC moved to a new address. nodeId is the map node it
+     * belongs to, or null for a discovered host that is not on the map.
+     */
+    record AddressChanged(Long nodeId, String mac, String oldIp, String newIp, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return mac;
+        }
+    }
+
+    /** A node now depends on a different switch or host; either id may be null */
+    record RouteChanged(long nodeId, Long oldParentId, Long newParentId, long timestamp) implements MonitorEvent {
+        public Object key() {
+            return nodeId;
+        }
+    }
+}
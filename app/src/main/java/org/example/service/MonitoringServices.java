@@ -0,0 +1,118 @@
+package org.example.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.example.config.AlertConfig;
+import org.example.config.AlertSinkConfig;
+
+/**
+ * Wires probe results into the history stores. The desktop app and the
+ * headless daemon both start monitoring through here, so they record the
+ * same things to the same layout under their data directory.
+ */
+public class MonitoringServices {
+    /**
+     * Feed every scheduled probe result to the in-memory history and
+     * percentiles, to the on-disk time series and rollups under dataDir, to
+     * the node event stream, to the alert rules and to the metrics endpoint,
+     * and open the discovery cache.
+     * A store that cannot be opened is skipped; probing goes on.
+     */
+    public static void start(Path dataDir) {
+        ProbeScheduler scheduler = ProbeScheduler.getInstance();
+        scheduler.addResultListener(LatencyHistory.getInstance()::record);
+        scheduler.addResultListener(PercentileTracker.getInstance()::record);
+        scheduler.addResultListener(NodeStateTracker.getInstance()::record);
+
+        // Long-term history on disk, written off the probe threads
+        try {
+            TimeSeriesStore store = TimeSeriesStore.open(dataDir.resolve("timeseries"));
+            scheduler.addResultListener(store::append);
+        } catch (Exception e) {
+            System.out.println("Probe history will not be saved: " + e.getMessage());
+        }
+
+        // ...and rolled up into minutes, quarter hours and hours for the long view
+        try {
+            RollupEngine rollups = RollupEngine.open(dataDir.resolve("rollups"));
+            scheduler.addResultListener(rollups::record);
+        } catch (Exception e) {
+            System.out.println("Probe rollups will not be saved: " + e.getMessage());
+        }
+
+        // Every node event, for later inspection
+        try {
+            EventLog.open(dataDir);
+        } catch (Exception e) {
+            System.out.println("Node events will not be saved: " + e.getMessage());
+        }
+
+        // Hosts found by earlier runs; only revalidated once discovery is turned on
+        try {
+            DiscoveryCache.open(dataDir);
+        } catch (Exception e) {
+            System.out.println("Discovery results will not be cached: " + e.getMessage());
+        }
+
+        // Alert rules and sinks from alerts.json
+        try {
+            AlertConfig config = AlertConfig.load(dataDir);
+            AlertEngine alerts = AlertEngine.start(config, createSinks(config));
+            scheduler.addResultListener(alerts::submit);
+        } catch (Exception e) {
+            System.out.println("Alerting not started: " + e.getMessage());
+        }
+
+        // Prometheus scrape endpoint
+        int metricsPort = Integer.getInteger("nodemonitor.metrics.port", MetricsServer.DEFAULT_PORT);
+        if (metricsPort >= 0) {
+            MetricsServer metrics = MetricsServer.getInstance();
+            scheduler.addResultListener(metrics::record);
+            try {
+                metrics.start(System.getProperty("nodemonitor.metrics.bind", MetricsServer.DEFAULT_BIND_ADDRESS),
+                    metricsPort);
+            } catch (Exception e) {
+                System.out.println("Metrics endpoint not started: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop probing and flush the stores.
+     */
+    public static void stop() {
+        ProbeScheduler.getInstance().shutdown();
+        MetricsServer.getInstance().stop();
+        if (TimeSeriesStore.getInstance() != null) {
+            TimeSeriesStore.getInstance().close();
+        }
+        if (RollupEngine.getInstance() != null) {
+            RollupEngine.getInstance().close();
+        }
+        if (EventLog.getInstance() != null) {
+            EventLog.getInstance().close();
+        }
+        if (AlertEngine.getInstance() != null) {
+            AlertEngine.getInstance().close();
+        }
+        if (DiscoveryCache.getInstance() != null) {
+            DiscoveryCache.getInstance().close();
+        }
+    }
+
+    private static List<AlertSink> createSinks(AlertConfig config) {
+        List<AlertSink> sinks = new ArrayList<>();
+        for (AlertSinkConfig sink : config.getSinks()) {
+            if (sink.getType() == null) continue;
+            switch (sink.getType()) {
+                case WEBHOOK -> sinks.add(new WebhookAlertSink(sink.getName(), sink.getUrl()));
+                case SMTP -> sinks.add(new SmtpAlertSink(sink.getName(), sink.getHost(), sink.getPort(),
+                    sink.getFrom(), sink.getTo()));
+                case FILE -> sinks.add(new FileAlertSink(sink.getName(), Path.of(sink.getPath())));
+            }
+        }
+        return sinks;
+    }
+}
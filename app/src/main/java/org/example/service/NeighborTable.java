@@ -0,0 +1,255 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The system's ARP (IPv4 neighbor) table, kept as an IP to MAC index.
+ *
+ * On Linux it is read straight from /proc/net/arp into a buffer that is
+ * reused between reads; when the bytes are the same as last time nothing is
+ * parsed at all, and otherwise only entries that actually changed are
+ * replaced in the index. Elsewhere it falls back to running `arp -a` and
+ * understands both the Windows and the BSD/macOS output. Either way the
+ * table is refreshed on a timer, so a MAC lookup is a map hit and never
+ * waits on the system.
+ */
+public class NeighborTable {
+    private static final Path PROC_ARP = Paths.get("/proc/net/arp");
+    private static final long PROC_REFRESH_MS = 5_000;
+    private static final long COMMAND_REFRESH_MS = 30_000;   // forking is not free
+    private static final int ATF_COM = 0x2;                  // entry complete
+    private static final int ATF_PERM = 0x4;                 // static entry
+
+    private static final Pattern WINDOWS_INTERFACE = Pattern.compile("^Interface:\\s*(\\S+)");
+    private static final Pattern WINDOWS_ENTRY =
+        Pattern.compile("^\\s*(\\d+\\.\\d+\\.\\d+\\.\\d+)\\s+([0-9A-Fa-f]{2}(?:-[0-9A-Fa-f]{2}){5})\\s+(\\w+)");
+    private static final Pattern BSD_ENTRY =
+        Pattern.compile("\\((\\d+\\.\\d+\\.\\d+\\.\\d+)\\) at ([0-9A-Fa-f:]+) on (\\S+)(.*)");
+
+    private static NeighborTable instance;
+
+    /**
+     * One resolved neighbor.
+     *
+     * @param mac     lower case, colon separated
+     * @param iface   the IPv4 address of the interface it was seen on, or the
+     *                interface name when that has no IPv4 address
+     * @param dynamic learned rather than configured
+     */
+    public record Neighbor(String ip, String mac, String iface, boolean dynamic) { }
+
+    private final ConcurrentHashMap<String, Neighbor> byIp = new ConcurrentHashMap<>();
+    private final boolean useProc;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+
+    // Refresh state, guarded by this
+    private ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+    private byte[] previous = new byte[0];
+    private int previousLength;
+    private final Map<String, String> interfaceAddresses = new HashMap<>();
+
+    public static synchronized NeighborTable getInstance() {
+        if (instance == null) {
+            instance = new NeighborTable();
+        }
+        return instance;
+    }
+
+    private NeighborTable() {
+        useProc = Files.isReadable(PROC_ARP);
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "neighbor-table");
+            t.setDaemon(true);
+            return t;
+        });
+        if (useProc) {
+            // Cheap enough to have the table filled before the first lookup
+            refresh();
+            timer.scheduleWithFixedDelay(this::refresh, PROC_REFRESH_MS, PROC_REFRESH_MS, TimeUnit.MILLISECONDS);
+        } else {
+            timer.scheduleWithFixedDelay(this::refresh, 0, COMMAND_REFRESH_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** The MAC the IP resolves to, or null if it is not in the table */
+    public String getMac(String ip) {
+        if (ip == null) return null;
+        Neighbor neighbor = byIp.get(ip);
+        return neighbor != null ? neighbor.mac() : null;
+    }
+
+    public Neighbor get(String ip) {
+        return ip != null ? byIp.get(ip) : null;
+    }
+
+    public List<Neighbor> getNeighbors() {
+        return new ArrayList<>(byIp.values());
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /** Entries added, changed or removed since startup */
+    public long getChanges() {
+        return changes.get();
+    }
+
+    /**
+     * Re-read the system table now. Called by the timer; callers that need
+     * the current state, like discovery, may call it too.
+     */
+    public synchronized void refresh() {
+        try {
+            if (useProc) {
+                refreshFromProc();
+            } else {
+                refreshFromCommand();
+            }
+            refreshes.incrementAndGet();
+        } catch (Exception e) {
+            System.out.println("Could not read the ARP table: " + e.getMessage());
+        }
+    }
+
+    private void refreshFromProc() throws IOException {
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(PROC_ARP, StandardOpenOption.READ)) {
+            // /proc files report no size, so read until the end and grow if needed
+            while (channel.read(buffer) >= 0) {
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+        }
+        byte[] bytes = buffer.array();
+        int length = buffer.position();
+        if (length == previousLength && Arrays.equals(bytes, 0, length, previous, 0, length)) {
+            return;
+        }
+        if (previous.length < length) {
+            previous = new byte[bytes.length];
+        }
+        System.arraycopy(bytes, 0, previous, 0, length);
+        previousLength = length;
+
+        // IP address  HW type  Flags  HW address  Mask  Device
+        interfaceAddresses.clear();   // addresses may have changed too
+        Map<String, Neighbor> current = new HashMap<>();
+        String[] lines = new String(bytes, 0, length, StandardCharsets.US_ASCII).split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].trim().split("\\s+");
+            if (fields.length < 6) continue;
+            int flags = Integer.decode(fields[2]);
+            if ((flags & ATF_COM) == 0) continue;    // still resolving, or failed
+            current.put(fields[0], new Neighbor(fields[0], normalizeMac(fields[3]),
+                interfaceAddress(fields[5]), (flags & ATF_PERM) == 0));
+        }
+        apply(current);
+    }
+
+    private void refreshFromCommand() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("arp", "-a").redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        process.waitFor();
+
+        interfaceAddresses.clear();
+        Map<String, Neighbor> current = new HashMap<>();
+        String windowsInterface = null;
+        for (String line : output.split("\r?\n")) {
+            Matcher m = WINDOWS_INTERFACE.matcher(line.trim());
+            if (m.find()) {
+                windowsInterface = m.group(1);
+                continue;
+            }
+            m = WINDOWS_ENTRY.matcher(line);
+            if (windowsInterface != null && m.find()) {
+                current.put(m.group(1), new Neighbor(m.group(1), normalizeMac(m.group(2)), windowsInterface,
+                    m.group(3).equalsIgnoreCase("dynamic")));
+                continue;
+            }
+            m = BSD_ENTRY.matcher(line);
+            if (m.find()) {
+                current.put(m.group(1), new Neighbor(m.group(1), normalizeMac(m.group(2)),
+                    interfaceAddress(m.group(3)), !m.group(4).contains("permanent")));
+            }
+        }
+        apply(current);
+    }
+
+    /** Replace only what changed, so readers never see the table empty */
+    private void apply(Map<String, Neighbor> current) {
+        Set<String> gone = new HashSet<>(byIp.keySet());
+        gone.removeAll(current.keySet());
+        for (String ip : gone) {
+            byIp.remove(ip);
+            changes.incrementAndGet();
+        }
+        for (Neighbor neighbor : current.values()) {
+            if (!neighbor.equals(byIp.put(neighbor.ip(), neighbor))) {
+                changes.incrementAndGet();
+            }
+        }
+    }
+
+    private String interfaceAddress(String name) {
+        return interfaceAddresses.computeIfAbsent(name, n -> {
+            try {
+                NetworkInterface nic = NetworkInterface.getByName(n);
+                if (nic != null) {
+                    Enumeration<InetAddress> addresses = nic.getInetAddresses();
+                    while (addresses.hasMoreElements()) {
+                        InetAddress address = addresses.nextElement();
+                        if (address instanceof Inet4Address) return address.getHostAddress();
+                    }
+                }
+            } catch (IOException e) {
+                // Fall back to the name
+            }
+            return n;
+        });
+    }
+
+    /** aa:bb:cc:dd:ee:ff whatever the platform wrote (aa-bb-..., or 0:1b:... on macOS) */
+    static String normalizeMac(String mac) {
+        String[] parts = mac.split("[:-]");
+        if (parts.length != 6) return mac.toLowerCase();
+        StringBuilder normalized = new StringBuilder(17);
+        for (String part : parts) {
+            if (normalized.length() > 0) normalized.append(':');
+            if (part.length() == 1) normalized.append('0');
+            normalized.append(part.toLowerCase());
+        }
+        return normalized.toString();
+    }
+}
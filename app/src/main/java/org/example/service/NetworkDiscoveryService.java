@@ -1,158 +1,345 @@
 package org.example.service;
 
+import java.net.Inet4Address;
 import java.net.InetAddress;
-import java.net.NetworkInterface;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
-import org.example.app.NetworkMonitorApp;
 import org.example.config.DiscoveredNode;
-import org.example.model.NetworkNode;
+import org.example.model.MonitoredNode;
+import org.example.util.NetworkUtils;
+import org.example.util.Subnet;
 
 public class NetworkDiscoveryService {
+    private static final long ENRICH_DEADLINE_MS = 3_000;
+
     private final ConcurrentHashMap<String, List<DiscoveredNode>> discoveredNodes = new ConcurrentHashMap<>();
+    private final Supplier<? extends Collection<? extends MonitoredNode>> knownNodes;
     private volatile boolean isCancelled = false;
+    private volatile NetworkSweep sweep;
+
+    public NetworkDiscoveryService() {
+        this(Collections::emptyList);
+    }
+
+    /**
+     * @param knownNodes nodes already being monitored; their addresses are left
+     *                   out of the results. Read once per discovery run.
+     */
+    public NetworkDiscoveryService(Supplier<? extends Collection<? extends MonitoredNode>> knownNodes) {
+        this.knownNodes = knownNodes;
+    }
     
     public CompletableFuture<Void> startDiscovery(
             Consumer<Integer> interfaceCountCallback,
             Consumer<String> newInterfaceCallback,
             Consumer<DiscoveredNode> nodeDiscoveredCallback) {
+        return startDiscovery(interfaceCountCallback, newInterfaceCallback, nodeDiscoveredCallback, node -> { });
+    }
+
+    public CompletableFuture<Void> startDiscovery(
+            Consumer<Integer> interfaceCountCallback,
+            Consumer<String> newInterfaceCallback,
+            Consumer<DiscoveredNode> nodeDiscoveredCallback,
+            Consumer<DiscoveredNode> updateCallback) {
+        return startDiscovery(interfaceCountCallback, newInterfaceCallback, nodeDiscoveredCallback, updateCallback,
+            node -> { });
+    }
+
+    /**
+     * Discover in stages, reporting each host the moment it is found. The
+     * neighbor table comes first and is reported within milliseconds, then
+     * the hosts the {@link DiscoveryCache} remembers from earlier runs, as
+     * unconfirmed; then the local subnets are swept and every host that
+     * answers is reported as it answers. Once the sweep is over, every new
+     * host in the neighbor table is reported too, since a host that drops the
+     * probes still answers ARP. A remembered host seen either way is confirmed
+     * and passed to updateCallback; one that is not is dropped from the
+     * results and passed to droppedCallback. A host gets a hostname straight
+     * away only if the PTR cache has one; otherwise its reverse lookup starts
+     * as it is reported, and a name that arrives replaces the node in the
+     * results and is passed to updateCallback. Only confirmed hosts are
+     * published on the event bus. The returned future completes after the sweep, once
+     * the lookups are done or ENRICH_DEADLINE_MS later, so one unanswered
+     * PTR query never holds up the run; late answers still land in the cache
+     * for next time. Callbacks run on discovery and sweep threads.
+     */
+    public CompletableFuture<Void> startDiscovery(
+            Consumer<Integer> interfaceCountCallback,
+            Consumer<String> newInterfaceCallback,
+            Consumer<DiscoveredNode> nodeDiscoveredCallback,
+            Consumer<DiscoveredNode> updateCallback,
+            Consumer<DiscoveredNode> droppedCallback) {
         
         return CompletableFuture.runAsync(() -> {
             try {
                 // Get existing nodes' IPs for filtering
                 Set<String> existingIPs = new HashSet<>();
-                for (NetworkNode node : NetworkMonitorApp.getPersistentNodesStatic()) {
+                for (MonitoredNode node : knownNodes.get()) {
                     if (node.getResolvedIp() != null && !node.getResolvedIp().isEmpty()) {
                         existingIPs.add(node.getResolvedIp());
                     }
                     existingIPs.add(node.getIpOrHostname());
                 }
                 
-                // Get ARP table
-                Process process = Runtime.getRuntime().exec("arp -a");
-                process.waitFor();
-                String output = new String(process.getInputStream().readAllBytes());
-                
-                // Debug print raw ARP output
-                System.out.println("=== Raw ARP Output ===");
-                System.out.println(output);
-                System.out.println("=====================");
-                
-                String[] lines = output.split("\n");
-                String currentInterface = null;
-                List<NetworkInterface> activeInterfaces = new ArrayList<>();
-
-                // First pass - count interfaces
-                int interfaceCount = (int) Arrays.stream(lines)
-                    .filter(line -> line.trim().startsWith("Interface:"))
-                    .count();
-                
+                // Current neighbors, grouped by the interface they were seen on
+                NeighborTable neighborTable = NeighborTable.getInstance();
+                neighborTable.refresh();
+                Map<String, List<NeighborTable.Neighbor>> byInterface = new TreeMap<>();
+                for (NeighborTable.Neighbor neighbor : neighborTable.getNeighbors()) {
+                    byInterface.computeIfAbsent(neighbor.iface(), k -> new ArrayList<>()).add(neighbor);
+                }
+                Map<String, Subnet> subnets = NetworkUtils.getLocalSubnetsByAddress();
+
                 // Update interface count immediately
-                interfaceCountCallback.accept(interfaceCount);
-                System.out.println("Found " + interfaceCount + " interfaces");
-
-                // Rest of the discovery process
-                for (String line : lines) {
-                    if (isCancelled) break;
-                    
-                    line = line.trim();
-                    
-                    // More precise interface detection
-                    if (line.startsWith("Interface:")) {
-                        currentInterface = line.split(":")[1].trim().split("---")[0].trim();
-                        System.out.println("\nFound Interface: " + currentInterface);
-                        
-                        if (!discoveredNodes.containsKey(currentInterface)) {
-                            discoveredNodes.put(currentInterface, new ArrayList<>());
-                            activeInterfaces.add(NetworkInterface.getByInetAddress(
-                                InetAddress.getByName(currentInterface)));
-                            newInterfaceCallback.accept(currentInterface);
-                            System.out.println("Added new interface to tracking");
+                Set<String> interfaces = new HashSet<>(byInterface.keySet());
+                interfaces.addAll(subnets.keySet());
+                interfaceCountCallback.accept(interfaces.size());
+                System.out.println("Found " + interfaces.size() + " interfaces");
+
+                Reporter reporter = new Reporter(nodeDiscoveredCallback, newInterfaceCallback, updateCallback);
+                for (Map.Entry<String, List<NeighborTable.Neighbor>> entry : byInterface.entrySet()) {
+                    for (NeighborTable.Neighbor neighbor : entry.getValue()) {
+                        if (isCancelled) break;
+                        // Check if IP already exists in application
+                        if (existingIPs.contains(neighbor.ip()) || !isCandidate(neighbor)) {
+                            continue;
                         }
-                        continue;
+                        reporter.report(neighbor.ip(), neighbor.mac(), entry.getKey(), true);
                     }
+                }
 
-                    // Skip headers and empty lines
-                    if (line.isEmpty() || line.contains("Internet Address") || currentInterface == null) {
-                        continue;
+                // Hosts seen on earlier runs, unconfirmed until the sweep below hears from them
+                DiscoveryCache cache = DiscoveryCache.getInstance();
+                if (cache != null) {
+                    for (DiscoveryCache.Entry cached : cache.getEntries()) {
+                        if (isCancelled) break;
+                        if (existingIPs.contains(cached.ip()) || subnets.containsKey(cached.ip())) continue;
+                        reporter.report(cached.ip(), cached.mac(), cached.iface(), false);
                     }
+                }
 
-                    String[] parts = line.trim().split("\\s+");
-                    if (parts.length >= 3) {
-                        String ip = parts[0];
-                        String mac = parts[1];
-                        String type = parts[2];
-                        
-                        System.out.println("Checking entry: IP=" + ip + ", MAC=" + mac + ", Type=" + type);
-                        
-                        // Check if IP already exists in application
-                        if (existingIPs.contains(ip)) {
-                            System.out.println("Skipped entry - IP already exists in application");
-                            continue;
+                if (!isCancelled && !subnets.isEmpty()) {
+                    Set<String> skip = new HashSet<>(existingIPs);
+                    skip.addAll(subnets.keySet());   // ourselves
+                    skip.addAll(reporter.confirmed);
+                    List<Subnet> toSweep = new ArrayList<>(new LinkedHashSet<>(subnets.values()));
+                    sweep = new NetworkSweep();
+                    sweep.sweepBatched(toSweep, skip, batch -> {
+                        if (isCancelled) return;
+                        List<ProbeResult> live = new ArrayList<>();
+                        boolean missingMac = false;
+                        for (ProbeResult result : batch) {
+                            if (!result.reachable) continue;
+                            live.add(result);
+                            missingMac |= neighborTable.getMac(result.target) == null;
                         }
-                        
-                        // Only process dynamic entries with valid MAC addresses
-                        // Exclude broadcast and multicast addresses
-                        if (type.equalsIgnoreCase("dynamic") && 
-                            !mac.equals("---") && 
-                            !ip.endsWith(".255") &&
-                            !ip.startsWith("224.") &&
-                            !ip.startsWith("239.") &&
-                            mac.matches("([0-9A-Fa-f]{2}[:-]){5}([0-9A-Fa-f]{2})")) {
-                        
-                            try {
-                                InetAddress address = InetAddress.getByName(ip);
-                                String hostname = address.getCanonicalHostName();
-                                
-                                DiscoveredNode node = new DiscoveredNode(
-                                    ip,
-                                    mac,
-                                    hostname.equals(ip) ? "" : hostname,
-                                    currentInterface
-                                );
-                                
-                                discoveredNodes.get(currentInterface).add(node);
-                                nodeDiscoveredCallback.accept(node);
-                                System.out.println("Added node: " + ip + " to interface " + currentInterface);
-                            } catch (Exception e) {
-                                System.out.println("Failed to process node: " + ip + " - " + e.getMessage());
-                                e.printStackTrace();
+                        // The probes themselves usually just resolved the MACs; one refresh covers the batch
+                        if (missingMac) {
+                            neighborTable.refresh();
+                        }
+                        for (ProbeResult result : live) {
+                            String ip = result.target;
+                            String mac = neighborTable.getMac(ip);
+                            if (mac == null && cache != null) {
+                                mac = cache.getMac(ip);
                             }
-                        } else {
-                            System.out.println("Skipped entry - doesn't meet criteria");
+                            reporter.report(ip, mac != null ? mac : "", interfaceFor(ip, subnets), true);
                         }
+                    }).join();
+
+                    if (!isCancelled) {
+                        // A host that ignores every probe still answered ARP for it, so it is a neighbor now
+                        neighborTable.refresh();
+                        for (NeighborTable.Neighbor neighbor : neighborTable.getNeighbors()) {
+                            if (isCandidate(neighbor) && !existingIPs.contains(neighbor.ip())
+                                    && !reporter.confirmed.contains(neighbor.ip())) {
+                                reporter.report(neighbor.ip(), neighbor.mac(), neighbor.iface(), true);
+                            }
+                        }
+                        reporter.dropUnconfirmed(droppedCallback);
                     }
                 }
 
-                // Print final discovery results
-                System.out.println("\n=== Discovery Results ===");
-                System.out.println("Active Interfaces: " + activeInterfaces.size());
-                discoveredNodes.forEach((iface, nodes) -> {
-                    System.out.println("\nInterface: " + iface);
-                    System.out.println("Nodes found: " + nodes.size());
-                    nodes.forEach(node -> 
-                        System.out.println("  - " + node.ip + " (" + node.mac + ")" + 
-                            (node.hostname.isEmpty() ? "" : " hostname: " + node.hostname))
-                    );
-                });
-                System.out.println("=====================");
-
+                if (!isCancelled) {
+                    reporter.awaitLookups();
+                }
             } catch (Exception e) {
                 System.out.println("Discovery process failed: " + e.getMessage());
                 e.printStackTrace();
             }
+        }).thenRun(this::printResults);
+    }
+
+    /** Our address on the subnet the host is in, as the neighbor table names interfaces */
+    static String interfaceFor(String ip, Map<String, Subnet> subnets) {
+        try {
+            Inet4Address address = (Inet4Address) InetAddress.getByName(ip);
+            for (Map.Entry<String, Subnet> entry : subnets.entrySet()) {
+                if (entry.getValue().contains(address)) return entry.getKey();
+            }
+        } catch (Exception e) {
+            // IP literal from the sweep; cannot fail
+        }
+        return subnets.keySet().iterator().next();
+    }
+
+    /**
+     * Reports one run's hosts, each once, and starts their reverse lookups.
+     * Called from the discovery thread and from the sweep's result thread.
+     */
+    private final class Reporter {
+        private final Consumer<DiscoveredNode> nodeDiscoveredCallback;
+        private final Consumer<String> newInterfaceCallback;
+        private final Consumer<DiscoveredNode> updateCallback;
+        final Set<String> reported = ConcurrentHashMap.newKeySet();
+        final Set<String> confirmed = ConcurrentHashMap.newKeySet();   // seen on the network this run
+        private final ConcurrentHashMap<String, DiscoveredNode> listed = new ConcurrentHashMap<>();   // by IP
+        private final List<CompletableFuture<Void>> lookups = new CopyOnWriteArrayList<>();
+
+        Reporter(Consumer<DiscoveredNode> nodeDiscoveredCallback, Consumer<String> newInterfaceCallback,
+                 Consumer<DiscoveredNode> updateCallback) {
+            this.nodeDiscoveredCallback = nodeDiscoveredCallback;
+            this.newInterfaceCallback = newInterfaceCallback;
+            this.updateCallback = updateCallback;
+        }
+
+        /**
+         * @param seen found on the network this run, rather than only
+         *             remembered by the discovery cache
+         */
+        void report(String ip, String mac, String iface, boolean seen) {
+            DiscoveryCache cache = DiscoveryCache.getInstance();
+            if (seen) {
+                confirmed.add(ip);
+                if (cache != null) cache.record(ip, mac, "", iface);
+            }
+            if (!reported.add(ip)) {
+                if (seen) confirm(ip, mac);
+                return;
+            }
+            ReverseDnsCache ptrCache = ReverseDnsCache.getInstance();
+            String hostname = ptrCache.getIfCached(ip);
+            DiscoveredNode node = new DiscoveredNode(ip, mac, hostname != null ? hostname : "", iface, seen);
+            listed.put(ip, node);
+
+            boolean[] created = new boolean[1];
+            List<DiscoveredNode> nodes = discoveredNodes.computeIfAbsent(iface, k -> {
+                created[0] = true;
+                return new CopyOnWriteArrayList<>();
+            });
+            if (created[0]) newInterfaceCallback.accept(iface);
+            nodes.add(node);
+            nodeDiscoveredCallback.accept(node);
+            if (seen) {
+                EventBus.getInstance().publish(new MonitorEvent.NodeDiscovered(node, System.currentTimeMillis()));
+            }
+
+            if (hostname == null) {
+                lookups.add(ptrCache.lookupAsync(ip).thenAccept(name -> {
+                    if (name.isEmpty()) return;
+                    DiscoveredNode named = replace(ip, n -> new DiscoveredNode(ip, n.mac, name, n.iface, n.confirmed));
+                    if (named == null) return;
+                    if (cache != null && named.confirmed) cache.record(named);
+                    updateCallback.accept(named);
+                }));
+            }
+        }
+
+        boolean isUnconfirmed(String ip) {
+            DiscoveredNode node = listed.get(ip);
+            return node != null && !node.confirmed;
+        }
+
+        /** A remembered host was seen after all */
+        private void confirm(String ip, String mac) {
+            if (!isUnconfirmed(ip)) return;
+            DiscoveredNode node = replace(ip, n -> new DiscoveredNode(ip, mac.isEmpty() ? n.mac : mac, n.hostname,
+                n.iface, true));
+            if (node == null) return;
+            if (!node.hostname.isEmpty() && DiscoveryCache.getInstance() != null) {
+                DiscoveryCache.getInstance().record(node);
+            }
+            updateCallback.accept(node);
+            EventBus.getInstance().publish(new MonitorEvent.NodeDiscovered(node, System.currentTimeMillis()));
+        }
+
+        /** Take the remembered hosts this run never saw out of the results */
+        void dropUnconfirmed(Consumer<DiscoveredNode> droppedCallback) {
+            for (String ip : new ArrayList<>(listed.keySet())) {
+                DiscoveredNode[] dropped = new DiscoveredNode[1];
+                listed.computeIfPresent(ip, (k, n) -> {
+                    if (n.confirmed) return n;
+                    dropped[0] = n;
+                    return null;
+                });
+                if (dropped[0] == null) continue;
+                String iface = dropped[0].iface;
+                List<DiscoveredNode> nodes = discoveredNodes.get(iface);
+                if (nodes != null) nodes.removeIf(n -> n.ip.equals(ip));
+                discoveredNodes.computeIfPresent(iface, (k, list) -> list.isEmpty() ? null : list);
+                droppedCallback.accept(dropped[0]);
+            }
+        }
+
+        /** Swap the listed node for an edited copy; null once it is no longer listed */
+        private DiscoveredNode replace(String ip, UnaryOperator<DiscoveredNode> edit) {
+            DiscoveredNode updated = listed.computeIfPresent(ip, (k, n) -> edit.apply(n));
+            if (updated == null) return null;
+            List<DiscoveredNode> nodes = discoveredNodes.get(updated.iface);
+            if (nodes != null) nodes.replaceAll(n -> n.ip.equals(ip) ? listed.getOrDefault(ip, n) : n);
+            return updated;
+        }
+
+        void awaitLookups() {
+            CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0]))
+                .completeOnTimeout(null, ENRICH_DEADLINE_MS, TimeUnit.MILLISECONDS)
+                .join();
+        }
+    }
+
+    private void printResults() {
+        // Print final discovery results
+        System.out.println("\n=== Discovery Results ===");
+        System.out.println("Active Interfaces: " + discoveredNodes.size());
+        discoveredNodes.forEach((iface, nodes) -> {
+            System.out.println("\nInterface: " + iface);
+            System.out.println("Nodes found: " + nodes.size());
+            nodes.forEach(node -> 
+                System.out.println("  - " + node.ip + " (" + node.mac + ")" + 
+                    (node.hostname.isEmpty() ? "" : " hostname: " + node.hostname))
+            );
         });
+        System.out.println("=====================");
+    }
+
+    /** Only learned entries; exclude broadcast and multicast addresses */
+    static boolean isCandidate(NeighborTable.Neighbor neighbor) {
+        String ip = neighbor.ip();
+        return neighbor.dynamic()
+            && !ip.endsWith(".255")
+            && !ip.startsWith("224.")
+            && !ip.startsWith("239.");
     }
 
     public void cancelDiscovery() {
         isCancelled = true;
+        NetworkSweep running = sweep;
+        if (running != null) running.cancel();
     }
 
     public List<DiscoveredNode> getNodesForInterface(String interfaceName) {
@@ -0,0 +1,224 @@
+package org.example.service;
+
+import java.net.Inet4Address;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.example.util.Subnet;
+
+/**
+ * Sweeps whole IPv4 prefixes with echo probes.
+ *
+ * Every usable address of each subnet is probed once. Echo probes go through
+ * the {@link ProbeCoalescer} and out over the shared ping socket. Where ping
+ * sockets are not available (Windows, among others) an address first gets a
+ * non-blocking TCP connect to SWEEP_PORT, a refused connection counting as a
+ * live host. An address that stays silent, as a host whose firewall drops
+ * SYNs does, then gets an echo request through the coalescer's
+ * InetAddress.isReachable pool; that pool is small, so it sets the pace for
+ * silent addresses. Probes are paced by a token bucket of ratePerSecond with
+ * a burst of a tenth of a second, and at most MAX_IN_FLIGHT wait for an
+ * answer at once. A slow answer is kept as long as it comes
+ * within the timeout.
+ *
+ * Results are handed to the caller on a thread of the sweep's own, in
+ * batches of whatever arrived since the last one, never on the thread that
+ * completed the probe: for the TCP fallback that is the prober's shared
+ * selector thread, which must not wait on the caller's work.
+ */
+public class NetworkSweep {
+    public static final int DEFAULT_RATE = Integer.getInteger("nodemonitor.sweep.rate", 500);
+    public static final int DEFAULT_TIMEOUT_MS = 1000;
+    private static final int MAX_IN_FLIGHT = 512;
+    private static final int SWEEP_PORT = 80;
+
+    private final int ratePerSecond;
+    private final int timeoutMs;
+    private volatile boolean cancelled = false;
+
+    public NetworkSweep() {
+        this(DEFAULT_RATE, DEFAULT_TIMEOUT_MS);
+    }
+
+    public NetworkSweep(int ratePerSecond, int timeoutMs) {
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Probe every host of the subnets except the skipped addresses (usually
+     * our own). Runs on a thread of its own; the future completes with the
+     * responsive addresses once the last probe has answered or timed out and
+     * its result has been handed over.
+     *
+     * @param onResult called for every probe as it completes, on the sweep's result thread
+     */
+    public CompletableFuture<List<String>> sweep(List<Subnet> subnets, Set<String> skip,
+                                                 Consumer<ProbeResult> onResult) {
+        return sweepBatched(subnets, skip, batch -> batch.forEach(onResult));
+    }
+
+    /**
+     * As {@link #sweep}, but hands the results over a batch at a time, so a
+     * caller with per-batch work (refreshing the neighbor table) does it once
+     * for all the hosts that answered meanwhile.
+     */
+    public CompletableFuture<List<String>> sweepBatched(List<Subnet> subnets, Set<String> skip,
+                                                        Consumer<List<ProbeResult>> onBatch) {
+        for (Subnet subnet : subnets) {
+            if (subnet.getPrefixLength() < Subnet.MIN_PREFIX) {
+                throw new IllegalArgumentException(subnet + " is wider than /" + Subnet.MIN_PREFIX);
+            }
+        }
+        Iterable<Inet4Address> hosts = () -> subnets.stream()
+            .flatMap(subnet -> IntStream.range(0, subnet.getHostCount()).mapToObj(subnet::getHost))
+            .iterator();
+        return start(hosts, skip, onBatch);
+    }
+
+    /**
+     * Probe just the given hosts, with the same pacing, e.g. to check that
+     * hosts found earlier are still there.
+     */
+    public CompletableFuture<List<String>> probe(Collection<Inet4Address> hosts, Consumer<ProbeResult> onResult) {
+        return start(new ArrayList<>(hosts), Set.of(), batch -> batch.forEach(onResult));
+    }
+
+    private CompletableFuture<List<String>> start(Iterable<Inet4Address> hosts, Set<String> skip,
+                                                  Consumer<List<ProbeResult>> onBatch) {
+        BlockingQueue<ProbeResult> results = new LinkedBlockingQueue<>();
+        CompletableFuture<List<String>> probed = new CompletableFuture<>();
+        CompletableFuture<List<String>> done = new CompletableFuture<>();
+        Thread dispatcher = new Thread(() -> dispatch(hosts, skip, results, probed), "network-sweep");
+        dispatcher.setDaemon(true);
+        Thread deliverer = new Thread(() -> deliver(results, probed, onBatch, done), "network-sweep-results");
+        deliverer.setDaemon(true);
+        dispatcher.start();
+        deliverer.start();
+        return done;
+    }
+
+    /** Stop sending; probes already out still report */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void dispatch(Iterable<Inet4Address> hosts, Set<String> skip, BlockingQueue<ProbeResult> results,
+                          CompletableFuture<List<String>> done) {
+        List<String> responsive = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        AtomicInteger outstanding = new AtomicInteger(1);   // the dispatcher itself, until it is done sending
+        Runnable finish = () -> {
+            if (outstanding.decrementAndGet() == 0) {
+                synchronized (responsive) {
+                    done.complete(new ArrayList<>(responsive));
+                }
+            }
+        };
+
+        ProbeCoalescer coalescer = ProbeCoalescer.getInstance();
+        boolean echo = coalescer.hasIcmpEngine();
+        TcpConnectProber tcp = TcpConnectProber.getInstance();
+        TokenBucket bucket = new TokenBucket(ratePerSecond);
+        try {
+            for (Inet4Address address : hosts) {
+                if (cancelled) break;
+                String ip = address.getHostAddress();
+                if (skip.contains(ip)) continue;
+
+                bucket.take();
+                inFlight.acquire();
+                outstanding.incrementAndGet();
+                CompletableFuture<ProbeResult> probe = echo || tcp == null
+                    ? coalescer.probeAsync(ip, address, timeoutMs)
+                    : tcp.connect(ip, address, SWEEP_PORT, timeoutMs, true).thenCompose(result -> result.reachable
+                        ? CompletableFuture.completedFuture(result)
+                        : coalescer.probeAsync(ip, address, timeoutMs));
+                // Runs on whatever thread completed the probe, so only queue the result
+                probe.whenComplete((result, error) -> {
+                    inFlight.release();
+                    if (result != null) {
+                        if (result.reachable) {
+                            synchronized (responsive) {
+                                responsive.add(ip);
+                            }
+                        }
+                        results.add(result);
+                    }
+                    finish.run();
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finish.run();
+        }
+    }
+
+    /** Hand queued results to the caller until every probe has answered and been handed over */
+    private void deliver(BlockingQueue<ProbeResult> results, CompletableFuture<List<String>> probed,
+                         Consumer<List<ProbeResult>> onBatch, CompletableFuture<List<String>> done) {
+        try {
+            while (true) {
+                ProbeResult first = results.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // Results are queued before their probe counts as finished
+                    if (probed.isDone() && results.isEmpty()) break;
+                    continue;
+                }
+                List<ProbeResult> batch = new ArrayList<>();
+                batch.add(first);
+                results.drainTo(batch);
+                try {
+                    onBatch.accept(batch);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        done.complete(probed.getNow(List.of()));
+    }
+
+    /**
+     * Refills continuously at rate tokens per second, holding at most a tenth
+     * of a second's worth so an idle moment does not turn into a burst.
+     */
+    private static final class TokenBucket {
+        private final double perNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(int rate) {
+            perNano = rate / 1e9;
+            capacity = Math.max(1, rate / 10.0);
+            tokens = capacity;
+        }
+
+        void take() {
+            while (true) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+                refilledAt = now;
+                if (tokens >= 1) {
+                    tokens--;
+                    return;
+                }
+                LockSupport.parkNanos((long) ((1 - tokens) / perNano));
+            }
+        }
+    }
+}
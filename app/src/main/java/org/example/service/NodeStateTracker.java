@@ -0,0 +1,220 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.example.model.NodeState;
+
+/**
+ * Turns the probe result stream into node events on the {@link EventBus}:
+ * up/down transitions, latency degradation against each node's own
+ * baseline, and routing changes when the topology is replaced.
+ *
+ * Transitions are damped. A node is only declared down after a run of
+ * consecutive failures and up after a run of successes, longer for wireless
+ * links. Every declared transition adds to a flap score, capped at
+ * FLAP_MAX, that halves every FLAP_HALF_LIFE_MS. Once the score passes
+ * FLAP_SUPPRESS the node is flapping: one NodeFlapping event goes out and
+ * its up/down and latency events are held back until the score decays below
+ * FLAP_REUSE, when a NodeStable with the state it settled in is published
+ * instead.
+ *
+ * Results are per target and events are per node, so a result fans out to
+ * every node probing that target. Placeholders for nodes whose upstream is
+ * down are not transitions; the dependency tracker already explains them.
+ */
+public class NodeStateTracker {
+    private static final int FAILURES_TO_DOWN = 2;
+    private static final int SUCCESSES_TO_UP = 1;
+    private static final int WIRELESS_FAILURES_TO_DOWN = 3;
+    private static final int WIRELESS_SUCCESSES_TO_UP = 2;
+    private static final double FLAP_PENALTY = 1000;
+    private static final double FLAP_SUPPRESS = 3000;
+    private static final double FLAP_REUSE = 1000;
+    private static final double FLAP_MAX = 6000;          // so a long flap stays suppressed ~13 min at most
+    private static final long FLAP_HALF_LIFE_MS = 5 * 60_000L;
+
+    private static final int BASELINE_SAMPLES = 10;       // before degradation is judged at all
+    private static final double BASELINE_WEIGHT = 1.0 / 16;
+    private static final double DEGRADED_BASELINE_WEIGHT = 1.0 / 256;
+    private static final double DEGRADED_FACTOR = 2.0;
+    private static final long DEGRADED_MIN_EXCESS_MICROS = 10_000;
+    private static final double RECOVERED_FACTOR = 1.5;
+
+    private static NodeStateTracker instance;
+
+    private final EventBus bus;
+
+    // All state below is guarded by this
+    private Map<Long, Long> parents = new HashMap<>();
+    private Map<String, List<Long>> nodesByTarget = new HashMap<>();
+    private Set<Long> wireless = new HashSet<>();
+    private final Map<Long, NodeRecord> records = new HashMap<>();
+    private Set<DependencyTracker.TrackedNode> topology = new HashSet<>();
+
+    public static synchronized NodeStateTracker getInstance() {
+        if (instance == null) {
+            instance = new NodeStateTracker(EventBus.getInstance());
+        }
+        return instance;
+    }
+
+    public NodeStateTracker(EventBus bus) {
+        this.bus = bus;
+    }
+
+    /**
+     * Replace the routing tree, publishing a RouteChanged for every node
+     * whose parent moved. Cheap when nothing changed.
+     */
+    public void setTopology(Collection<DependencyTracker.TrackedNode> nodes) {
+        List<MonitorEvent> events = new ArrayList<>();
+        synchronized (this) {
+            Set<DependencyTracker.TrackedNode> updated = new HashSet<>(nodes);
+            if (updated.equals(topology)) return;
+            topology = updated;
+
+            long now = System.currentTimeMillis();
+            Map<Long, Long> newParents = new HashMap<>();
+            Map<String, List<Long>> newTargets = new HashMap<>();
+            Set<Long> newWireless = new HashSet<>();
+            Set<Long> ids = new HashSet<>();
+            for (DependencyTracker.TrackedNode node : nodes) {
+                ids.add(node.id);
+                if (node.wireless) newWireless.add(node.id);
+                newParents.put(node.id, node.parentId);
+                if (node.probeable) {
+                    newTargets.computeIfAbsent(node.target, k -> new ArrayList<>()).add(node.id);
+                }
+                if (parents.containsKey(node.id) && !Objects.equals(parents.get(node.id), node.parentId)) {
+                    events.add(new MonitorEvent.RouteChanged(node.id, parents.get(node.id), node.parentId, now));
+                }
+            }
+            parents = newParents;
+            nodesByTarget = newTargets;
+            wireless = newWireless;
+            records.keySet().retainAll(ids);
+        }
+        events.forEach(bus::publish);
+    }
+
+    /**
+     * Take in a scheduled probe result. Called on a probe worker thread.
+     */
+    public void record(ProbeResult result) {
+        if (result.isUpstreamUnreachable()) return;
+        List<MonitorEvent> events = new ArrayList<>(1);
+        synchronized (this) {
+            List<Long> ids = nodesByTarget.get(result.target);
+            if (ids == null) return;
+            for (Long id : ids) {
+                records.computeIfAbsent(id, k -> new NodeRecord())
+                    .update(id, wireless.contains(id), result, events);
+            }
+        }
+        // Outside the lock: a blocking subscriber must not hold up other workers' results
+        events.forEach(bus::publish);
+    }
+
+    /** The node's damped state: what the UI should show and alerts should act on */
+    public synchronized NodeState getState(long nodeId) {
+        NodeRecord record = records.get(nodeId);
+        if (record == null || record.up == null) return NodeState.UNKNOWN;
+        if (record.flapping) return NodeState.FLAPPING;
+        return record.up ? NodeState.UP : NodeState.DOWN;
+    }
+
+    /**
+     * Damped state, flap score and latency baseline of one node.
+     */
+    private static final class NodeRecord {
+        Boolean up;                 // declared state, null until the first result
+        int failures;               // consecutive, while declared up
+        int successes;              // consecutive, while declared down
+        double flapScore;
+        long flapScoreAt;           // when flapScore was last decayed
+        boolean flapping;
+
+        double baselineMicros;
+        int samples;
+        boolean degraded;
+
+        void update(long id, boolean wireless, ProbeResult result, List<MonitorEvent> events) {
+            if (up == null) {
+                // Nothing to confirm against yet
+                up = result.reachable;
+                publish(id, result, events);
+            } else if (up != result.reachable) {
+                int needed = result.reachable
+                    ? (wireless ? WIRELESS_SUCCESSES_TO_UP : SUCCESSES_TO_UP)
+                    : (wireless ? WIRELESS_FAILURES_TO_DOWN : FAILURES_TO_DOWN);
+                int run = result.reachable ? ++successes : ++failures;
+                if (run >= needed) {
+                    up = result.reachable;
+                    successes = 0;
+                    failures = 0;
+                    flapScore = Math.min(FLAP_MAX, decayedScore(result.timestamp) + FLAP_PENALTY);
+                    if (!flapping && flapScore >= FLAP_SUPPRESS) {
+                        flapping = true;
+                        events.add(new MonitorEvent.NodeFlapping(id, result.target, flapScore, result.timestamp));
+                    } else if (!flapping) {
+                        publish(id, result, events);
+                    }
+                }
+            } else {
+                // Agrees with the declared state: any run the other way is broken
+                successes = 0;
+                failures = 0;
+            }
+
+            if (flapping && decayedScore(result.timestamp) < FLAP_REUSE) {
+                flapping = false;
+                events.add(new MonitorEvent.NodeStable(id, result.target, up, result.timestamp));
+            }
+            if (!result.reachable || up != result.reachable) return;
+
+            long rtt = result.latencyMicros;
+            if (samples >= BASELINE_SAMPLES) {
+                if (!degraded && rtt > baselineMicros * DEGRADED_FACTOR
+                        && rtt - baselineMicros > DEGRADED_MIN_EXCESS_MICROS) {
+                    degraded = true;
+                    if (!flapping) {
+                        events.add(new MonitorEvent.LatencyDegraded(id, result.target, rtt,
+                            Math.round(baselineMicros), result.timestamp));
+                    }
+                } else if (degraded && rtt < baselineMicros * RECOVERED_FACTOR) {
+                    degraded = false;
+                    if (!flapping) {
+                        events.add(new MonitorEvent.LatencyRecovered(id, result.target, rtt, result.timestamp));
+                    }
+                }
+            }
+            // While degraded the baseline barely moves, so a slow spell doesn't become the
+            // norm, but a path that really got longer is accepted eventually
+            double weight = degraded ? DEGRADED_BASELINE_WEIGHT : BASELINE_WEIGHT;
+            baselineMicros = samples == 0 ? rtt : baselineMicros + (rtt - baselineMicros) * weight;
+            samples++;
+        }
+
+        private void publish(long id, ProbeResult result, List<MonitorEvent> events) {
+            events.add(result.reachable
+                ? new MonitorEvent.NodeUp(id, result.target, result.latencyMicros, result.timestamp)
+                : new MonitorEvent.NodeDown(id, result.target, result.error, result.timestamp));
+        }
+
+        /** The flap score decayed to the given time, which becomes the new reference */
+        private double decayedScore(long now) {
+            if (flapScoreAt != 0 && now > flapScoreAt) {
+                flapScore *= Math.pow(0.5, (double) (now - flapScoreAt) / FLAP_HALF_LIFE_MS);
+            }
+            flapScoreAt = Math.max(flapScoreAt, now);
+            return flapScore;
+        }
+    }
+}
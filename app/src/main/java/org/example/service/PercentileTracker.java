@@ -0,0 +1,174 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RTT percentiles over the last hour for every node and for every subtree of
+ * the routing tree.
+ *
+ * Each node keeps two windowed sketches: one of its own samples and one of
+ * everything at or below it, where "below" follows routeSwitchId, or
+ * hostNodeId for VMs, the same tree {@link DependencyTracker} uses. A sample
+ * is added to the node's own sketch and to the subtree sketch of the node and
+ * each of its ancestors, so a lookup never has to walk the tree. When the
+ * tree changes, the subtree sketches are rebuilt from the per-node ones.
+ *
+ * A window is twelve 5 minute {@link LatencySketch} slots; the oldest slot is
+ * cleared and reused as time moves on, so memory stays bounded however long
+ * the app runs.
+ */
+public class PercentileTracker {
+    static final int SLOTS = 12;
+    static final long SLOT_MS = 5 * 60_000L;
+
+    private static PercentileTracker instance;
+
+    // All state below is guarded by this
+    private Map<Long, Long> parents = new HashMap<>();
+    private Map<String, List<Long>> nodesByTarget = new HashMap<>();
+    private final Map<Long, WindowedSketch> own = new HashMap<>();
+    private final Map<Long, WindowedSketch> subtree = new HashMap<>();
+    private Set<DependencyTracker.TrackedNode> topology = new HashSet<>();
+
+    public static synchronized PercentileTracker getInstance() {
+        if (instance == null) {
+            instance = new PercentileTracker();
+        }
+        return instance;
+    }
+
+    /**
+     * Replace the routing tree. Cheap to call repeatedly; nothing happens
+     * unless the tree actually changed.
+     */
+    public synchronized void setTopology(Collection<DependencyTracker.TrackedNode> nodes) {
+        Set<DependencyTracker.TrackedNode> updated = new HashSet<>(nodes);
+        if (updated.equals(topology)) return;
+        topology = updated;
+
+        parents = new HashMap<>();
+        nodesByTarget = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        for (DependencyTracker.TrackedNode node : nodes) {
+            ids.add(node.id);
+            if (node.parentId != null) parents.put(node.id, node.parentId);
+            if (node.probeable) {
+                nodesByTarget.computeIfAbsent(node.target, k -> new ArrayList<>()).add(node.id);
+            }
+        }
+        parents.keySet().retainAll(ids);
+        parents.values().retainAll(ids);
+        own.keySet().retainAll(ids);
+
+        // Subtrees: every node's own samples, added to itself and its ancestors
+        subtree.clear();
+        for (Map.Entry<Long, WindowedSketch> entry : own.entrySet()) {
+            for (Long id : selfAndAncestors(entry.getKey())) {
+                subtree.computeIfAbsent(id, k -> new WindowedSketch()).mergeFrom(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Add a probe result. Only successful probes carry an RTT worth counting.
+     */
+    public synchronized void record(ProbeResult result) {
+        if (!result.reachable) return;
+        List<Long> ids = nodesByTarget.get(result.target);
+        if (ids == null) return;
+        for (Long nodeId : ids) {
+            own.computeIfAbsent(nodeId, k -> new WindowedSketch())
+                .add(result.timestamp, result.latencyMicros);
+            for (Long id : selfAndAncestors(nodeId)) {
+                subtree.computeIfAbsent(id, k -> new WindowedSketch())
+                    .add(result.timestamp, result.latencyMicros);
+            }
+        }
+    }
+
+    /** The node's own samples over the last hour; empty if there are none */
+    public synchronized LatencySketch getNodeSketch(long nodeId) {
+        return snapshot(own.get(nodeId));
+    }
+
+    /** Samples of the node and everything routed through it over the last hour */
+    public synchronized LatencySketch getSubtreeSketch(long nodeId) {
+        return snapshot(subtree.get(nodeId));
+    }
+
+    /**
+     * "p50 1.2 / p95 3.4 / p99 8.9 ms", or null if there are no samples.
+     */
+    public static String format(LatencySketch sketch) {
+        if (sketch.isEmpty()) return null;
+        return String.format("p50 %.1f / p95 %.1f / p99 %.1f ms",
+            sketch.quantile(0.50) / 1000, sketch.quantile(0.95) / 1000, sketch.quantile(0.99) / 1000);
+    }
+
+    private LatencySketch snapshot(WindowedSketch window) {
+        LatencySketch merged = new LatencySketch();
+        if (window != null) {
+            window.mergeInto(merged, System.currentTimeMillis() / SLOT_MS);
+        }
+        return merged;
+    }
+
+    private List<Long> selfAndAncestors(long id) {
+        List<Long> chain = new ArrayList<>();
+        Long current = id;
+        // Bounded by the node count in case a bad routing setting forms a loop
+        while (current != null && chain.size() <= parents.size() && !chain.contains(current)) {
+            chain.add(current);
+            current = parents.get(current);
+        }
+        return chain;
+    }
+
+    /**
+     * Ring of per-slot sketches; slot i holds samples whose time / SLOT_MS
+     * is epochs[i].
+     */
+    private static final class WindowedSketch {
+        final LatencySketch[] slots = new LatencySketch[SLOTS];
+        final long[] epochs = new long[SLOTS];
+
+        void add(long timestampMs, long latencyMicros) {
+            LatencySketch slot = slotFor(timestampMs / SLOT_MS);
+            if (slot != null) slot.add(latencyMicros);
+        }
+
+        void mergeFrom(WindowedSketch other) {
+            for (int i = 0; i < SLOTS; i++) {
+                LatencySketch slot = other.slots[i] != null ? slotFor(other.epochs[i]) : null;
+                if (slot != null) slot.merge(other.slots[i]);
+            }
+        }
+
+        void mergeInto(LatencySketch target, long currentEpoch) {
+            for (int i = 0; i < SLOTS; i++) {
+                if (slots[i] != null && epochs[i] > currentEpoch - SLOTS) {
+                    target.merge(slots[i]);
+                }
+            }
+        }
+
+        /** The slot for an epoch, or null if the epoch has already left the window */
+        private LatencySketch slotFor(long epoch) {
+            int i = (int) Math.floorMod(epoch, (long) SLOTS);
+            if (slots[i] == null) {
+                slots[i] = new LatencySketch();
+            } else if (epochs[i] != epoch) {
+                if (epochs[i] > epoch) return null;
+                slots[i].clear();
+            }
+            epochs[i] = epoch;
+            return slots[i];
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.example.model.PortState;
+import org.example.util.PortSet;
+
+/**
+ * TCP connect port scans, any number at once, on one Selector thread.
+ *
+ * Every port is a non-blocking SocketChannel connect. At most maxInFlight
+ * connects are outstanding in total and at most maxPerHost against any one
+ * address, however many scans of it run at once; scans take turns starting connects, so a big scan does not starve
+ * a small one. A completed handshake is OPEN, a refusal CLOSED and silence
+ * past the timeout FILTERED.
+ *
+ * The timeout adapts to each target the way TCP's retransmission timer does
+ * (RFC 6298): every answer, a refusal as much as a handshake, is an RTT
+ * sample, and the timeout is the smoothed RTT plus four deviations, clamped
+ * to MIN_TIMEOUT_MS..MAX_TIMEOUT_MS. Until the first sample it is the RTT
+ * hint given with the scan (e.g. the node's probe latency) or
+ * INITIAL_TIMEOUT_MS without one. Connects already out are judged by the
+ * current timeout, so a LAN host's filtered ports stop costing a second each
+ * as soon as its closed ones have answered.
+ */
+public class PortScanner {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+    public static final int DEFAULT_MAX_PER_HOST = 256;
+    static final long INITIAL_TIMEOUT_MS = 1000;
+    static final long MIN_TIMEOUT_MS = 50;      // a busy host can be slow to answer a SYN
+    static final long MAX_TIMEOUT_MS = 3000;
+
+    private static PortScanner instance;
+    private static boolean initAttempted = false;
+
+    /**
+     * One port's outcome.
+     *
+     * @param rttMicros connect to answer; 0 when FILTERED
+     */
+    public record PortResult(String target, int port, PortState state, long rttMicros) { }
+
+    private final int maxInFlight;
+    private final int maxPerHost;
+    private final Selector selector;
+    private volatile boolean running = true;
+
+    // Handed over from callers to the selector thread
+    private final ConcurrentLinkedQueue<Scan> incoming = new ConcurrentLinkedQueue<>();
+    // Only touched by the selector thread
+    private final List<Scan> active = new ArrayList<>();
+    private final Map<InetAddress, Integer> perHost = new HashMap<>();   // outstanding connects, over all scans
+    private int inFlight;
+
+    /**
+     * Returns the shared scanner, or null if no selector could be opened.
+     */
+    public static synchronized PortScanner getInstance() {
+        if (!initAttempted) {
+            initAttempted = true;
+            try {
+                instance = new PortScanner(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_PER_HOST);
+            } catch (IOException e) {
+                System.out.println("Port scanner unavailable: " + e.getMessage());
+                instance = null;
+            }
+        }
+        return instance;
+    }
+
+    public PortScanner(int maxInFlight, int maxPerHost) throws IOException {
+        this.maxInFlight = maxInFlight;
+        this.maxPerHost = maxPerHost;
+        selector = Selector.open();
+        Thread selectorThread = new Thread(this::selectLoop, "port-scanner");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Start scanning. onResult gets every port as it is decided, on the
+     * selector thread, so it must only hand the result on. The scan's future
+     * completes with the open ports, in port order.
+     *
+     * @param rttHintMicros expected round trip to the target, or 0 if unknown
+     */
+    public Scan scan(String target, InetAddress address, PortSet ports, long rttHintMicros,
+                     Consumer<PortResult> onResult) {
+        Scan scan = new Scan(selector, target, address, ports.toArray(), rttHintMicros, onResult);
+        if (!running) {
+            scan.future.complete(List.of());
+            return scan;
+        }
+        incoming.add(scan);
+        selector.wakeup();
+        return scan;
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                Scan scan;
+                while ((scan = incoming.poll()) != null) {
+                    active.add(scan);
+                }
+                startConnects();
+                // Before waiting: a scan cancelled before it got here is over already
+                expireAndFinish();
+
+                long waitMs = 0; // 0 = block until woken
+                long now = System.nanoTime();
+                for (Scan s : active) {
+                    Attempt oldest = s.oldest();
+                    if (oldest != null) {
+                        long due = Math.max(1, (oldest.startNanos + s.timeoutNanos() - now + 999_999) / 1_000_000);
+                        waitMs = waitMs == 0 ? due : Math.min(waitMs, due);
+                    }
+                }
+                selector.select(waitMs);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    finishConnect((Attempt) key.attachment());
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            running = false;
+            for (Scan scan : active) {
+                scan.cancelled = true;
+            }
+            expireAndFinish();
+            Scan scan;
+            while ((scan = incoming.poll()) != null) {
+                scan.future.complete(List.of());
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /** Round robin over the scans, one connect each per turn, up to the caps */
+    private void startConnects() {
+        boolean started = true;
+        while (started && inFlight < maxInFlight) {
+            started = false;
+            for (Scan scan : active) {
+                if (inFlight >= maxInFlight) break;
+                if (scan.cancelled || scan.next >= scan.ports.length
+                        || perHost.getOrDefault(scan.address, 0) >= maxPerHost) continue;
+                connect(scan, scan.ports[scan.next++]);
+                started = true;
+            }
+        }
+    }
+
+    private void connect(Scan scan, int port) {
+        Attempt attempt = new Attempt(scan, port);
+        scan.running++;
+        perHost.merge(scan.address, 1, Integer::sum);
+        inFlight++;
+        try {
+            SocketChannel channel = SocketChannel.open();
+            attempt.channel = channel;
+            channel.configureBlocking(false);
+            attempt.startNanos = System.nanoTime();
+            scan.outstanding.add(attempt);
+            if (channel.connect(new InetSocketAddress(scan.address, port))) {
+                // Loopback connects can complete immediately
+                complete(attempt, PortState.OPEN);
+                return;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+        } catch (ConnectException e) {
+            complete(attempt, PortState.CLOSED);
+        } catch (IOException e) {
+            complete(attempt, PortState.FILTERED);
+        }
+    }
+
+    private void finishConnect(Attempt attempt) {
+        if (attempt.done) return;
+        try {
+            complete(attempt, attempt.channel.finishConnect() ? PortState.OPEN : PortState.FILTERED);
+        } catch (ConnectException e) {
+            complete(attempt, PortState.CLOSED);
+        } catch (IOException e) {
+            // No route, host unreachable: nothing answered on the port itself
+            complete(attempt, PortState.FILTERED);
+        }
+    }
+
+    private void expireAndFinish() {
+        long now = System.nanoTime();
+        Iterator<Scan> it = active.iterator();
+        while (it.hasNext()) {
+            Scan scan = it.next();
+            Attempt oldest;
+            while ((oldest = scan.oldest()) != null
+                    && (scan.cancelled || now - oldest.startNanos >= scan.timeoutNanos())) {
+                complete(oldest, PortState.FILTERED);
+            }
+            if (scan.running == 0 && (scan.cancelled || scan.next >= scan.ports.length)) {
+                it.remove();
+                scan.open.sort(Comparator.comparingInt(PortResult::port));
+                scan.future.complete(List.copyOf(scan.open));
+            }
+        }
+    }
+
+    private void complete(Attempt attempt, PortState state) {
+        if (attempt.done) return;
+        attempt.done = true;
+        Scan scan = attempt.scan;
+        scan.running--;
+        perHost.computeIfPresent(scan.address, (address, n) -> n > 1 ? n - 1 : null);
+        inFlight--;
+        if (attempt.channel != null) {
+            try {
+                attempt.channel.close(); // also cancels the selection key
+            } catch (IOException ignored) {}
+        }
+        long rttMicros = 0;
+        if (state != PortState.FILTERED) {
+            rttMicros = (System.nanoTime() - attempt.startNanos) / 1000;
+            scan.sample(rttMicros);
+        }
+        if (scan.cancelled && state == PortState.FILTERED) return;   // not decided, just abandoned
+        PortResult result = new PortResult(scan.target, attempt.port, state, rttMicros);
+        if (state == PortState.OPEN) scan.open.add(result);
+        scan.completed.incrementAndGet();
+        try {
+            scan.onResult.accept(result);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A running scan of one target: progress for the caller, and the state
+     * the selector thread works from.
+     */
+    public static final class Scan {
+        private final Selector selector;
+        private final String target;
+        private final InetAddress address;
+        private final int[] ports;
+        private final Consumer<PortResult> onResult;
+        private final CompletableFuture<List<PortResult>> future = new CompletableFuture<>();
+        private final AtomicInteger completed = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        // Selector thread only
+        private int next;
+        private int running;
+        private final ArrayDeque<Attempt> outstanding = new ArrayDeque<>();   // in start order
+        private final List<PortResult> open = new ArrayList<>();
+        private double srttMicros;
+        private double rttvarMicros;
+
+        private Scan(Selector selector, String target, InetAddress address, int[] ports, long rttHintMicros,
+                     Consumer<PortResult> onResult) {
+            this.selector = selector;
+            this.target = target;
+            this.address = address;
+            this.ports = ports;
+            this.onResult = onResult;
+            if (rttHintMicros > 0) {
+                srttMicros = rttHintMicros;
+                rttvarMicros = rttHintMicros / 2.0;
+            }
+        }
+
+        /** Open ports once the scan is over, in port order */
+        public CompletableFuture<List<PortResult>> getFuture() {
+            return future;
+        }
+
+        /** Stop starting connects; those already out are abandoned */
+        public void cancel() {
+            cancelled = true;
+            selector.wakeup();
+        }
+
+        public int getTotal() {
+            return ports.length;
+        }
+
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        /** The oldest connect still waiting, dropping finished ones off the front */
+        private Attempt oldest() {
+            while (!outstanding.isEmpty() && outstanding.peekFirst().done) {
+                outstanding.pollFirst();
+            }
+            return outstanding.peekFirst();
+        }
+
+        private void sample(long rttMicros) {
+            if (srttMicros == 0) {
+                srttMicros = rttMicros;
+                rttvarMicros = rttMicros / 2.0;
+            } else {
+                rttvarMicros = 0.75 * rttvarMicros + 0.25 * Math.abs(srttMicros - rttMicros);
+                srttMicros = 0.875 * srttMicros + 0.125 * rttMicros;
+            }
+        }
+
+        private long timeoutNanos() {
+            long ms = srttMicros == 0 ? INITIAL_TIMEOUT_MS
+                : Math.round((srttMicros + 4 * rttvarMicros) / 1000);
+            return Math.max(MIN_TIMEOUT_MS, Math.min(MAX_TIMEOUT_MS, ms)) * 1_000_000L;
+        }
+    }
+
+    private static final class Attempt {
+        final Scan scan;
+        final int port;
+        SocketChannel channel;
+        long startNanos;
+        boolean done = false;
+
+        Attempt(Scan scan, int port) {
+            this.scan = scan;
+            this.port = port;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.service;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.config.ProbeSettings;
+import org.example.model.ProbeType;
+
+/**
+ * Single-flight layer in front of the actual reachability check.
+ *
+ * Requests are keyed by resolved address and probe type, so "localhost" and
+ * "127.0.0.1" share one probe. While a probe is in flight every other caller waits on the same
+ * result, and a completed result is reused for a short freshness window.
+ * A failure only stands for callers that would have given up as soon: one
+ * from a 500 ms sweep probe says nothing about a 2000 ms line probe, so such
+ * a caller neither gets it from the cache nor joins the shorter probe.
+ *
+ * TCP probes go to the {@link TcpConnectProber}. ICMP probes to IPv4 targets
+ * go through the native {@link IcmpEchoEngine} when it is available;
+ * everything else falls back to InetAddress.isReachable on a small bounded pool.
+ */
+public class ProbeCoalescer {
+    private static final long FRESHNESS_MS = 1000;
+    private static final int PRUNE_THRESHOLD = 4096;
+    private static final int FALLBACK_WORKERS = 16;
+
+    private static ProbeCoalescer instance;
+
+    private final ConcurrentHashMap<ProbeKey, Pending> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ProbeKey, Pending> recent = new ConcurrentHashMap<>();
+
+    private final AtomicLong probesSent = new AtomicLong();
+    private final AtomicLong probesShared = new AtomicLong();
+
+    private final ExecutorService fallbackPool;
+    private IcmpEchoEngine icmpEngine;
+    private boolean icmpChecked = false;
+
+    public static synchronized ProbeCoalescer getInstance() {
+        if (instance == null) {
+            instance = new ProbeCoalescer();
+        }
+        return instance;
+    }
+
+    private ProbeCoalescer() {
+        AtomicInteger ids = new AtomicInteger(1);
+        fallbackPool = Executors.newFixedThreadPool(FALLBACK_WORKERS, r -> {
+            Thread t = new Thread(r, "probe-fallback-" + ids.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Resolve the target and probe it, sharing the result with concurrent callers.
+     * Blocks until the shared probe completes.
+     */
+    public ProbeResult probe(String target, int timeoutMs) {
+        return probeAsync(target, timeoutMs).join();
+    }
+
+    /**
+     * Resolve the target through the {@link ResolverCache}, then probe it asynchronously.
+     */
+    public CompletableFuture<ProbeResult> probeAsync(String target, int timeoutMs) {
+        return probeAsync(target, ProbeSettings.icmp(), timeoutMs);
+    }
+
+    /**
+     * Resolve the target through the {@link ResolverCache}, then probe it
+     * asynchronously the way the settings ask for.
+     */
+    public CompletableFuture<ProbeResult> probeAsync(String target, ProbeSettings settings, int timeoutMs) {
+        return probeAsync(target, settings, timeoutMs, FRESHNESS_MS);
+    }
+
+    /**
+     * As above, but only reuse a completed result if it is at most maxAgeMs old.
+     * Used for confirmation re-checks that must not be answered from the cache.
+     */
+    public CompletableFuture<ProbeResult> probeAsync(String target, ProbeSettings settings,
+                                                     int timeoutMs, long maxAgeMs) {
+        // A cached name continues inline; only a cold one waits for the resolver
+        return ResolverCache.getInstance().resolveAsync(target)
+            .thenCompose(address -> probeAsync(target, address, settings, timeoutMs, maxAgeMs))
+            .exceptionally(e -> ProbeResult.failed(target,
+                (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).getMessage()));
+    }
+
+    /**
+     * Probe an already resolved address, joining any probe already in flight for it.
+     */
+    public CompletableFuture<ProbeResult> probeAsync(String target, InetAddress address, int timeoutMs) {
+        return probeAsync(target, address, ProbeSettings.icmp(), timeoutMs);
+    }
+
+    public CompletableFuture<ProbeResult> probeAsync(String target, InetAddress address,
+                                                     ProbeSettings settings, int timeoutMs) {
+        return probeAsync(target, address, settings, timeoutMs, FRESHNESS_MS);
+    }
+
+    private CompletableFuture<ProbeResult> probeAsync(String target, InetAddress address,
+                                                      ProbeSettings settings, int timeoutMs, long maxAgeMs) {
+        ProbeKey key = new ProbeKey(address, settings.getProbeType(), settings.isTcp() ? settings.getPort() : 0);
+        Pending cached = recent.get(key);
+        if (cached != null && cached.answers(timeoutMs)) {
+            ProbeResult result = cached.future.join();
+            if (System.currentTimeMillis() - result.timestamp <= Math.min(maxAgeMs, FRESHNESS_MS)) {
+                probesShared.incrementAndGet();
+                return CompletableFuture.completedFuture(withTarget(result, target));
+            }
+        }
+
+        Pending owned = new Pending(new CompletableFuture<>(), timeoutMs);
+        while (true) {
+            Pending shared = inFlight.putIfAbsent(key, owned);
+            if (shared == null) break;
+            if (shared.timeoutMs >= timeoutMs) {
+                probesShared.incrementAndGet();
+                return shared.future.thenApply(r -> withTarget(r, target));
+            }
+            // The probe out there gives up sooner than this caller would; send our
+            // own, and let callers that wait as long join it rather than the shorter one
+            if (inFlight.replace(key, shared, owned)) break;
+        }
+
+        // This caller owns the probe
+        probesSent.incrementAndGet();
+        startProbe(target, key, timeoutMs).whenComplete((result, error) -> {
+            // Never leave waiters hanging, even if the probe blew up
+            ProbeResult outcome = result != null ? result
+                : new ProbeResult(target, address, false, 0, System.currentTimeMillis(), String.valueOf(error));
+            owned.future.complete(outcome);
+            recent.put(key, owned);
+            if (recent.size() > PRUNE_THRESHOLD) {
+                pruneStale();
+            }
+            inFlight.remove(key, owned);
+        });
+        return owned.future;
+    }
+
+    /** True when ICMP probes go out over the native echo engine rather than InetAddress.isReachable */
+    public boolean hasIcmpEngine() {
+        return icmpEngine() != null;
+    }
+
+    public long getProbesSent() {
+        return probesSent.get();
+    }
+
+    public long getProbesShared() {
+        return probesShared.get();
+    }
+
+    private CompletableFuture<ProbeResult> startProbe(String target, ProbeKey key, int timeoutMs) {
+        InetAddress address = key.address();
+        if (key.type() == ProbeType.TCP_CONNECT) {
+            TcpConnectProber prober = TcpConnectProber.getInstance();
+            if (prober == null) {
+                return CompletableFuture.completedFuture(
+                    new ProbeResult(target, address, false, 0, System.currentTimeMillis(), "TCP prober unavailable"));
+            }
+            // Node probes ask whether the host is up; a reset from a stopped service says it is
+            return prober.connect(target, address, key.port(), timeoutMs, true);
+        }
+
+        IcmpEchoEngine engine = address instanceof Inet4Address ? icmpEngine() : null;
+        if (engine != null) {
+            return engine.ping(target, (Inet4Address) address, timeoutMs);
+        }
+        return CompletableFuture.supplyAsync(() -> isReachable(target, address, timeoutMs), fallbackPool);
+    }
+
+    private synchronized IcmpEchoEngine icmpEngine() {
+        if (!icmpChecked) {
+            icmpChecked = true;
+            try {
+                icmpEngine = IcmpEchoEngine.getInstance();
+            } catch (LinkageError e) {
+                // Engine classes need --enable-preview on JDK 21
+                System.out.println("ICMP echo engine not loadable, using InetAddress.isReachable: " + e);
+                icmpEngine = null;
+            }
+        }
+        return icmpEngine;
+    }
+
+    private ProbeResult isReachable(String target, InetAddress address, int timeoutMs) {
+        try {
+            long start = System.nanoTime();
+            boolean reachable = address.isReachable(timeoutMs);
+            long elapsedMicros = (System.nanoTime() - start) / 1000;
+            return new ProbeResult(target, address, reachable, elapsedMicros,
+                System.currentTimeMillis(), null);
+        } catch (Exception e) {
+            return new ProbeResult(target, address, false, 0, System.currentTimeMillis(), e.getMessage());
+        }
+    }
+
+    private void pruneStale() {
+        long cutoff = System.currentTimeMillis() - FRESHNESS_MS;
+        recent.values().removeIf(p -> p.future.join().timestamp < cutoff);
+    }
+
+    private record ProbeKey(InetAddress address, ProbeType type, int port) { }
+
+    /** A probe and the timeout it was sent with */
+    private record Pending(CompletableFuture<ProbeResult> future, int timeoutMs) {
+        /** Whether this (completed) probe's result holds for a caller willing to wait timeoutMs */
+        boolean answers(int callerTimeoutMs) {
+            return future.join().reachable || callerTimeoutMs <= timeoutMs;
+        }
+    }
+
+    private static ProbeResult withTarget(ProbeResult result, String target) {
+        if (result.target.equals(target)) return result;
+        return new ProbeResult(target, result.address, result.reachable, result.latencyMicros,
+            result.timestamp, result.error);
+    }
+}
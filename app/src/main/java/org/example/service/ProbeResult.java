@@ -0,0 +1,60 @@
+package org.example.service;
+
+import java.net.InetAddress;
+
+import org.example.model.ProbeStatus;
+
+/**
+ * Outcome of a single reachability probe against one target.
+ */
+public class ProbeResult {
+    public final String target;
+    public final InetAddress address;   // null if the target could not be resolved
+    public final boolean reachable;
+    public final long latencyMicros;
+    public final long timestamp;        // wall clock time the probe completed
+    public final String error;          // null unless the probe itself failed
+    public final ProbeStatus status;
+
+    public ProbeResult(String target, InetAddress address, boolean reachable,
+                       long latencyMicros, long timestamp, String error) {
+        this(target, address, reachable, latencyMicros, timestamp, error,
+            reachable ? ProbeStatus.UP : error != null ? ProbeStatus.ERROR : ProbeStatus.DOWN);
+    }
+
+    private ProbeResult(String target, InetAddress address, boolean reachable,
+                        long latencyMicros, long timestamp, String error, ProbeStatus status) {
+        this.target        = target;
+        this.address       = address;
+        this.reachable     = reachable;
+        this.latencyMicros = latencyMicros;
+        this.timestamp     = timestamp;
+        this.error         = error;
+        this.status        = status;
+    }
+
+    public static ProbeResult failed(String target, String error) {
+        return new ProbeResult(target, null, false, 0, System.currentTimeMillis(), error);
+    }
+
+    /**
+     * Placeholder result for a target whose probes are paused because a node
+     * it depends on is down. Not an actual probe.
+     */
+    public static ProbeResult upstreamUnreachable(String target) {
+        return new ProbeResult(target, null, false, 0, System.currentTimeMillis(), null,
+            ProbeStatus.UPSTREAM_UNREACHABLE);
+    }
+
+    public long getLatencyMs() {
+        return latencyMicros / 1000;
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+
+    public boolean isUpstreamUnreachable() {
+        return status == ProbeStatus.UPSTREAM_UNREACHABLE;
+    }
+}
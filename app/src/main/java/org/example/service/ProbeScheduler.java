@@ -0,0 +1,473 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.example.config.ProbeSettings;
+
+/**
+ * Central scheduler for reachability probes.
+ *
+ * Every target is kept once in a due-time queue no matter how many components
+ * subscribe to it. A single dispatcher thread hands due targets to a bounded
+ * worker pool, so the number of probe threads stays fixed regardless of the
+ * size of the map.
+ *
+ * Intervals adapt to each target's history (see {@link ProbeSettings}): after
+ * a state change the target is re-checked quickly until the change has been
+ * seen CONFIRM_PROBES times in a row, after which the interval grows while it
+ * stays up and backs off exponentially while it stays down.
+ *
+ * Targets can be suspended (see {@link DependencyTracker}): a suspended target
+ * is not probed at all and its subscribers get a placeholder result instead,
+ * until it is resumed.
+ */
+public class ProbeScheduler {
+    public static final int DEFAULT_TIMEOUT_MS = 2000;
+    private static final int DEFAULT_WORKERS = 16;
+    private static final int CONFIRM_PROBES = 2;
+
+    private static ProbeScheduler instance;
+
+    private final Map<String, ScheduledTarget> targets = new HashMap<>();
+    private final Map<String, ProbeResult> suspended = new HashMap<>(); // target -> placeholder
+    private final PriorityQueue<ScheduledTarget> dueQueue =
+        new PriorityQueue<>(Comparator.comparingLong((ScheduledTarget t) -> t.nextDue));
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition scheduleChanged = lock.newCondition();
+
+    private final ThreadPoolExecutor workers;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final AtomicLong probesDispatched = new AtomicLong();
+    private final List<Consumer<ProbeResult>> resultListeners = new CopyOnWriteArrayList<>();
+
+    public static synchronized ProbeScheduler getInstance() {
+        if (instance == null) {
+            instance = new ProbeScheduler(DEFAULT_WORKERS);
+        }
+        return instance;
+    }
+
+    public ProbeScheduler(int workerCount) {
+        AtomicInteger workerIds = new AtomicInteger(1);
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "probe-worker-" + workerIds.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+
+        dispatcher = new Thread(this::dispatchLoop, "probe-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Subscribe to periodic probe results for a target. The first probe is
+     * scheduled immediately. Listeners are called on a probe worker thread.
+     * Subscribers asking for the same target and the same kind of probe share
+     * one schedule entry, which runs at the most frequent of their intervals.
+     */
+    public Subscription subscribe(String target, ProbeSettings settings, Consumer<ProbeResult> listener) {
+        settings = settings.copy(); // callers may edit theirs later
+        String key = target + "|" + settings.getProbeKey();
+        Subscription subscription = new Subscription(key, target, settings, listener);
+
+        ProbeResult last = null;
+        lock.lock();
+        try {
+            ScheduledTarget scheduled = targets.get(key);
+            if (scheduled == null) {
+                scheduled = new ScheduledTarget(target, settings);
+                scheduled.nextDue = System.currentTimeMillis();
+                targets.put(key, scheduled);
+                if (suspended.containsKey(target)) {
+                    scheduled.suspended = true;
+                    last = suspended.get(target);
+                } else {
+                    dueQueue.add(scheduled);
+                }
+            } else if (scheduled.suspended) {
+                last = suspended.get(target);
+            } else {
+                // A backed-off target may not be due for a while; hand the newcomer
+                // the latest result instead of making it wait
+                last = scheduled.lastResult;
+            }
+            scheduled.subscriptions.add(subscription);
+            scheduled.mergeIntervals();
+            if (!scheduled.suspended && scheduled.exceedsLimits() && dueQueue.remove(scheduled)) {
+                // A stricter subscriber arrived; pull the stretched interval back in
+                scheduled.lastIntervalMs = scheduled.baseIntervalMs;
+                scheduled.nextDue = Math.min(scheduled.nextDue,
+                    System.currentTimeMillis() + scheduled.baseIntervalMs);
+                dueQueue.add(scheduled);
+            }
+            scheduleChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (last != null) {
+            ProbeResult result = last;
+            workers.execute(() -> {
+                if (!subscription.cancelled) subscription.listener.accept(result);
+            });
+        }
+        return subscription;
+    }
+
+    /**
+     * Listen to every scheduled result for every target, including upstream
+     * placeholders. Called on a probe worker thread; keep it cheap.
+     */
+    public void addResultListener(Consumer<ProbeResult> listener) {
+        resultListeners.add(listener);
+    }
+
+    public void removeResultListener(Consumer<ProbeResult> listener) {
+        resultListeners.remove(listener);
+    }
+
+    /**
+     * Run a one-off probe outside the periodic schedule.
+     */
+    public CompletableFuture<ProbeResult> probeNow(String target, int timeoutMs) {
+        return probeNow(target, ProbeSettings.icmp(), timeoutMs);
+    }
+
+    public CompletableFuture<ProbeResult> probeNow(String target, ProbeSettings settings, int timeoutMs) {
+        return CompletableFuture.supplyAsync(
+                () -> ProbeCoalescer.getInstance().probeAsync(target, settings, timeoutMs), workers)
+            .thenCompose(probe -> probe);
+    }
+
+    /**
+     * Stop probing a target until {@link #resumeTarget} is called. Every
+     * subscriber for the target, whatever its probe type, gets the placeholder
+     * result once now and again on subscribing while the target is suspended.
+     */
+    public void suspendTarget(String target, ProbeResult placeholder) {
+        List<ScheduledTarget> affected = new ArrayList<>();
+        lock.lock();
+        try {
+            if (suspended.put(target, placeholder) != null) return;
+            for (ScheduledTarget scheduled : targets.values()) {
+                if (scheduled.target.equals(target)) {
+                    scheduled.suspended = true;
+                    dueQueue.remove(scheduled);
+                    affected.add(scheduled);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (ScheduledTarget scheduled : affected) {
+            workers.execute(() -> notifySubscribers(scheduled, placeholder));
+        }
+    }
+
+    /**
+     * Resume a suspended target. It is probed right away and its interval
+     * starts over, since whatever it last showed is out of date.
+     */
+    public void resumeTarget(String target) {
+        lock.lock();
+        try {
+            if (suspended.remove(target) == null) return;
+            long now = System.currentTimeMillis();
+            for (ScheduledTarget scheduled : targets.values()) {
+                if (scheduled.target.equals(target) && scheduled.suspended) {
+                    scheduled.suspended = false;
+                    scheduled.resetAdaptiveState();
+                    if (!scheduled.probing) {
+                        // Otherwise the probe in flight re-queues it when it completes
+                        scheduled.nextDue = now;
+                        dueQueue.add(scheduled);
+                    }
+                }
+            }
+            scheduleChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isSuspended(String target) {
+        lock.lock();
+        try {
+            return suspended.containsKey(target);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTargetCount() {
+        lock.lock();
+        try {
+            return targets.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Total scheduled probes handed to workers since startup */
+    public long getProbesDispatched() {
+        return probesDispatched.get();
+    }
+
+    /** Number of due probes waiting for a free worker */
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        lock.lock();
+        try {
+            ScheduledTarget scheduled = targets.get(subscription.key);
+            if (scheduled == null) return;
+
+            scheduled.subscriptions.remove(subscription);
+            if (scheduled.subscriptions.isEmpty()) {
+                // Lazily dropped by the dispatcher when it reaches the head of the queue
+                scheduled.removed = true;
+                targets.remove(subscription.key);
+            } else {
+                scheduled.mergeIntervals();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            ScheduledTarget next;
+            lock.lock();
+            try {
+                next = dueQueue.peek();
+                if (next == null) {
+                    scheduleChanged.await();
+                    continue;
+                }
+                long wait = next.nextDue - System.currentTimeMillis();
+                if (wait > 0) {
+                    scheduleChanged.await(wait, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                dueQueue.poll();
+                if (next.removed || next.suspended) continue;
+                next.probing = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            ScheduledTarget due = next;
+            probesDispatched.incrementAndGet();
+            workers.execute(() -> runScheduledProbe(due));
+        }
+    }
+
+    private void runScheduledProbe(ScheduledTarget scheduled) {
+        // Resolution happens here; the probe itself completes asynchronously and
+        // listeners are handed back to the worker pool, not the ICMP receiver
+        // A result shared from the coalescer must be younger than the interval itself,
+        // otherwise a fast re-check would just see the result it is meant to confirm
+        long maxAgeMs = scheduled.lastIntervalMs / 2;
+        ProbeCoalescer.getInstance().probeAsync(scheduled.target, scheduled.settings, DEFAULT_TIMEOUT_MS, maxAgeMs)
+            .whenCompleteAsync((result, error) -> {
+                deliver(scheduled, result != null ? result
+                    : ProbeResult.failed(scheduled.target, String.valueOf(error)));
+            }, workers);
+    }
+
+    private void deliver(ScheduledTarget scheduled, ProbeResult result) {
+        lock.lock();
+        try {
+            if (scheduled.suspended) {
+                // Suspended while this probe was in flight: the placeholder stands
+                scheduled.probing = false;
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        notifySubscribers(scheduled, result);
+
+        lock.lock();
+        try {
+            scheduled.probing = false;
+            scheduled.lastResult = result;
+            if (!scheduled.removed && !scheduled.suspended) {
+                scheduled.nextDue = System.currentTimeMillis() + scheduled.nextInterval(result.reachable);
+                dueQueue.add(scheduled);
+                scheduleChanged.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notifySubscribers(ScheduledTarget scheduled, ProbeResult result) {
+        for (Consumer<ProbeResult> listener : resultListeners) {
+            try {
+                listener.accept(result);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        for (Subscription subscription : scheduled.subscriptions) {
+            if (subscription.cancelled) continue;
+            try {
+                subscription.listener.accept(result);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static class ScheduledTarget {
+        final String target;
+        final ProbeSettings settings;
+        final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        long nextDue;
+        boolean removed = false;
+        boolean suspended = false;
+        boolean probing = false;  // handed to a worker, not in the due queue
+
+        // Effective limits: the most frequent across all subscribers
+        long fastRecheckMs;
+        long baseIntervalMs;
+        long maxUpIntervalMs;
+        long maxDownIntervalMs;
+
+        // Adaptive state, guarded by the scheduler lock
+        Boolean lastUp;          // null until the first result
+        int confirmRemaining;
+        long lastIntervalMs;
+        ProbeResult lastResult;
+
+        ScheduledTarget(String target, ProbeSettings settings) {
+            this.target = target;
+            this.settings = settings;
+        }
+
+        void mergeIntervals() {
+            fastRecheckMs = Long.MAX_VALUE;
+            baseIntervalMs = Long.MAX_VALUE;
+            maxUpIntervalMs = Long.MAX_VALUE;
+            maxDownIntervalMs = Long.MAX_VALUE;
+            for (Subscription s : subscriptions) {
+                fastRecheckMs = Math.min(fastRecheckMs, s.settings.getFastRecheckMs());
+                baseIntervalMs = Math.min(baseIntervalMs, s.settings.getBaseIntervalMs());
+                maxUpIntervalMs = Math.min(maxUpIntervalMs, s.settings.getMaxUpIntervalMs());
+                maxDownIntervalMs = Math.min(maxDownIntervalMs, s.settings.getMaxDownIntervalMs());
+            }
+        }
+
+        void resetAdaptiveState() {
+            lastUp = null;
+            confirmRemaining = 0;
+            lastIntervalMs = 0;
+            lastResult = null;
+        }
+
+        /** Returns true if the current interval is longer than the merged limits now allow */
+        boolean exceedsLimits() {
+            long cap = Boolean.FALSE.equals(lastUp) ? maxDownIntervalMs : maxUpIntervalMs;
+            return lastIntervalMs > cap;
+        }
+
+        /**
+         * Work out the delay until the next probe from the result just seen.
+         */
+        long nextInterval(boolean up) {
+            if (lastUp == null) {
+                // First result, nothing to confirm
+                lastUp = up;
+                lastIntervalMs = baseIntervalMs;
+            } else if (up != lastUp) {
+                // State change: re-check quickly until it has been seen CONFIRM_PROBES times
+                lastUp = up;
+                confirmRemaining = CONFIRM_PROBES - 1;
+                lastIntervalMs = fastRecheckMs;
+            } else if (confirmRemaining > 0) {
+                confirmRemaining--;
+                lastIntervalMs = fastRecheckMs;
+            } else if (lastIntervalMs < baseIntervalMs) {
+                // Change confirmed, start the stable phase from the base interval
+                lastIntervalMs = baseIntervalMs;
+            } else if (up) {
+                lastIntervalMs = Math.min(maxUpIntervalMs, lastIntervalMs + lastIntervalMs / 2);
+            } else {
+                lastIntervalMs = Math.min(maxDownIntervalMs, lastIntervalMs * 2);
+            }
+            return lastIntervalMs;
+        }
+    }
+
+    /**
+     * Handle returned by {@link #subscribe}; cancel it when the consumer goes away.
+     */
+    public class Subscription {
+        private final String key;
+        private final String target;
+        private final ProbeSettings settings;
+        private final Consumer<ProbeResult> listener;
+        private volatile boolean cancelled = false;
+
+        private Subscription(String key, String target, ProbeSettings settings,
+                             Consumer<ProbeResult> listener) {
+            this.key = key;
+            this.target = target;
+            this.settings = settings;
+            this.listener = listener;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public ProbeSettings getSettings() {
+            return settings;
+        }
+
+        /** True if this subscription already probes the given target with the same settings */
+        public boolean matches(String target, ProbeSettings settings) {
+            return this.target.equals(target) && this.settings.sameAs(settings);
+        }
+
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package org.example.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared hostname resolution with positive and negative caching.
+ *
+ * A hostname is looked up at most once at a time no matter how many callers
+ * ask for it, on virtual threads with a cap on concurrent lookups. Successful
+ * lookups are kept for the positive TTL and failures for the shorter negative
+ * TTL. Once an answer is 80% through its TTL the next hit refreshes it in the
+ * background, and an expired answer is still served for a grace period while
+ * that refresh runs, so a node that resolved once never makes a probe wait on
+ * DNS again. The cache holds at most maxEntries names and evicts the least
+ * recently used.
+ *
+ * The JDK resolver does not expose record TTLs, so the TTLs are fixed and can
+ * be set with the nodemonitor.dns.ttlMs and nodemonitor.dns.negativeTtlMs
+ * system properties. IP literals are parsed without a lookup.
+ */
+public class ResolverCache {
+    public static final long DEFAULT_TTL_MS = 60_000;
+    public static final long DEFAULT_NEGATIVE_TTL_MS = 10_000;
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long STALE_GRACE_MS = 5 * 60_000L;
+    private static final double REFRESH_AT = 0.8;
+    private static final int MAX_CONCURRENT_LOOKUPS = 32;
+
+    private static ResolverCache instance;
+
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final Map<String, Entry> entries;   // access ordered, guarded by itself
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService lookups = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore lookupPermits = new Semaphore(MAX_CONCURRENT_LOOKUPS);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong lookupsStarted = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public static synchronized ResolverCache getInstance() {
+        if (instance == null) {
+            instance = new ResolverCache(
+                Long.getLong("nodemonitor.dns.ttlMs", DEFAULT_TTL_MS),
+                Long.getLong("nodemonitor.dns.negativeTtlMs", DEFAULT_NEGATIVE_TTL_MS),
+                DEFAULT_MAX_ENTRIES);
+        }
+        return instance;
+    }
+
+    public ResolverCache(long ttlMs, long negativeTtlMs, int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Resolve a hostname, blocking only if it has never been resolved (or its
+     * answer is long expired). Throws like InetAddress.getByName on failure.
+     */
+    public InetAddress resolve(String host) throws UnknownHostException {
+        try {
+            return resolveAsync(host).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UnknownHostException) {
+                throw (UnknownHostException) e.getCause();
+            }
+            throw new UnknownHostException(host + ": " + e.getCause());
+        }
+    }
+
+    /**
+     * Resolve a hostname. The future is already complete when the answer is
+     * cached; otherwise it completes on a resolver thread, exceptionally with
+     * an UnknownHostException if the name does not resolve.
+     */
+    public CompletableFuture<InetAddress> resolveAsync(String host) {
+        if (isLiteral(host)) {
+            try {
+                return CompletableFuture.completedFuture(InetAddress.getByName(host));
+            } catch (UnknownHostException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(host);
+        }
+        if (entry != null) {
+            if (now < entry.expiresAt) {
+                hits.incrementAndGet();
+                if (now >= entry.refreshAt) {
+                    refreshAhead(host);
+                }
+                return entry.toFuture(host);
+            }
+            if (entry.address != null && now < entry.expiresAt + STALE_GRACE_MS) {
+                hits.incrementAndGet();
+                if (now >= entry.refreshAt) {
+                    refreshAhead(host);
+                }
+                return entry.toFuture(host);
+            }
+        }
+
+        misses.incrementAndGet();
+        return lookup(host).thenCompose(e -> e.toFuture(host));
+    }
+
+    /**
+     * Resolve many hostnames at once, e.g. a whole map at load time. Each
+     * distinct name is looked up once, no more than the global limit at a
+     * time. The future completes with every name that resolved, as soon as all
+     * are done or when the deadline passes, whichever comes first; lookups
+     * still running then go on to fill the cache.
+     */
+    public CompletableFuture<Map<String, InetAddress>> resolveAll(Collection<String> hosts, long timeoutMs) {
+        Map<String, InetAddress> resolved = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (String host : new LinkedHashSet<>(hosts)) {
+            pending.add(resolveAsync(host)
+                .thenAccept(address -> resolved.put(host, address))
+                .exceptionally(e -> null));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+            .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+            .thenApply(done -> new HashMap<>(resolved));
+    }
+
+    /** The cached address if there is a usable one, without ever looking it up */
+    public InetAddress getIfCached(String host) {
+        synchronized (entries) {
+            Entry entry = entries.get(host);
+            if (entry == null || entry.address == null
+                    || System.currentTimeMillis() >= entry.expiresAt + STALE_GRACE_MS) {
+                return null;
+            }
+            return entry.address;
+        }
+    }
+
+    public void invalidate(String host) {
+        synchronized (entries) {
+            entries.remove(host);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Lookups actually sent to the system resolver */
+    public long getLookups() {
+        return lookupsStarted.get();
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private void refreshAhead(String host) {
+        if (inFlight.containsKey(host)) return;
+        refreshes.incrementAndGet();
+        lookup(host);
+    }
+
+    /** Single-flight: every concurrent caller for a host shares one lookup */
+    private CompletableFuture<Entry> lookup(String host) {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> shared = inFlight.putIfAbsent(host, mine);
+        if (shared != null) return shared;
+
+        lookupsStarted.incrementAndGet();
+        lookups.execute(() -> {
+            Entry entry = null;
+            try {
+                lookupPermits.acquire();
+                try {
+                    InetAddress address = InetAddress.getByName(host);
+                    long now = System.currentTimeMillis();
+                    entry = new Entry(address, null, now + (long) (ttlMs * REFRESH_AT), now + ttlMs);
+                } finally {
+                    lookupPermits.release();
+                }
+            } catch (UnknownHostException e) {
+                long now = System.currentTimeMillis();
+                entry = new Entry(null, e.getMessage(), now + negativeTtlMs, now + negativeTtlMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entry = new Entry(null, "lookup interrupted", 0, 0);
+            } catch (Exception e) {
+                long now = System.currentTimeMillis();
+                entry = new Entry(null, String.valueOf(e), now + negativeTtlMs, now + negativeTtlMs);
+            } finally {
+                if (entry == null) entry = new Entry(null, "lookup failed", 0, 0);
+                entry = store(host, entry);
+                inFlight.remove(host, mine);
+                mine.complete(entry);
+            }
+        });
+        return mine;
+    }
+
+    /**
+     * Cache a lookup's answer and return the entry to hand to callers. A
+     * failed refresh keeps the address still being served: one transient DNS
+     * failure should not turn every probe of a resolved node into an error.
+     * The retry then waits out the negative TTL instead of every call.
+     */
+    private Entry store(String host, Entry answer) {
+        synchronized (entries) {
+            Entry old = entries.get(host);
+            long now = System.currentTimeMillis();
+            if (answer.address == null && old != null && old.address != null
+                    && now < old.expiresAt + STALE_GRACE_MS) {
+                Entry kept = new Entry(old.address, null, now + negativeTtlMs, old.expiresAt);
+                entries.put(host, kept);
+                return kept;
+            }
+            entries.put(host, answer);
+            return answer;
+        }
+    }
+
+    private static boolean isLiteral(String host) {
+        return host.indexOf(':') >= 0 || host.matches("\\d+\\.\\d+\\.\\d+\\.\\d+");
+    }
+
+    /**
+     * One cached answer; address is null for a failed lookup.
+     */
+    private static final class Entry {
+        final InetAddress address;
+        final String error;
+        final long refreshAt;
+        final long expiresAt;
+
+        Entry(InetAddress address, String error, long refreshAt, long expiresAt) {
+            this.address = address;
+            this.error = error;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+
+        CompletableFuture<InetAddress> toFuture(String host) {
+            return address != null ? CompletableFuture.completedFuture(address)
+                : CompletableFuture.failedFuture(new UnknownHostException(error != null ? error : host));
+        }
+    }
+}
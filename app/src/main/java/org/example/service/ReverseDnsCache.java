@@ -0,0 +1,166 @@
+package org.example.service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Reverse (PTR) lookups for discovery, cached across runs.
+ *
+ * The counterpart of {@link ResolverCache} for addresses: each address is
+ * looked up at most once at a time, on virtual threads with a cap on
+ * concurrent lookups, and the answer is kept for the TTL. An address with no
+ * PTR record is cached too, as an empty hostname, for the shorter negative
+ * TTL; on most LANs that is the common case and also the slow one, since the
+ * resolver only gives up after its own timeout. Because a lookup that misses
+ * a caller's deadline still completes into the cache, the next discovery run
+ * gets the name for free.
+ *
+ * TTLs can be set with the nodemonitor.ptr.ttlMs and
+ * nodemonitor.ptr.negativeTtlMs system properties.
+ */
+public class ReverseDnsCache {
+    public static final long DEFAULT_TTL_MS = 60 * 60_000L;           // PTR records rarely change
+    public static final long DEFAULT_NEGATIVE_TTL_MS = 5 * 60_000L;
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final int MAX_CONCURRENT_LOOKUPS = 16;
+
+    private static ReverseDnsCache instance;
+
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final Map<String, Entry> entries;   // access ordered, guarded by itself
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService lookups = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore lookupPermits = new Semaphore(MAX_CONCURRENT_LOOKUPS);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong lookupsStarted = new AtomicLong();
+
+    public static synchronized ReverseDnsCache getInstance() {
+        if (instance == null) {
+            instance = new ReverseDnsCache(
+                Long.getLong("nodemonitor.ptr.ttlMs", DEFAULT_TTL_MS),
+                Long.getLong("nodemonitor.ptr.negativeTtlMs", DEFAULT_NEGATIVE_TTL_MS),
+                DEFAULT_MAX_ENTRIES);
+        }
+        return instance;
+    }
+
+    public ReverseDnsCache(long ttlMs, long negativeTtlMs, int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** The cached hostname ("" for none), or null if the address needs a lookup */
+    public String getIfCached(String ip) {
+        synchronized (entries) {
+            Entry entry = entries.get(ip);
+            return entry != null && System.currentTimeMillis() < entry.expiresAt ? entry.hostname : null;
+        }
+    }
+
+    /**
+     * The hostname of an address, or "" if it has none. Already complete when
+     * cached; otherwise completes on a resolver thread. Never fails.
+     */
+    public CompletableFuture<String> lookupAsync(String ip) {
+        String cached = getIfCached(ip);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        return lookup(ip);
+    }
+
+    /**
+     * Look up many addresses at once. The future completes with every address
+     * that has a hostname, as soon as all lookups are done or when the
+     * deadline passes, whichever comes first. onHostname is called for each
+     * hostname as it arrives (on a resolver thread, or right away if cached).
+     */
+    public CompletableFuture<Map<String, String>> lookupAll(Collection<String> ips, long timeoutMs,
+                                                            BiConsumer<String, String> onHostname) {
+        Map<String, String> found = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (String ip : new LinkedHashSet<>(ips)) {
+            pending.add(lookupAsync(ip).thenAccept(hostname -> {
+                if (hostname.isEmpty()) return;
+                found.put(ip, hostname);
+                onHostname.accept(ip, hostname);
+            }));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+            .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+            .thenApply(done -> new HashMap<>(found));
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** Lookups actually sent to the system resolver */
+    public long getLookups() {
+        return lookupsStarted.get();
+    }
+
+    /** Single-flight: every concurrent caller for an address shares one lookup */
+    private CompletableFuture<String> lookup(String ip) {
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> shared = inFlight.putIfAbsent(ip, mine);
+        if (shared != null) return shared;
+
+        lookupsStarted.incrementAndGet();
+        lookups.execute(() -> {
+            String hostname = "";
+            try {
+                lookupPermits.acquire();
+                try {
+                    String canonical = InetAddress.getByName(ip).getCanonicalHostName();
+                    // The JDK hands the address back when there is no PTR record
+                    if (!canonical.equals(ip)) hostname = canonical;
+                } finally {
+                    lookupPermits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // No name; cached as such
+            }
+            long now = System.currentTimeMillis();
+            synchronized (entries) {
+                entries.put(ip, new Entry(hostname, now + (hostname.isEmpty() ? negativeTtlMs : ttlMs)));
+            }
+            inFlight.remove(ip, mine);
+            mine.complete(hostname);
+        });
+        return mine;
+    }
+
+    private record Entry(String hostname, long expiresAt) { }
+}
@@ -0,0 +1,148 @@
+package org.example.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.example.model.ProbeStatus;
+
+/**
+ * Aggregate of the probe results for one target over one time bucket.
+ *
+ * Count is every result that says something about the target; results
+ * reported as unreachable (upstream) are left out, the same as for
+ * availability. Min, max, mean and the sketch only cover successful probes.
+ */
+public class Rollup {
+    private final long startMs;
+    private final long durationMs;
+    private long count = 0;
+    private long lost = 0;
+    private long minMicros = Long.MAX_VALUE;
+    private long maxMicros = 0;
+    private long sumMicros = 0;
+    private final LatencySketch sketch;
+
+    public Rollup(long startMs, long durationMs) {
+        this(startMs, durationMs, new LatencySketch());
+    }
+
+    private Rollup(long startMs, long durationMs, LatencySketch sketch) {
+        this.startMs = startMs;
+        this.durationMs = durationMs;
+        this.sketch = sketch;
+    }
+
+    public void add(ProbeStatus status, long latencyMicros) {
+        if (status == ProbeStatus.UPSTREAM_UNREACHABLE) return;
+        count++;
+        if (status != ProbeStatus.UP) {
+            lost++;
+            return;
+        }
+        minMicros = Math.min(minMicros, latencyMicros);
+        maxMicros = Math.max(maxMicros, latencyMicros);
+        sumMicros += latencyMicros;
+        sketch.add(latencyMicros);
+    }
+
+    public void merge(Rollup other) {
+        count += other.count;
+        lost += other.lost;
+        minMicros = Math.min(minMicros, other.minMicros);
+        maxMicros = Math.max(maxMicros, other.maxMicros);
+        sumMicros += other.sumMicros;
+        sketch.merge(other.sketch);
+    }
+
+    public Rollup copy() {
+        return copyAs(startMs, durationMs);
+    }
+
+    /** A copy of the aggregates under a different time span */
+    public Rollup copyAs(long startMs, long durationMs) {
+        Rollup copy = new Rollup(startMs, durationMs);
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getStartMs() {
+        return startMs;
+    }
+
+    public long getEndMs() {
+        return startMs + durationMs;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getLost() {
+        return lost;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Fraction of results that were up; NaN if there were none */
+    public double getAvailability() {
+        return count == 0 ? Double.NaN : (double) (count - lost) / count;
+    }
+
+    public double getLossRatio() {
+        return count == 0 ? Double.NaN : (double) lost / count;
+    }
+
+    /** Smallest RTT in microseconds, or -1 if nothing was up */
+    public long getMinMicros() {
+        return count > lost ? minMicros : -1;
+    }
+
+    /** Largest RTT in microseconds, or -1 if nothing was up */
+    public long getMaxMicros() {
+        return count > lost ? maxMicros : -1;
+    }
+
+    public double getMeanMicros() {
+        return count > lost ? (double) sumMicros / (count - lost) : Double.NaN;
+    }
+
+    /** Estimated RTT at quantile q in microseconds; NaN if nothing was up */
+    public double getQuantileMicros(double q) {
+        return sketch.quantile(q);
+    }
+
+    public LatencySketch getSketch() {
+        return sketch;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(startMs);
+        out.writeLong(durationMs);
+        out.writeLong(count);
+        out.writeLong(lost);
+        out.writeLong(minMicros);
+        out.writeLong(maxMicros);
+        out.writeLong(sumMicros);
+        sketch.writeTo(out);
+    }
+
+    static Rollup readFrom(DataInput in) throws IOException {
+        long start = in.readLong();
+        long duration = in.readLong();
+        long count = in.readLong();
+        long lost = in.readLong();
+        long min = in.readLong();
+        long max = in.readLong();
+        long sum = in.readLong();
+        Rollup rollup = new Rollup(start, duration, LatencySketch.readFrom(in));
+        rollup.count = count;
+        rollup.lost = lost;
+        rollup.minMicros = min;
+        rollup.maxMicros = max;
+        rollup.sumMicros = sum;
+        return rollup;
+    }
+}
@@ -0,0 +1,511 @@
+package org.example.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.model.RollupTier;
+
+/**
+ * Downsamples probe results into 1 minute, 15 minute and 1 hour rollups as
+ * they arrive.
+ *
+ * Every target has one open bucket per tier. Raw results are added to the
+ * open minute; when a minute closes it is merged into the open quarter hour,
+ * and a closed quarter hour into the open hour, so nothing is ever rescanned.
+ * Buckets close when a later result arrives or, for targets that went quiet,
+ * on the next flush after the bucket ended.
+ *
+ * Closed rollups are appended to per-tier segment files in the rollups
+ * directory and the most recent ones are also kept in memory, which covers
+ * the queries the UI makes without touching the disk. The hourly ones are
+ * loaded back from disk when the engine opens, so a 30 day summary never
+ * has to scan the segment files. Each tier has its own retention, enforced
+ * by deleting whole segment files.
+ */
+public class RollupEngine {
+    private static final long FLUSH_INTERVAL_MS = 10_000;
+    private static final long CLOSE_GRACE_MS = 5_000;   // let stragglers land first
+
+    // Closed rollups kept in memory per target: 2 h of minutes, a day of
+    // quarter hours, 31 days of hours. nodemonitor.rollups.recentLimit caps
+    // all three for large headless deployments; older data is read from disk.
+    private static final int RECENT_CAP = Integer.getInteger("nodemonitor.rollups.recentLimit", Integer.MAX_VALUE);
+    private static final Map<RollupTier, Integer> RECENT_LIMITS = new EnumMap<>(RollupTier.class) {{
+        put(RollupTier.ONE_MINUTE, Math.min(120, RECENT_CAP));
+        put(RollupTier.FIFTEEN_MINUTES, Math.min(96, RECENT_CAP));
+        put(RollupTier.ONE_HOUR, Math.min(31 * 24, RECENT_CAP));
+    }};
+
+    private static RollupEngine instance;
+
+    private final Path directory;
+    private final Map<String, TargetRollups> targets = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<ClosedRollup> unwritten = new ConcurrentLinkedQueue<>();
+    private final Map<RollupTier, SegmentWriter> writers = new EnumMap<>(RollupTier.class); // flusher only
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicLong rollupsWritten = new AtomicLong();
+    private long lastRetention = 0;
+    // Once the hourly rollups are loaded from disk, memory holds every hour from here on
+    private volatile long hourlyLoadedFromMs = Long.MAX_VALUE;
+
+    /**
+     * Open (or create) the shared engine in the given directory. Call once at startup.
+     */
+    public static synchronized RollupEngine open(Path directory) throws IOException {
+        if (instance == null) {
+            instance = new RollupEngine(directory);
+        }
+        return instance;
+    }
+
+    /** The engine opened with {@link #open}, or null if it was never opened or failed to open */
+    public static synchronized RollupEngine getInstance() {
+        return instance;
+    }
+
+    public RollupEngine(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rollup-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.execute(this::loadRecentHours);
+        flusher.scheduleWithFixedDelay(() -> flush(System.currentTimeMillis()),
+            FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Add a probe result to the target's open buckets. Safe to call from any probe thread.
+     */
+    public void record(ProbeResult result) {
+        TargetRollups rollups = targets.computeIfAbsent(result.target, TargetRollups::new);
+        synchronized (rollups) {
+            Rollup minute = rollups.openFor(RollupTier.ONE_MINUTE, result.timestamp, this);
+            minute.add(result.status, result.latencyMicros);
+        }
+    }
+
+    /**
+     * Pick the tier to answer a query with: the coarsest one whose buckets are
+     * no wider than the requested resolution, moved up to a coarser tier if
+     * that one has already dropped data from the start of the range.
+     */
+    public static RollupTier tierFor(long fromMs, long resolutionMs, long nowMs) {
+        RollupTier chosen = RollupTier.ONE_MINUTE;
+        for (RollupTier tier : RollupTier.values()) {
+            if (tier.getBucketMs() <= resolutionMs) {
+                chosen = tier;
+            }
+        }
+        while (chosen.coarser() != null && fromMs < nowMs - chosen.getRetentionMs()) {
+            chosen = chosen.coarser();
+        }
+        return chosen;
+    }
+
+    /**
+     * Rollups for a target overlapping [fromMs, toMs], oldest first, from the
+     * tier chosen by {@link #tierFor}. The last one may still be open.
+     */
+    public List<Rollup> query(String target, long fromMs, long toMs, long resolutionMs) {
+        return query(target, tierFor(fromMs, resolutionMs, System.currentTimeMillis()), fromMs, toMs);
+    }
+
+    public List<Rollup> query(String target, RollupTier tier, long fromMs, long toMs) {
+        TreeMap<Long, Rollup> byStart = new TreeMap<>();
+        List<Rollup> recent = new ArrayList<>();
+        List<Rollup> open = new ArrayList<>();
+        boolean memoryCovers = false;
+
+        TargetRollups rollups = targets.get(target);
+        if (rollups != null) {
+            synchronized (rollups) {
+                ArrayDeque<Rollup> closed = rollups.recent.get(tier);
+                for (Rollup rollup : closed) {
+                    if (overlaps(rollup, fromMs, toMs)) recent.add(rollup.copy());
+                }
+                for (Rollup rollup : rollups.snapshotOpen(tier)) {
+                    if (overlaps(rollup, fromMs, toMs)) open.add(rollup);
+                }
+                Rollup oldest = !closed.isEmpty() ? closed.peekFirst() : rollups.open.get(tier);
+                memoryCovers = oldest != null && oldest.getStartMs() <= fromMs;
+            }
+        }
+        if (tier == RollupTier.ONE_HOUR && fromMs >= hourlyLoadedFromMs
+                && fromMs >= System.currentTimeMillis() - (RECENT_LIMITS.get(tier) - 1) * tier.getBucketMs()) {
+            // Every hour since then is in memory; a target with none has no data
+            memoryCovers = true;
+        }
+
+        if (!memoryCovers) {
+            readSegments(target, tier, fromMs, toMs, byStart);
+        }
+        for (Rollup rollup : recent) {
+            byStart.putIfAbsent(rollup.getStartMs(), rollup);
+        }
+        for (Rollup rollup : open) {
+            // A bucket that was open at the last shutdown is on disk as a partial
+            byStart.merge(rollup.getStartMs(), rollup, (a, b) -> { a.merge(b); return a; });
+        }
+        return new ArrayList<>(byStart.values());
+    }
+
+    /**
+     * Everything in [fromMs, toMs] merged into one rollup; empty if there is
+     * no data.
+     */
+    public Rollup summarize(String target, long fromMs, long toMs, long resolutionMs) {
+        Rollup total = new Rollup(fromMs, toMs - fromMs);
+        for (Rollup rollup : query(target, fromMs, toMs, resolutionMs)) {
+            total.merge(rollup);
+        }
+        return total;
+    }
+
+    public void remove(String target) {
+        targets.remove(target);
+    }
+
+    public long getRollupsWritten() {
+        return rollupsWritten.get();
+    }
+
+    public int getTargetCount() {
+        return targets.size();
+    }
+
+    /**
+     * Write out everything still open, partial buckets included, and stop.
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (TargetRollups rollups : targets.values()) {
+            synchronized (rollups) {
+                // Finest first so each partial also lands in the tiers above it
+                for (RollupTier tier : RollupTier.values()) {
+                    rollups.close(tier, this);
+                }
+            }
+        }
+        writeUnwritten();
+        for (SegmentWriter writer : writers.values()) {
+            writer.close();
+        }
+        writers.clear();
+    }
+
+    /**
+     * Close buckets that ended a while ago and write closed rollups to disk.
+     */
+    void flush(long nowMs) {
+        try {
+            for (TargetRollups rollups : targets.values()) {
+                synchronized (rollups) {
+                    // Finest first, so a closing minute lands in its quarter
+                    // hour before that is checked
+                    for (RollupTier tier : RollupTier.values()) {
+                        Rollup open = rollups.open.get(tier);
+                        if (open != null && nowMs >= open.getEndMs() + CLOSE_GRACE_MS) {
+                            rollups.close(tier, this);
+                        }
+                    }
+                }
+            }
+            writeUnwritten();
+            if (nowMs - lastRetention > 3600_000L) {
+                lastRetention = nowMs;
+                enforceRetention(nowMs);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Delete segment files that ended before their tier's retention window.
+     * Runs on the flusher, which owns the segment writers.
+     */
+    private void enforceRetention(long nowMs) {
+        for (RollupTier tier : RollupTier.values()) {
+            long cutoff = nowMs - tier.getRetentionMs();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, tier.getLabel() + "-*.dat")) {
+                for (Path file : files) {
+                    long start = segmentStartOf(file, tier);
+                    if (start >= 0 && start + tier.getSegmentMs() <= cutoff) {
+                        SegmentWriter writer = writers.get(tier);
+                        if (writer != null && writer.segmentStart == start) {
+                            writers.remove(tier).close();
+                        }
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Fill the in-memory hourly rollups from the segment files, in one pass.
+     * Runs on the flusher before its first flush.
+     */
+    private void loadRecentHours() {
+        long now = System.currentTimeMillis();
+        int limit = RECENT_LIMITS.get(RollupTier.ONE_HOUR);
+        // Older than this could have been pushed out by newer hours anyway
+        long fromMs = now - (limit - 1) * RollupTier.ONE_HOUR.getBucketMs();
+        fromMs -= Math.floorMod(fromMs, RollupTier.ONE_HOUR.getBucketMs());
+        Map<String, TreeMap<Long, Rollup>> loaded = new HashMap<>();
+        try {
+            readSegmentsByTarget(null, RollupTier.ONE_HOUR, fromMs, now, loaded);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
+        for (Map.Entry<String, TreeMap<Long, Rollup>> entry : loaded.entrySet()) {
+            TargetRollups rollups = targets.computeIfAbsent(entry.getKey(), TargetRollups::new);
+            synchronized (rollups) {
+                TreeMap<Long, Rollup> byStart = entry.getValue();
+                ArrayDeque<Rollup> kept = rollups.recent.get(RollupTier.ONE_HOUR);
+                // Hours closed since startup; the same hour on disk is the part from before
+                for (Rollup rollup : kept) {
+                    byStart.merge(rollup.getStartMs(), rollup, (a, b) -> { a.merge(b); return a; });
+                }
+                kept.clear();
+                kept.addAll(byStart.values());
+                while (kept.size() > limit) {
+                    kept.removeFirst();
+                }
+            }
+        }
+        hourlyLoadedFromMs = fromMs;
+        System.out.println("Loaded hourly rollups for " + loaded.size() + " targets in "
+            + (System.currentTimeMillis() - now) + " ms");
+    }
+
+    private void writeUnwritten() {
+        ClosedRollup closed;
+        while ((closed = unwritten.poll()) != null) {
+            try {
+                writerFor(closed.tier, closed.rollup.getStartMs()).write(closed.target, closed.rollup);
+                rollupsWritten.incrementAndGet();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (SegmentWriter writer : writers.values()) {
+            writer.flush();
+        }
+    }
+
+    private SegmentWriter writerFor(RollupTier tier, long startMs) throws IOException {
+        long segmentStart = startMs - Math.floorMod(startMs, tier.getSegmentMs());
+        SegmentWriter writer = writers.get(tier);
+        if (writer == null || writer.segmentStart != segmentStart) {
+            if (writer != null) writer.close();
+            writer = new SegmentWriter(segmentFile(tier, segmentStart), segmentStart);
+            writers.put(tier, writer);
+        }
+        return writer;
+    }
+
+    private void readSegments(String target, RollupTier tier, long fromMs, long toMs, Map<Long, Rollup> into) {
+        Map<String, TreeMap<Long, Rollup>> byTarget = new HashMap<>();
+        readSegmentsByTarget(target, tier, fromMs, toMs, byTarget);
+        TreeMap<Long, Rollup> found = byTarget.get(target);
+        if (found != null) into.putAll(found);
+    }
+
+    /** Rollups of one target, or of every target when target is null, by target and start */
+    private void readSegmentsByTarget(String target, RollupTier tier, long fromMs, long toMs,
+                                      Map<String, TreeMap<Long, Rollup>> into) {
+        long segmentMs = tier.getSegmentMs();
+        long first = fromMs - Math.floorMod(fromMs, segmentMs);
+        for (long segmentStart = first; segmentStart <= toMs; segmentStart += segmentMs) {
+            Path file = segmentFile(tier, segmentStart);
+            if (!Files.exists(file)) continue;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while (true) {
+                    String recordTarget = in.readUTF();
+                    Rollup rollup = Rollup.readFrom(in);
+                    if ((target == null || recordTarget.equals(target)) && overlaps(rollup, fromMs, toMs)) {
+                        into.computeIfAbsent(recordTarget, t -> new TreeMap<>())
+                            .merge(rollup.getStartMs(), rollup, (a, b) -> { a.merge(b); return a; });
+                    }
+                }
+            } catch (EOFException e) {
+                // End of file, or a record still being written
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Path segmentFile(RollupTier tier, long segmentStart) {
+        return directory.resolve(tier.getLabel() + "-" + segmentStart + ".dat");
+    }
+
+    private static long segmentStartOf(Path file, RollupTier tier) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(tier.getLabel().length() + 1, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean overlaps(Rollup rollup, long fromMs, long toMs) {
+        return rollup.getEndMs() > fromMs && rollup.getStartMs() <= toMs;
+    }
+
+    /**
+     * Open buckets and recently closed rollups for one target. Guarded by itself.
+     */
+    private static final class TargetRollups {
+        final String target;
+        final Map<RollupTier, Rollup> open = new EnumMap<>(RollupTier.class);
+        final Map<RollupTier, ArrayDeque<Rollup>> recent = new EnumMap<>(RollupTier.class);
+
+        TargetRollups(String target) {
+            this.target = target;
+            for (RollupTier tier : RollupTier.values()) {
+                recent.put(tier, new ArrayDeque<>());
+            }
+        }
+
+        /**
+         * The open bucket of a tier for the given time, closing the current
+         * one first if the time is past it. Late data for an already closed
+         * bucket goes into the open one.
+         */
+        Rollup openFor(RollupTier tier, long timestampMs, RollupEngine engine) {
+            Rollup current = open.get(tier);
+            if (current != null && timestampMs >= current.getEndMs()) {
+                close(tier, engine);
+                current = null;
+            }
+            if (current == null) {
+                long start = timestampMs - Math.floorMod(timestampMs, tier.getBucketMs());
+                current = new Rollup(start, tier.getBucketMs());
+                open.put(tier, current);
+            }
+            return current;
+        }
+
+        /**
+         * Copies of what is still open at this tier and below, grouped into
+         * buckets of this tier. Finer buckets are only merged upwards when they
+         * close, so without this the open hour would lag by up to 15 minutes.
+         */
+        List<Rollup> snapshotOpen(RollupTier tier) {
+            TreeMap<Long, Rollup> snapshot = new TreeMap<>();
+            for (int i = tier.ordinal(); i >= 0; i--) {
+                Rollup part = open.get(RollupTier.values()[i]);
+                if (part == null) continue;
+                long start = part.getStartMs() - Math.floorMod(part.getStartMs(), tier.getBucketMs());
+                snapshot.computeIfAbsent(start, s -> new Rollup(s, tier.getBucketMs())).merge(part);
+            }
+            return new ArrayList<>(snapshot.values());
+        }
+
+        void close(RollupTier tier, RollupEngine engine) {
+            Rollup closed = open.remove(tier);
+            if (closed == null) return;
+
+            ArrayDeque<Rollup> kept = recent.get(tier);
+            Rollup last = kept.peekLast();
+            if (last != null && last.getStartMs() == closed.getStartMs()) {
+                // The part of this bucket from before a restart, loaded from disk
+                last.merge(closed);
+            } else {
+                kept.addLast(closed);
+            }
+            if (kept.size() > RECENT_LIMITS.get(tier)) {
+                kept.removeFirst();
+            }
+            engine.unwritten.add(new ClosedRollup(target, tier, closed));
+
+            RollupTier coarser = tier.coarser();
+            if (coarser != null) {
+                openFor(coarser, closed.getStartMs(), engine).merge(closed);
+            }
+        }
+    }
+
+    private static final class ClosedRollup {
+        final String target;
+        final RollupTier tier;
+        final Rollup rollup;
+
+        ClosedRollup(String target, RollupTier tier, Rollup rollup) {
+            this.target = target;
+            this.tier = tier;
+            this.rollup = rollup;
+        }
+    }
+
+    /**
+     * Appends rollups to the current segment file of one tier.
+     */
+    private static final class SegmentWriter {
+        final long segmentStart;
+        final DataOutputStream out;
+
+        SegmentWriter(Path file, long segmentStart) throws IOException {
+            this.segmentStart = segmentStart;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        }
+
+        void write(String target, Rollup rollup) throws IOException {
+            out.writeUTF(target);
+            rollup.writeTo(out);
+        }
+
+        void flush() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
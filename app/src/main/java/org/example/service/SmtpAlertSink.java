@@ -0,0 +1,124 @@
+package org.example.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Mails each notification through an SMTP relay, speaking just enough of
+ * RFC 5321 for a local MTA or an internal relay: no TLS and no
+ * authentication.
+ */
+public class SmtpAlertSink implements AlertSink {
+    private static final int TIMEOUT_MS = 10_000;
+
+    private final String name;
+    private final String host;
+    private final int port;
+    private final String from;
+    private final List<String> to;
+
+    public SmtpAlertSink(String name, String host, int port, String from, List<String> to) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.from = from;
+        this.to = List.copyOf(to);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void send(AlertNotification notification) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), TIMEOUT_MS);
+            socket.setSoTimeout(TIMEOUT_MS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+
+            expect(in, 220);
+            String self = localName();
+            command(out, "EHLO " + self);
+            if (reply(in) != 250) {
+                command(out, "HELO " + self);
+                expect(in, 250);
+            }
+            command(out, "MAIL FROM:<" + from + ">");
+            expect(in, 250);
+            for (String recipient : to) {
+                command(out, "RCPT TO:<" + recipient + ">");
+                int code = reply(in);
+                if (code != 250 && code != 251) {
+                    throw new IOException("SMTP relay refused recipient " + recipient + " (" + code + ")");
+                }
+            }
+            command(out, "DATA");
+            expect(in, 354);
+            out.write(message(notification).getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            expect(in, 250);
+            command(out, "QUIT");
+        }
+    }
+
+    private String message(AlertNotification notification) {
+        StringBuilder message = new StringBuilder()
+            .append("From: ").append(from).append("\r\n")
+            .append("To: ").append(String.join(", ", to)).append("\r\n")
+            .append("Subject: ").append(notification.getSubject()).append("\r\n")
+            .append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now())).append("\r\n")
+            .append("Content-Type: text/plain; charset=UTF-8\r\n")
+            .append("\r\n");
+        for (String line : notification.getBody().split("\n")) {
+            // A line starting with a dot would otherwise end the message early
+            if (line.startsWith(".")) message.append('.');
+            message.append(line).append("\r\n");
+        }
+        return message.append(".\r\n").toString();
+    }
+
+    private static void command(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void expect(BufferedReader in, int code) throws IOException {
+        int actual = reply(in);
+        if (actual != code) {
+            throw new IOException("SMTP relay answered " + actual + ", expected " + code);
+        }
+    }
+
+    /** Reads a possibly multi-line reply and returns its code */
+    private static int reply(BufferedReader in) throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) throw new IOException("SMTP relay closed the connection");
+        } while (line.length() > 3 && line.charAt(3) == '-');
+        try {
+            return Integer.parseInt(line.substring(0, 3));
+        } catch (RuntimeException e) {
+            throw new IOException("Unexpected SMTP reply: " + line);
+        }
+    }
+
+    private static String localName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+}
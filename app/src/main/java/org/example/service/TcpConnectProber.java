@@ -0,0 +1,249 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reachability check by TCP handshake, for devices that drop ICMP.
+ *
+ * All attempts are non-blocking SocketChannel connects multiplexed on one
+ * Selector thread, so thousands of them can be in flight without a thread
+ * each. The latency reported is the time from connect() to the completed
+ * handshake. A refused connection means the port is closed; callers probing
+ * a host rather than a service pass hostAlive, since the reset proves the
+ * host is up. Only the deadline expiring counts as a timeout.
+ */
+public class TcpConnectProber {
+    private static TcpConnectProber instance;
+    private static boolean initAttempted = false;
+
+    private final Selector selector;
+    private final Thread selectorThread;
+    private volatile boolean running = true;
+
+    // Handed over from callers to the selector thread
+    private final ConcurrentLinkedQueue<Attempt> pending = new ConcurrentLinkedQueue<>();
+    // Only touched by the selector thread
+    private final PriorityQueue<Attempt> deadlines =
+        new PriorityQueue<>(Comparator.comparingLong((Attempt a) -> a.deadlineNanos));
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong attemptsStarted = new AtomicLong();
+    private final AtomicLong handshakesCompleted = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * Returns the shared prober, or null if no selector could be opened.
+     */
+    public static synchronized TcpConnectProber getInstance() {
+        if (!initAttempted) {
+            initAttempted = true;
+            try {
+                instance = new TcpConnectProber();
+            } catch (IOException e) {
+                System.out.println("TCP connect prober unavailable: " + e.getMessage());
+                instance = null;
+            }
+        }
+        return instance;
+    }
+
+    private TcpConnectProber() throws IOException {
+        selector = Selector.open();
+        selectorThread = new Thread(this::selectLoop, "tcp-probe-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Start a connect attempt. The returned future is completed on the selector
+     * thread, so callers should not do any real work in a direct continuation.
+     */
+    public CompletableFuture<ProbeResult> connect(String target, InetAddress address, int port, int timeoutMs) {
+        return connect(target, address, port, timeoutMs, false);
+    }
+
+    /**
+     * As above, but when hostAlive is set a refused connection counts as
+     * reachable: the host answered with a reset, so it is there even if the
+     * port is closed. Used to find hosts rather than services.
+     */
+    public CompletableFuture<ProbeResult> connect(String target, InetAddress address, int port, int timeoutMs,
+                                                  boolean hostAlive) {
+        Attempt attempt = new Attempt(target, address, port, timeoutMs, hostAlive);
+        if (!running) {
+            attempt.future.complete(ProbeResult.failed(target, "TCP prober stopped"));
+            return attempt.future;
+        }
+        attemptsStarted.incrementAndGet();
+        inFlight.incrementAndGet();
+        pending.add(attempt);
+        selector.wakeup();
+        return attempt.future;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAttemptsStarted() {
+        return attemptsStarted.get();
+    }
+
+    public long getHandshakesCompleted() {
+        return handshakesCompleted.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                registerPending();
+
+                long waitMs = 0; // 0 = block until woken
+                Attempt next = deadlines.peek();
+                if (next != null) {
+                    waitMs = Math.max(1, (next.deadlineNanos - System.nanoTime() + 999_999) / 1_000_000);
+                }
+                selector.select(waitMs);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    finishConnect((Attempt) key.attachment());
+                }
+
+                expireDeadlines();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            running = false;
+            failOutstanding();
+        }
+    }
+
+    private void registerPending() {
+        Attempt attempt;
+        while ((attempt = pending.poll()) != null) {
+            try {
+                SocketChannel channel = SocketChannel.open();
+                attempt.channel = channel;
+                channel.configureBlocking(false);
+                attempt.startNanos = System.nanoTime();
+                attempt.deadlineNanos = attempt.startNanos + attempt.timeoutMs * 1_000_000L;
+                if (channel.connect(new InetSocketAddress(attempt.address, attempt.port))) {
+                    // Loopback connects can complete immediately
+                    complete(attempt, true, null);
+                    continue;
+                }
+                channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+                deadlines.add(attempt);
+            } catch (ConnectException e) {
+                complete(attempt, attempt.hostAlive, null);
+            } catch (NoRouteToHostException e) {
+                complete(attempt, false, null);
+            } catch (IOException e) {
+                complete(attempt, false, e.getMessage());
+            }
+        }
+    }
+
+    private void finishConnect(Attempt attempt) {
+        if (attempt.done) return;
+        try {
+            complete(attempt, attempt.channel.finishConnect(), null);
+        } catch (ConnectException e) {
+            // Refused: the port is closed, which is not a probe error
+            complete(attempt, attempt.hostAlive, null);
+        } catch (NoRouteToHostException e) {
+            complete(attempt, false, null);
+        } catch (IOException e) {
+            complete(attempt, false, e.getMessage());
+        }
+    }
+
+    private void expireDeadlines() {
+        long now = System.nanoTime();
+        while (!deadlines.isEmpty() && deadlines.peek().deadlineNanos <= now) {
+            Attempt attempt = deadlines.poll();
+            if (!attempt.done) {
+                timeouts.incrementAndGet();
+                complete(attempt, false, null);
+            }
+        }
+    }
+
+    private void complete(Attempt attempt, boolean connected, String error) {
+        if (attempt.done) return;
+        attempt.done = true;
+        long elapsedMicros = attempt.startNanos == 0 ? 0 : (System.nanoTime() - attempt.startNanos) / 1000;
+        if (connected) {
+            handshakesCompleted.incrementAndGet();
+        }
+        if (attempt.channel != null) {
+            try {
+                attempt.channel.close(); // also cancels the selection key
+            } catch (IOException ignored) {}
+        }
+        inFlight.decrementAndGet();
+        attempt.future.complete(new ProbeResult(attempt.target, attempt.address, connected,
+            connected ? elapsedMicros : 0, System.currentTimeMillis(), error));
+    }
+
+    private void failOutstanding() {
+        Attempt attempt;
+        while ((attempt = pending.poll()) != null) {
+            complete(attempt, false, "TCP prober stopped");
+        }
+        while ((attempt = deadlines.poll()) != null) {
+            complete(attempt, false, "TCP prober stopped");
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static class Attempt {
+        final String target;
+        final InetAddress address;
+        final int port;
+        final int timeoutMs;
+        final boolean hostAlive;   // a refused connection counts as reachable
+        final CompletableFuture<ProbeResult> future = new CompletableFuture<>();
+        SocketChannel channel;
+        long startNanos;
+        long deadlineNanos;
+        boolean done = false;
+
+        Attempt(String target, InetAddress address, int port, int timeoutMs, boolean hostAlive) {
+            this.target = target;
+            this.address = address;
+            this.port = port;
+            this.timeoutMs = timeoutMs;
+            this.hostAlive = hostAlive;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.model.ProbeStatus;
+
+/**
+ * Append-only on-disk store for probe results, memory-mapped so weeks of
+ * history stay off the heap and survive restarts.
+ *
+ * Time is cut into buckets (6 h by default) and each bucket is one segment
+ * file. A segment is a 4 KiB header followed by 4 KiB blocks; every block
+ * belongs to a single target and holds up to 510 fixed-width 8 byte records
+ * in the same packed form as {@link LatencyHistory}. The per-target index is
+ * the list of block numbers a target owns in each segment; it lives in memory
+ * and is rebuilt from the block headers when a segment is reopened. Target
+ * names are given small integer ids, kept in targets.idx.
+ *
+ * Results are queued from probe threads and written by a single writer
+ * thread. Reads return slices of the mapped files without copying. Retention
+ * is enforced by deleting whole segment files.
+ */
+public class TimeSeriesStore {
+    public static final long DEFAULT_BUCKET_MS = 6 * 3600_000L;
+    public static final long DEFAULT_RETENTION_MS = 28 * 24 * 3600_000L;
+
+    static final int BLOCK_SIZE = 4096;
+    static final int BLOCK_HEADER = 16;  // int targetId, int recordCount, 8 bytes reserved
+    static final int RECORD_SIZE = 8;    // int epoch seconds, int packed status/micros
+    static final int RECORDS_PER_BLOCK = (BLOCK_SIZE - BLOCK_HEADER) / RECORD_SIZE;
+    private static final int SEGMENT_HEADER = 4096;
+    private static final int BLOCKS_PER_REGION = 64;     // 256 KiB per mapping, and per step of file growth
+    private static final int MAGIC = 0x4E4D5453;          // "NMTS"
+    private static final int VERSION = 1;
+    private static final int QUEUE_CAPACITY = 65536;
+
+    private static TimeSeriesStore instance;
+
+    private final Path directory;
+    private final long bucketMs;
+    private final long retentionMs;
+
+    private final Map<String, Integer> targetIds = new ConcurrentHashMap<>();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>(); // guarded by itself
+    private final List<Segment> pendingDeletes = new ArrayList<>();  // still mapped by a reader
+    private FileChannel targetIndex;
+
+    private final BlockingQueue<ProbeResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong recordsDropped = new AtomicLong();
+
+    /**
+     * Open (or create) the shared store in the given directory. Call once at startup.
+     */
+    public static synchronized TimeSeriesStore open(Path directory) throws IOException {
+        if (instance == null) {
+            instance = new TimeSeriesStore(directory, DEFAULT_BUCKET_MS, DEFAULT_RETENTION_MS);
+        }
+        return instance;
+    }
+
+    /** The store opened with {@link #open}, or null if it was never opened or failed to open */
+    public static synchronized TimeSeriesStore getInstance() {
+        return instance;
+    }
+
+    public TimeSeriesStore(Path directory, long bucketMs, long retentionMs) throws IOException {
+        this.directory = directory;
+        this.bucketMs = bucketMs;
+        this.retentionMs = retentionMs;
+        Files.createDirectories(directory);
+
+        loadTargetIndex();
+        loadSegments();
+
+        writer = new Thread(this::writeLoop, "timeseries-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a result for writing. Never blocks; if the writer has fallen
+     * behind, the result is dropped and counted.
+     */
+    public void append(ProbeResult result) {
+        if (!running || !queue.offer(result)) {
+            recordsDropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records for a target with time in [fromMs, toMs], oldest first. The
+     * returned range reads straight from the mapped segment files.
+     */
+    public Range read(String target, long fromMs, long toMs) {
+        Integer id = targetIds.get(target);
+        if (id == null) return new Range(new ByteBuffer[0], fromMs, toMs);
+
+        List<Segment> overlapping;
+        synchronized (segments) {
+            // The previous bucket too: records are filed by arrival, so one
+            // written just after a rollover can carry an earlier timestamp
+            Long first = segments.floorKey(bucketStart(fromMs) - bucketMs);
+            overlapping = new ArrayList<>(segments.subMap(first != null ? first : Long.MIN_VALUE, true,
+                bucketStart(toMs), true).values());
+        }
+
+        List<ByteBuffer> slices = new ArrayList<>();
+        for (Segment segment : overlapping) {
+            segment.collect(id, slices);
+        }
+        return new Range(slices.toArray(new ByteBuffer[0]), fromMs, toMs);
+    }
+
+    /**
+     * Delete segments that ended before the retention window.
+     */
+    public void enforceRetention(long nowMs) {
+        List<Segment> expired = new ArrayList<>();
+        synchronized (segments) {
+            long cutoff = nowMs - retentionMs;
+            while (!segments.isEmpty() && segments.firstKey() + bucketMs < cutoff) {
+                expired.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        synchronized (pendingDeletes) {
+            pendingDeletes.addAll(expired);
+            // On Windows a file cannot be deleted while a reader still has it mapped;
+            // such segments are retried on the next pass
+            pendingDeletes.removeIf(Segment::delete);
+        }
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    public long getRecordsDropped() {
+        return recordsDropped.get();
+    }
+
+    public int getSegmentCount() {
+        synchronized (segments) {
+            return segments.size();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stop the writer after draining what is queued and flush everything to disk.
+     */
+    public void close() {
+        // No interrupt: it would close the file channels under the writer.
+        // The writer notices within its 1 s poll and drains the queue first.
+        running = false;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (segments) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+        try {
+            targetIndex.force(true);
+            targetIndex.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeLoop() {
+        List<ProbeResult> batch = new ArrayList<>(1024);
+        long lastRetention = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                ProbeResult first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, 1023);
+                    for (ProbeResult result : batch) {
+                        write(result);
+                    }
+                    batch.clear();
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastRetention > 60_000) {
+                    lastRetention = now;
+                    enforceRetention(now);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void write(ProbeResult result) throws IOException {
+        int id = targetId(result.target);
+        Segment segment = segmentFor(result.timestamp);
+        segment.append(id, (int) (result.timestamp / 1000),
+            LatencyHistory.pack(result.status, result.latencyMicros));
+        recordsWritten.incrementAndGet();
+    }
+
+    private Segment segmentFor(long timestampMs) throws IOException {
+        long bucket = bucketStart(timestampMs);
+        synchronized (segments) {
+            Map.Entry<Long, Segment> latest = segments.lastEntry();
+            if (latest != null && latest.getKey() >= bucket) {
+                // Late result for an older bucket: keep appending to the newest segment
+                return latest.getValue();
+            }
+            Segment created = Segment.create(directory.resolve(segmentName(bucket)), bucket);
+            segments.put(bucket, created);
+            return created;
+        }
+    }
+
+    private long bucketStart(long timestampMs) {
+        return timestampMs - Math.floorMod(timestampMs, bucketMs);
+    }
+
+    private static String segmentName(long bucketStart) {
+        return "seg-" + bucketStart + ".dat";
+    }
+
+    private int targetId(String target) throws IOException {
+        Integer id = targetIds.get(target);
+        if (id != null) return id;
+
+        // Only the writer thread assigns ids
+        int assigned = targetIds.size();
+        byte[] line = (assigned + "\t" + target + "\n").getBytes(StandardCharsets.UTF_8);
+        targetIndex.write(ByteBuffer.wrap(line));
+        targetIds.put(target, assigned);
+        return assigned;
+    }
+
+    private void loadTargetIndex() throws IOException {
+        Path file = directory.resolve("targets.idx");
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    targetIds.put(line.substring(tab + 1), Integer.parseInt(line.substring(0, tab)));
+                }
+            }
+        }
+        targetIndex = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    }
+
+    private void loadSegments() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "seg-*.dat")) {
+            for (Path file : files) {
+                try {
+                    Segment segment = Segment.open(file);
+                    segments.put(segment.bucketStart, segment);
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Skipping unreadable segment " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        enforceRetention(System.currentTimeMillis());
+    }
+
+    /**
+     * One time bucket on disk.
+     */
+    private static final class Segment {
+        final Path file;
+        final long bucketStart;
+        final FileChannel channel;
+        final MappedByteBuffer header;
+        final List<MappedByteBuffer> regions = new ArrayList<>();
+        final Map<Integer, int[]> blocksByTarget = new HashMap<>(); // id -> [count, block...]
+        final Map<Integer, Integer> openBlock = new HashMap<>();    // writer only
+        int blockCount;
+        boolean deleted;   // expired; a reader that listed it before then gets nothing
+
+        private Segment(Path file, FileChannel channel, long bucketStart) throws IOException {
+            this.file = file;
+            this.channel = channel;
+            this.bucketStart = bucketStart;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_HEADER);
+        }
+
+        static Segment create(Path file, long bucketStart) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(file, channel, bucketStart);
+            segment.header.putInt(0, MAGIC);
+            segment.header.putInt(4, VERSION);
+            segment.header.putLong(8, bucketStart);
+            segment.header.putInt(16, BLOCK_SIZE);
+            segment.header.putInt(20, 0);
+            return segment;
+        }
+
+        static Segment open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_HEADER);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(16) != BLOCK_SIZE) {
+                channel.close();
+                throw new IOException("not a segment file");
+            }
+            Segment segment = new Segment(file, channel, header.getLong(8));
+            int count = segment.header.getInt(20);
+            for (int block = 0; block < count; block++) {
+                ByteBuffer region = segment.region(block);
+                int targetId = region.getInt(blockOffset(block));
+                segment.index(targetId, block);
+                // Keep filling each target's last block rather than leaving it part empty
+                segment.openBlock.put(targetId, block);
+            }
+            segment.blockCount = count;
+            return segment;
+        }
+
+        synchronized void append(int targetId, int seconds, int packed) throws IOException {
+            Integer block = openBlock.get(targetId);
+            if (block == null || recordCount(block) == RECORDS_PER_BLOCK) {
+                block = blockCount;
+                ByteBuffer region = region(block);
+                int offset = blockOffset(block);
+                region.putInt(offset, targetId);
+                region.putInt(offset + 4, 0);
+                blockCount++;
+                header.putInt(20, blockCount); // block is initialised before it is counted
+                index(targetId, block);
+                openBlock.put(targetId, block);
+            }
+            ByteBuffer region = region(block);
+            int offset = blockOffset(block);
+            int count = region.getInt(offset + 4);
+            int record = offset + BLOCK_HEADER + count * RECORD_SIZE;
+            region.putInt(record, seconds);
+            region.putInt(record + 4, packed);
+            region.putInt(offset + 4, count + 1); // record is written before it is counted
+        }
+
+        /** Add read-only slices of every block the target owns here, oldest first */
+        synchronized void collect(int targetId, List<ByteBuffer> out) {
+            int[] blocks = deleted ? null : blocksByTarget.get(targetId);
+            if (blocks == null) return;
+            for (int i = 1; i <= blocks[0]; i++) {
+                int block = blocks[i];
+                ByteBuffer region = regions.get(block / BLOCKS_PER_REGION);
+                int offset = blockOffset(block);
+                int count = region.getInt(offset + 4);
+                if (count == 0) continue;
+                out.add(region.slice(offset + BLOCK_HEADER, count * RECORD_SIZE).asReadOnlyBuffer());
+            }
+        }
+
+        synchronized void close() {
+            header.force();
+            for (MappedByteBuffer region : regions) {
+                region.force();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        synchronized boolean delete() {
+            deleted = true;
+            try {
+                channel.close();
+                regions.clear();
+                Files.deleteIfExists(file);
+                return true;
+            } catch (IOException e) {
+                System.out.println("Could not delete expired segment " + file + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        private int recordCount(int block) throws IOException {
+            return region(block).getInt(blockOffset(block) + 4);
+        }
+
+        private void index(int targetId, int block) {
+            int[] blocks = blocksByTarget.get(targetId);
+            if (blocks == null) {
+                blocks = new int[8];
+            } else if (blocks[0] + 1 == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blocks.length * 2);
+            }
+            blocks[++blocks[0]] = block;
+            blocksByTarget.put(targetId, blocks);
+        }
+
+        private ByteBuffer region(int block) throws IOException {
+            int index = block / BLOCKS_PER_REGION;
+            while (regions.size() <= index) {
+                long position = SEGMENT_HEADER + (long) regions.size() * BLOCKS_PER_REGION * BLOCK_SIZE;
+                // Mapping past the end grows the file. Not every filesystem keeps the
+                // untouched pages sparse (NTFS allocates them), so grow in small steps
+                regions.add(channel.map(FileChannel.MapMode.READ_WRITE, position,
+                    (long) BLOCKS_PER_REGION * BLOCK_SIZE));
+            }
+            return regions.get(index);
+        }
+
+        private static int blockOffset(int block) {
+            return (block % BLOCKS_PER_REGION) * BLOCK_SIZE;
+        }
+    }
+
+    /**
+     * Records read from the store, backed directly by mapped file slices.
+     * Records outside the requested time window are skipped while iterating.
+     */
+    public static final class Range {
+        private final ByteBuffer[] slices;
+        private final long fromSeconds;
+        private final long toSeconds;
+
+        Range(ByteBuffer[] slices, long fromMs, long toMs) {
+            this.slices = slices;
+            this.fromSeconds = fromMs / 1000;
+            this.toSeconds = toMs / 1000;
+        }
+
+        /**
+         * Visit each record in the window. Nothing is copied or allocated per record.
+         */
+        public void forEach(RecordVisitor visitor) {
+            for (ByteBuffer slice : slices) {
+                for (int pos = 0; pos < slice.limit(); pos += RECORD_SIZE) {
+                    long seconds = Integer.toUnsignedLong(slice.getInt(pos));
+                    if (seconds < fromSeconds || seconds > toSeconds) continue;
+                    int packed = slice.getInt(pos + 4);
+                    visitor.visit(seconds * 1000, LatencyHistory.unpackMicros(packed),
+                        LatencyHistory.unpackStatus(packed));
+                }
+            }
+        }
+
+        /** Number of records in the window */
+        public int count() {
+            int[] count = new int[1];
+            forEach((timestampMs, latencyMicros, status) -> count[0]++);
+            return count[0];
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long timestampMs, long latencyMicros, ProbeStatus status);
+    }
+}
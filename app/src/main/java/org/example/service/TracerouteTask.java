@@ -2,7 +2,6 @@ package org.example.service;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -96,7 +95,7 @@ public class TracerouteTask extends Task<List<String>> {
             !containsIp(hopIpAddresses, target) && hopIpAddresses.size() < MAX_HOPS) {
             // Try to resolve the target address
             try {
-                String ip = InetAddress.getByName(target).getHostAddress();
+                String ip = ResolverCache.getInstance().resolve(target).getHostAddress();
                 hopIpAddresses.add(ip);
                 targetFound = true;
                 updateValue(new ArrayList<>(hopIpAddresses));
@@ -127,8 +126,8 @@ public class TracerouteTask extends Task<List<String>> {
     
     private boolean containsIp(String ip1, String ip2) {
         try {
-            return InetAddress.getByName(ip1).getHostAddress().equals(
-                   InetAddress.getByName(ip2).getHostAddress());
+            return ResolverCache.getInstance().resolve(ip1).getHostAddress().equals(
+                   ResolverCache.getInstance().resolve(ip2).getHostAddress());
         } catch (Exception e) {
             return false;
         }
@@ -137,10 +136,10 @@ public class TracerouteTask extends Task<List<String>> {
     // Add helper method to the TracerouteTask class to check if an IP is in the list
     private boolean containsIp(List<String> ipList, String targetIp) {
         try {
-            String resolvedTarget = InetAddress.getByName(targetIp).getHostAddress();
+            String resolvedTarget = ResolverCache.getInstance().resolve(targetIp).getHostAddress();
             for (String ip : ipList) {
                 try {
-                    if (ip.equals(resolvedTarget) || InetAddress.getByName(ip).getHostAddress().equals(resolvedTarget)) {
+                    if (ip.equals(resolvedTarget) || ResolverCache.getInstance().resolve(ip).getHostAddress().equals(resolvedTarget)) {
                         return true;
                     }
                 } catch (Exception e) {
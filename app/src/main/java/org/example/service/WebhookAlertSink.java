@@ -0,0 +1,78 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * POSTs each notification as JSON:
+ * {"group", "subject", "suppressed", "alerts": [{"status", "rule", "severity",
+ * "nodeId", "node", "target", "message", "firedAt", "resolvedAt"}]}.
+ * Any status outside 2xx counts as a failed delivery.
+ */
+public class WebhookAlertSink implements AlertSink {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final String name;
+    private final URI url;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    private final Gson gson = new Gson();
+
+    public WebhookAlertSink(String name, String url) {
+        this.name = name;
+        this.url = URI.create(url);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void send(AlertNotification notification) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(url)
+            .timeout(TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(toJson(notification))))
+            .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("Webhook " + url + " answered " + response.statusCode());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while posting to " + url, e);
+        }
+    }
+
+    static JsonObject toJson(AlertNotification notification) {
+        JsonObject json = new JsonObject();
+        json.addProperty("group", notification.group);
+        json.addProperty("subject", notification.getSubject());
+        json.addProperty("suppressed", notification.suppressed);
+        JsonArray alerts = new JsonArray();
+        for (Alert alert : notification.alerts) {
+            JsonObject a = new JsonObject();
+            a.addProperty("status", alert.isFiring() ? "firing" : "resolved");
+            a.addProperty("rule", alert.rule);
+            a.addProperty("severity", alert.severity);
+            a.addProperty("nodeId", alert.nodeId);
+            a.addProperty("node", alert.nodeName);
+            a.addProperty("target", alert.target);
+            a.addProperty("message", alert.message);
+            a.addProperty("firedAt", alert.firedAt);
+            if (!alert.isFiring()) a.addProperty("resolvedAt", alert.resolvedAt);
+            alerts.add(a);
+        }
+        json.add("alerts", alerts);
+        return json;
+    }
+}
@@ -1,13 +1,17 @@
 package org.example.ui.components;
 
-import java.net.Inet4Address;
-import java.net.InterfaceAddress;
-import java.net.NetworkInterface;
-import java.util.Collections;
+import java.util.Objects;
 
+import org.example.config.ProbeSettings;
 import org.example.model.DeviceType;
 import org.example.model.NetworkLocation;
 import org.example.model.NetworkNode;
+import org.example.model.NodeState;
+import org.example.service.LocalRouteTable;
+import org.example.service.NodeStateTracker;
+import org.example.service.PercentileTracker;
+import org.example.service.ProbeResult;
+import org.example.service.ProbeScheduler;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
@@ -45,9 +49,18 @@ public class ConnectionLine extends Pane {
     private Color hoveredColor;
     private boolean isHovered = false;
 
+    private ProbeScheduler.Subscription probeSubscription;
+    private static final Color UPSTREAM_DOWN_COLOR = Color.web("#b36b00");
+    private static final Color FLAPPING_COLOR = Color.web("#8e44ad");
+
+    // Damped state last drawn, so repeated results in the same state skip the repaint
+    private volatile NodeState shownState = null;
+    private volatile String lastProbeError = null; // logged once per change, not per probe
+
     private class PopupPanel extends StackPane {
         private final Label latencyLabel;
         private final Label interfaceLabel;
+        private final Label percentileLabel;
 
         public PopupPanel() {
             getStyleClass().add("connection-stats-popup");
@@ -57,10 +70,12 @@ public class ConnectionLine extends Pane {
             latencyLabel.getStyleClass().add("latency-label");
             interfaceLabel = new Label();
             interfaceLabel.getStyleClass().add("interface-label");
+            percentileLabel = new Label();
+            percentileLabel.getStyleClass().add("interface-label");
 
             VBox content = new VBox(5);
             content.setAlignment(Pos.CENTER);
-            content.getChildren().addAll(latencyLabel, interfaceLabel);
+            content.getChildren().addAll(latencyLabel, interfaceLabel, percentileLabel);
             getChildren().add(content);
 
             // Style popup panel
@@ -70,8 +85,14 @@ public class ConnectionLine extends Pane {
         }
 
         public void updateStats(String latency, String iface) {
+            updateStats(latency, iface, "");
+        }
+
+        public void updateStats(String latency, String iface, String percentiles) {
             latencyLabel.setText(latency);
             interfaceLabel.setText(iface);
+            percentileLabel.setText(percentiles);
+            percentileLabel.setManaged(!percentiles.isEmpty());
         }
     }
 
@@ -144,6 +165,13 @@ public class ConnectionLine extends Pane {
         };
         pingTimer.start();
 
+        // Stop probing once the line is taken off the map
+        parentProperty().addListener((obs, oldParent, newParent) -> {
+            if (newParent == null) {
+                cancelProbe();
+            }
+        });
+
         updateStatus();
     }
 
@@ -242,6 +270,7 @@ public class ConnectionLine extends Pane {
         // Special styling for REMOTE_PRIVATE connections
         if (to.getNetworkLocation() == NetworkLocation.REMOTE_PRIVATE) {
             // Use a grey color for remote private connections
+            cancelProbe();
             setLineColor(Color.DARKGRAY);
             latencyLabel.setText("N/A");
             latencyLabel.setVisible(true);
@@ -250,6 +279,7 @@ public class ConnectionLine extends Pane {
 
         // Only make the line grey if it's going TO an unmanaged switch FROM a main node
         if (to.getDeviceType() == DeviceType.UNMANAGED_SWITCH && from.isMainNode()) {
+            cancelProbe();
             setLineColor(Color.GRAY);
             latencyLabel.setVisible(false); // Hide latency label for unmanaged switches
             return; // Exit early
@@ -270,6 +300,7 @@ public class ConnectionLine extends Pane {
 
         // For all other cases where both are non-main nodes, use grey
         if (!from.isMainNode() && !to.isMainNode()) {
+            cancelProbe();
             setLineColor(Color.GREY);
             latencyLabel.setVisible(false); // Hide latency label for non-main nodes
             return;
@@ -279,90 +310,120 @@ public class ConnectionLine extends Pane {
         pingAndUpdateStatus(to.getIpOrHostname());
     }
 
-    // Add this helper method to avoid code duplication
+    // Subscribe this line to the shared probe scheduler; results arrive on a probe worker.
+    // The target node's probe settings decide between ICMP and a TCP connect and how often.
     private void pingAndUpdateStatus(String ip) {
-        new Thread(() -> {
-            try {
-                java.net.InetAddress destAddr = java.net.InetAddress.getByName(ip);
-
-                // Find the local interface
-                String interfaceName = findLocalInterface(destAddr);
-                final String iface = interfaceName;
-
-                // Ping it
-                long start = System.currentTimeMillis();
-                boolean reachable = destAddr.isReachable(2000);
-                long elapsed = System.currentTimeMillis() - start;
-
-                Platform.runLater(() -> {
-                    connected = reachable;
-                    // Set color based on both reachability and device type
-                    if (reachable) {
-                        Color lineColor = to.getDeviceType() == DeviceType.VIRTUAL_MACHINE ? 
-                            Color.web("#0cad03") : Color.web("#0cad03");
-                        defaultColor = lineColor;
-                        if (!isHovered) {
-                            curve.setStroke(lineColor);
-                        }
-                        statsPanel.updateStats(elapsed + " ms", iface);
-                        latencyLabel.setText(elapsed + " ms");
-                        latencyLabel.setVisible(true);
-                        pingParticle.setVisible(true); // Show ping particle when connected
-                    } else {
-                        defaultColor = Color.RED;
-                        if (!isHovered) {
-                            curve.setStroke(defaultColor);
-                        }
-                        statsPanel.updateStats("Not Connected", "");
-                        latencyLabel.setText("");
-                        latencyLabel.setVisible(false);
-                        pingParticle.setVisible(false); // Hide ping particle when disconnected
-                    }
-                });
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                Platform.runLater(() -> {
-                    defaultColor = Color.RED;
-                    if (!isHovered) {
-                        curve.setStroke(defaultColor);
-                    }
-                    statsPanel.updateStats("Error", "");
-                    latencyLabel.setText("");
-                    latencyLabel.setVisible(false);
-                    pingParticle.setVisible(false); // Hide ping particle on error
-                    connected = false;
-                });
-            }
-        }).start();
+        ProbeSettings settings = to.getProbeSettings();
+        if (probeSubscription != null && probeSubscription.matches(ip, settings)) {
+            return; // Already scheduled for this target
+        }
+        cancelProbe();
+        probeSubscription = ProbeScheduler.getInstance().subscribe(ip, settings, this::applyProbeResult);
     }
 
-    private String findLocalInterface(java.net.InetAddress destAddr) {
-        try {
-            // 0) Find the local interface whose subnet contains destAddr
-            String interfaceName = "";
-            for (NetworkInterface ni : Collections.list(NetworkInterface.getNetworkInterfaces())) {
-                for (InterfaceAddress ia : ni.getInterfaceAddresses()) {
-                    if (!(ia.getAddress() instanceof Inet4Address)) continue;
-                    int prefix = ia.getNetworkPrefixLength();
-                    byte[] localBytes = ia.getAddress().getAddress();
-                    byte[] destBytes  = destAddr.getAddress();
-                    int localInt = ((localBytes[0]&0xFF)<<24)|((localBytes[1]&0xFF)<<16)
-                                |((localBytes[2]&0xFF)<<8)| (localBytes[3]&0xFF);
-                    int destInt  = ((destBytes[0]&0xFF)<<24)|((destBytes[1]&0xFF)<<16)
-                                |((destBytes[2]&0xFF)<<8)| (destBytes[3]&0xFF);
-                    int mask = prefix == 0 ? 0 : 0xFFFFFFFF << (32 - prefix);
-                    if ((localInt & mask) == (destInt & mask)) {
-                        interfaceName = ni.getName();
-                        break;
-                    }
+    private void cancelProbe() {
+        if (probeSubscription != null) {
+            probeSubscription.cancel();
+            probeSubscription = null;
+        }
+    }
+
+    private void applyProbeResult(ProbeResult result) {
+        if (result.isUpstreamUnreachable()) {
+            // Not probed: something this node depends on is down
+            shownState = null;
+            Platform.runLater(() -> {
+                defaultColor = UPSTREAM_DOWN_COLOR;
+                if (!isHovered) {
+                    curve.setStroke(defaultColor);
                 }
-                if (!interfaceName.isEmpty()) break;
+                statsPanel.updateStats("Unreachable (upstream)", "");
+                latencyLabel.setText("");
+                latencyLabel.setVisible(false);
+                pingParticle.setVisible(false);
+                connected = false;
+            });
+            return;
+        }
+
+        String error = result.isError() ? String.valueOf(result.error) : null;
+        if (error != null && !error.equals(lastProbeError)) {
+            System.out.println("Probe failed for " + result.target + ": " + error);
+        }
+        lastProbeError = error;
+
+        // Draw the damped state rather than the raw result, so a marginal link
+        // repaints when its state changes, not on every probe
+        NodeState state = NodeStateTracker.getInstance().getState(to.getNodeId());
+        if (state == NodeState.FLAPPING || state == NodeState.DOWN) {
+            if (shownState == state) return;
+            shownState = state;
+            if (state == NodeState.FLAPPING) {
+                Platform.runLater(() -> showDisconnected(FLAPPING_COLOR, "Flapping"));
+            } else {
+                String text = result.isError() ? "Error" : "Not Connected";
+                Platform.runLater(() -> showDisconnected(Color.RED, text));
+            }
+            return;
+        }
+        if (state == NodeState.UP && !result.reachable) {
+            return; // Not confirmed yet; keep showing it up
+        }
+
+        if (result.isError()) {
+            shownState = null;
+            Platform.runLater(() -> showDisconnected(Color.RED, "Error"));
+            return;
+        }
+
+        // Find the local interface
+        final String iface = findLocalInterface(result.address);
+        final boolean reachable = result.reachable;
+        final long elapsed = result.getLatencyMs();
+        final ProbeScheduler.Subscription subscription = probeSubscription;
+        final String probeInfo = subscription != null && subscription.getSettings().isTcp()
+            ? (iface.isEmpty() ? "" : iface + " · ") + subscription.getSettings().getProbeKey()
+            : iface;
+        final String percentiles = Objects.requireNonNullElse(PercentileTracker.format(
+            PercentileTracker.getInstance().getNodeSketch(to.getNodeId())), "");
+        shownState = reachable ? NodeState.UP : null;
+
+        Platform.runLater(() -> {
+            connected = reachable;
+            // Set color based on both reachability and device type
+            if (reachable) {
+                Color lineColor = to.getDeviceType() == DeviceType.VIRTUAL_MACHINE ? 
+                    Color.web("#0cad03") : Color.web("#0cad03");
+                defaultColor = lineColor;
+                if (!isHovered) {
+                    curve.setStroke(lineColor);
+                }
+                statsPanel.updateStats(elapsed + " ms", probeInfo, percentiles);
+                latencyLabel.setText(elapsed + " ms");
+                latencyLabel.setVisible(true);
+                pingParticle.setVisible(true); // Show ping particle when connected
+            } else {
+                showDisconnected(Color.RED, "Not Connected");
             }
-            return interfaceName;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "";
+        });
+    }
+
+    // FX thread only
+    private void showDisconnected(Color color, String text) {
+        connected = false;
+        defaultColor = color;
+        if (!isHovered) {
+            curve.setStroke(defaultColor);
         }
+        statsPanel.updateStats(text, "");
+        latencyLabel.setText("");
+        latencyLabel.setVisible(false);
+        pingParticle.setVisible(false); // Hide ping particle when disconnected
+    }
+
+    private String findLocalInterface(java.net.InetAddress destAddr) {
+        // Called for every probe result, so it must not enumerate the interfaces itself
+        return destAddr == null ? "" : LocalRouteTable.getInstance().interfaceFor(destAddr);
     }
 
     public NetworkNode getFrom() {
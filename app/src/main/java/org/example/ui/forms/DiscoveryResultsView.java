@@ -0,0 +1,153 @@
+package org.example.ui.forms;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.example.config.DiscoveredNode;
+import org.example.service.MonitorEvent;
+import org.example.ui.panels.SlideOutPanel;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.layout.VBox;
+
+/**
+ * The sections of the discovered nodes panel, one per interface, kept up to
+ * date one entry at a time: a discovery event adds, removes or replaces a
+ * single entry and touches only its section's count, so a live view costs
+ * the UI as much as what changed.
+ *
+ * Changes from other threads are queued with the offer methods and applied
+ * once per frame, at most MAX_CHANGES_PER_FRAME at a time, so a sweep that
+ * finds hundreds of hosts in a burst never floods the FX thread with one
+ * runLater each. Everything else is FX thread only.
+ */
+class DiscoveryResultsView {
+    private static final int MAX_CHANGES_PER_FRAME = 200;
+
+    private final VBox contentBox;
+    private final SlideOutPanel slidePanel;
+    private final Map<String, VBox> sections = new HashMap<>();           // by interface
+    private final Map<String, Integer> nextNumber = new HashMap<>();      // by interface
+    private final Map<String, DiscoveredNode> nodes = new HashMap<>();    // by IP
+    private final Map<String, VBox> entries = new HashMap<>();            // by IP
+    private final Map<String, Integer> numbers = new HashMap<>();         // by IP
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private Runnable onChange = () -> { };
+    private final AnimationTimer frames = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (pending.isEmpty()) return;
+            Runnable change;
+            for (int i = 0; i < MAX_CHANGES_PER_FRAME && (change = pending.poll()) != null; i++) {
+                change.run();
+            }
+            onChange.run();
+        }
+    };
+
+    DiscoveryResultsView(VBox contentBox, SlideOutPanel slidePanel) {
+        this.contentBox = contentBox;
+        this.slidePanel = slidePanel;
+        // Only tick while on screen
+        contentBox.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) {
+                frames.start();
+            } else {
+                frames.stop();
+            }
+        });
+    }
+
+    /** Run after every frame that applied queued changes */
+    void setOnChange(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    /** Queue a newly found node; any thread */
+    void offerNode(DiscoveredNode node) {
+        pending.add(() -> add(node));
+    }
+
+    /** Queue a node whose details (its hostname, or that it was seen) arrived late; any thread */
+    void offerUpdate(DiscoveredNode node) {
+        pending.add(() -> update(node));
+    }
+
+    /** Queue the removal of a node the run dropped; any thread */
+    void offerRemoval(DiscoveredNode node) {
+        pending.add(() -> remove(node.ip));
+    }
+
+    /** Queue a discovery event; any thread */
+    void offerEvent(MonitorEvent event) {
+        // The bus delivers every event; only discovery ones touch the list
+        if (event instanceof MonitorEvent.NodeDiscovered || event instanceof MonitorEvent.NodeVanished
+                || event instanceof MonitorEvent.AddressChanged moved && moved.nodeId() == null) {
+            pending.add(() -> apply(event));
+        }
+    }
+
+    /** Number of nodes listed */
+    int size() {
+        return entries.size();
+    }
+
+    void apply(MonitorEvent event) {
+        if (event instanceof MonitorEvent.NodeDiscovered found) {
+            add(found.node());
+        } else if (event instanceof MonitorEvent.NodeVanished gone) {
+            remove(gone.node().ip);
+        } else if (event instanceof MonitorEvent.AddressChanged moved && moved.nodeId() == null) {
+            DiscoveredNode old = nodes.get(moved.oldIp());
+            if (old != null) {
+                remove(old.ip);
+                add(new DiscoveredNode(moved.newIp(), old.mac, old.hostname, old.iface, old.confirmed));
+            }
+        }
+    }
+
+    void add(DiscoveredNode node) {
+        if (nodes.containsKey(node.ip)) return;
+        VBox section = sections.computeIfAbsent(node.iface, iface -> {
+            VBox created = SlideOutForms.createInterfaceSection(iface, List.of(), slidePanel);
+            contentBox.getChildren().add(created);
+            return created;
+        });
+        VBox content = SlideOutForms.findContentArea(section);
+        int number = nextNumber.merge(node.iface, 1, Integer::sum);
+        VBox entry = SlideOutForms.createNodeEntry(node, slidePanel, number);
+        content.getChildren().add(entry);
+        nodes.put(node.ip, node);
+        entries.put(node.ip, entry);
+        numbers.put(node.ip, number);
+        SlideOutForms.updateNodeCount(section, content.getChildren().size());
+    }
+
+    /** Redraw a listed node in place; the section and its count stay as they are */
+    void update(DiscoveredNode node) {
+        VBox entry = entries.get(node.ip);
+        VBox section = entry != null ? SlideOutForms.findParentSection(entry) : null;
+        if (section == null) return;
+        List<Node> content = SlideOutForms.findContentArea(section).getChildren();
+        VBox redrawn = SlideOutForms.createNodeEntry(node, slidePanel, numbers.get(node.ip));
+        content.set(content.indexOf(entry), redrawn);
+        nodes.put(node.ip, node);
+        entries.put(node.ip, redrawn);
+    }
+
+    void remove(String ip) {
+        nodes.remove(ip);
+        numbers.remove(ip);
+        VBox entry = entries.remove(ip);
+        // Gone already if it was added to the map from here
+        VBox section = entry != null ? SlideOutForms.findParentSection(entry) : null;
+        if (section == null) return;
+        VBox content = SlideOutForms.findContentArea(section);
+        content.getChildren().remove(entry);
+        SlideOutForms.updateNodeCount(section, content.getChildren().size());
+    }
+}
@@ -7,11 +7,15 @@ import java.util.Map;
 import org.example.app.NetworkMonitorApp;
 import org.example.config.DeviceFormConfig;
 import org.example.config.DiscoveredNode;
+import org.example.config.ProbeSettings;
 import org.example.model.ConnectionType;
 import org.example.model.DeviceField;
 import org.example.model.DeviceType;
 import org.example.model.NetworkLocation;
 import org.example.model.NetworkNode;
+import org.example.model.OverflowPolicy;
+import org.example.service.ContinuousDiscovery;
+import org.example.service.EventBus;
 import org.example.service.NetworkDiscoveryService;
 import org.example.ui.panels.SlideOutPanel;
 
@@ -110,6 +114,11 @@ public class SlideOutForms {
                 newNode.setRouteSwitch(routeSwitch);
             }
 
+            // Servers with SSH are probed on port 22 since many drop ICMP
+            if ("Yes".equals(fieldValues.get(DeviceField.SSH_ENABLED))) {
+                newNode.setProbeSettings(ProbeSettings.tcp(ProbeSettings.SSH_PORT));
+            }
+
             // Set host node if virtual machine
             if (deviceType == DeviceType.VIRTUAL_MACHINE) {
                 String hostNodeValue = fieldValues.get(DeviceField.HOST_NODE);
@@ -244,23 +253,43 @@ public class SlideOutForms {
         //     cancelBtn
         // );
 
+        // Results stream in below the counters as they are found
+        VBox contentBox = new VBox(8);
+        contentBox.setPadding(new Insets(0, 4, 0, 4));
+        ScrollPane scrollPane = new ScrollPane(contentBox);
+        scrollPane.setFitToWidth(true);
+        scrollPane.getStyleClass().add("discovery-scroll-pane");
+        scrollPane.setMaxHeight(500);
+        contentBox.layoutBoundsProperty().addListener((obs, oldBounds, newBounds) ->
+            scrollPane.setPrefHeight(Math.min(newBounds.getHeight(), 500)));
+        panel.getChildren().add(scrollPane);
+        DiscoveryResultsView view = new DiscoveryResultsView(contentBox, slidePanel);
+
         // Create discovery service
-        NetworkDiscoveryService discoveryService = new NetworkDiscoveryService();
+        NetworkDiscoveryService discoveryService = new NetworkDiscoveryService(NetworkMonitorApp::getPersistentNodesStatic);
         java.util.concurrent.atomic.AtomicInteger discoveredCount = new java.util.concurrent.atomic.AtomicInteger(0);
+        view.setOnChange(() -> nodesLabel.setText("Discovered " + discoveredCount.get() + " Nodes"));
 
-        // Remove the fixed countdown timer and replace with progress updates
         discoveryService.startDiscovery(
             interfaceCount -> Platform.runLater(() -> 
                 interfacesLabel.setText("Checking " + interfaceCount + " interfaces")),
             iface -> {},
-            node -> Platform.runLater(() -> 
-                nodesLabel.setText("Discovered " + discoveredCount.incrementAndGet() + " Nodes"))
-        ).thenRun(() -> {
-            // Switch to results panel only after discovery is complete
-            Platform.runLater(() -> {
-                slidePanel.setContent(buildDiscoveryResultsPanel(slidePanel, discoveryService));
-            });
-        });
+            node -> {
+                discoveredCount.incrementAndGet();
+                view.offerNode(node);
+            },
+            view::offerUpdate,
+            node -> {
+                discoveredCount.decrementAndGet();
+                view.offerRemoval(node);
+            }
+        ).thenRun(() -> Platform.runLater(() -> {
+            // Everything found is already listed; just settle the controls
+            etaLabel.setText("Scan complete");
+            cancelBtn.setText("Close");
+            cancelBtn.setOnAction(e -> slidePanel.hide());
+            panel.getChildren().add(createWatchButton(view, panel));
+        }));
 
         // Update cancel button handler
         cancelBtn.setOnAction(e -> {
@@ -331,23 +360,61 @@ public class SlideOutForms {
         });
         
         // Get all discovered interfaces and create sections
-        discoveryService.getDiscoveredInterfaces().forEach(interfaceName -> {
-            List<DiscoveredNode> nodes = discoveryService.getNodesForInterface(interfaceName);
-            VBox section = createInterfaceSection(interfaceName, nodes, slidePanel);
-            contentBox.getChildren().add(section);
-            
-            // Debug section heights
-            Platform.runLater(() -> {
-                System.out.println("Section Height for " + interfaceName + ": " + section.getHeight());
-            });
-        });
+        DiscoveryResultsView view = new DiscoveryResultsView(contentBox, slidePanel);
+        discoveryService.getDiscoveredInterfaces().forEach(interfaceName ->
+            discoveryService.getNodesForInterface(interfaceName).forEach(view::add));
 
-        panel.getChildren().addAll(title, scrollPane);
+        Button watchBtn = createWatchButton(view, panel);
+
+        panel.getChildren().addAll(title, scrollPane, watchBtn);
         System.out.println("===========================\n");
         return panel;
     }
 
-    private static VBox createInterfaceSection(String interfaceName, List<DiscoveredNode> nodes, SlideOutPanel slidePanel) {
+    /**
+     * Toggle for background discovery. While it is on, its events patch the
+     * view; closing the panel only stops the view listening.
+     */
+    private static Button createWatchButton(DiscoveryResultsView view, Node panel) {
+        Button watchBtn = new Button();
+        watchBtn.getStyleClass().add("discovery-cancel-button");
+        watchBtn.setMaxWidth(Double.MAX_VALUE);
+        EventBus.Subscriber[] subscription = new EventBus.Subscriber[1];
+        Runnable watch = () -> {
+            ContinuousDiscovery discovery = ContinuousDiscovery.start(
+                NetworkMonitorApp::getPersistentNodesStatic, ContinuousDiscovery.DEFAULT_INTERVAL_MS);
+            discovery.getReported().forEach(view::add);
+            subscription[0] = EventBus.getInstance().subscribe("discovery-view", 256, OverflowPolicy.COALESCE_BY_NODE,
+                view::offerEvent);
+            watchBtn.setText("Stop Watching");
+        };
+        Runnable unsubscribe = () -> {
+            if (subscription[0] != null) {
+                subscription[0].cancel();
+                subscription[0] = null;
+            }
+        };
+        watchBtn.setOnAction(e -> {
+            if (subscription[0] == null) {
+                watch.run();
+            } else {
+                unsubscribe.run();
+                ContinuousDiscovery.stop();
+                watchBtn.setText("Watch for Changes");
+            }
+        });
+        if (ContinuousDiscovery.getInstance() != null) {
+            watch.run();
+        } else {
+            watchBtn.setText("Watch for Changes");
+        }
+        panel.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) unsubscribe.run();
+        });
+        return watchBtn;
+    }
+
+    static VBox createInterfaceSection(String interfaceName, List<DiscoveredNode> nodes, SlideOutPanel slidePanel) {
         VBox section = new VBox(4);
         section.getStyleClass().add("interface-section");
         section.setPadding(new Insets(8, 4, 8, 4));
@@ -412,14 +479,18 @@ public class SlideOutForms {
         return createNodeEntry(node, slidePanel, 0);
     }
 
-    private static VBox createNodeEntry(DiscoveredNode node, SlideOutPanel slidePanel, int nodeNumber) {
+    static VBox createNodeEntry(DiscoveredNode node, SlideOutPanel slidePanel, int nodeNumber) {
         VBox nodeBox = new VBox(4);
         nodeBox.getStyleClass().add("node-entry");
+        if (!node.confirmed) {
+            // Remembered from an earlier run, not seen yet in this one
+            nodeBox.getStyleClass().add("node-entry-unconfirmed");
+        }
         nodeBox.setPadding(new Insets(8));
         nodeBox.setMaxWidth(170);
 
         // Add node number label
-        Label numberLabel = new Label("Node " + nodeNumber);
+        Label numberLabel = new Label("Node " + nodeNumber + (node.confirmed ? "" : " (last seen earlier)"));
         numberLabel.getStyleClass().add("node-number-label");
 
         // Basic info section
@@ -581,6 +652,11 @@ public class SlideOutForms {
                 // Set MAC address
                 newNode.setMacAddress(node.mac);
 
+                // Servers with SSH are probed on port 22 since many drop ICMP
+                if ("Yes".equals(values.get(DeviceField.SSH_ENABLED.toString()))) {
+                    newNode.setProbeSettings(ProbeSettings.tcp(ProbeSettings.SSH_PORT));
+                }
+
                 // Set host node if virtual machine
                 if (deviceType == DeviceType.VIRTUAL_MACHINE) {
                     String hostNodeValue = values.get(DeviceField.HOST_NODE.toString());
@@ -889,7 +965,7 @@ public class SlideOutForms {
     }
 
     // New helper methods for node removal and section collapsing
-    private static VBox findParentSection(Node node) {
+    static VBox findParentSection(Node node) {
         Parent parent = node.getParent();
         while (parent != null) {
             if (parent instanceof VBox && parent.getStyleClass().contains("interface-section")) {
@@ -900,7 +976,7 @@ public class SlideOutForms {
         return null;
     }
 
-    private static VBox findContentArea(Node section) {
+    static VBox findContentArea(Node section) {
         if (section instanceof Parent) {
             Parent parent = (Parent) section;
             for (Node child : parent.getChildrenUnmodifiable()) {
@@ -912,7 +988,7 @@ public class SlideOutForms {
         return null;
     }
 
-    private static void updateNodeCount(Node section, int count) {
+    static void updateNodeCount(Node section, int count) {
         // Make sure section is a Parent
         if (section instanceof Parent) {
             Parent parent = (Parent) section;
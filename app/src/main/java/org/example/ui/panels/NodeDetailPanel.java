@@ -1,9 +1,8 @@
 package org.example.ui.panels;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import org.example.app.NetworkMonitorApp;
 import org.example.config.NodeDetailFieldConfig;
@@ -14,6 +13,16 @@ import org.example.model.DeviceType;
 import org.example.model.FieldSection;
 import org.example.model.NetworkLocation;
 import org.example.model.NetworkNode;
+import org.example.service.Alert;
+import org.example.service.AlertEngine;
+import org.example.service.DependencyTracker;
+import org.example.service.DiscoveryCache;
+import org.example.service.LatencyHistory;
+import org.example.service.NeighborTable;
+import org.example.service.PercentileTracker;
+import org.example.service.ProbeScheduler;
+import org.example.service.Rollup;
+import org.example.service.RollupEngine;
 import org.example.ui.components.ExpandableSection;
 
 import javafx.animation.KeyFrame;
@@ -156,36 +165,28 @@ public class NodeDetailPanel extends VBox {
             return;
         }
         
+        // Nothing to check while a node it depends on is down
+        if (DependencyTracker.getInstance().isUpstreamUnreachable(node.getNodeId())) {
+            Platform.runLater(() -> {
+                statusValue.setText("UPSTREAM DOWN");
+                statusValue.setFill(Color.web("#ff9500")); // Orange for upstream outage
+            });
+            return;
+        }
+
         // Set initial status to UNKNOWN while checking
         Platform.runLater(() -> {
             statusValue.setText("CHECKING...");
             statusValue.setFill(Color.YELLOW);
         });
         
-        // Force the node to ping and update its status
-        new Thread(() -> {
-            try {
-                // Get the IP or hostname
-                String ipOrHostname = node.getIpOrHostname();
-                
-                // Ping the node directly
-                java.net.InetAddress destAddr = java.net.InetAddress.getByName(ipOrHostname);
-                boolean reachable = destAddr.isReachable(1000);
-                
-                // Update the node status
-                node.setConnected(reachable);
-                
-                // Then update the UI from the JavaFX thread
-                Platform.runLater(() -> {
-                    updateConnectionStatus(reachable);
-                });
-            } catch (Exception e) {
-                // If ping fails, mark as offline
-                Platform.runLater(() -> {
-                    updateConnectionStatus(false);
-                });
-            }
-        }).start();
+        // One-off probe through the shared scheduler instead of a dedicated thread
+        // Only the panel shows the raw result; the node's connected flag follows the damped state on the bus
+        ProbeScheduler.getInstance().probeNow(node.getIpOrHostname(), node.getProbeSettings(), 1000).thenAccept(result -> {
+            Platform.runLater(() -> {
+                updateConnectionStatus(result.reachable);
+            });
+        });
     }
     
     /**
@@ -287,6 +288,9 @@ public class NodeDetailPanel extends VBox {
                     value, 
                     fieldConfig.isEditable()
                 );
+                if (fieldConfig.getField() == DeviceField.AVAILABILITY_30D && !fieldConfig.isEditable()) {
+                    loadAvailability30d(node, (Text) fieldBox.getChildren().get(1));
+                }
                 
                 // Add it to the section
                 sectionBox.addContent(fieldBox);
@@ -582,32 +586,41 @@ public class NodeDetailPanel extends VBox {
     }
     
     /**
-     * Queries the system ARP table to find the MAC address for a given IP
-     * @param ip The IP address to look up
+     * Looks the node up in the system ARP table, then in the discovery cache
      * @return The MAC address in format xx:xx:xx:xx:xx:xx or "N/A" if not found
      */
-    private String getMacAddressForIP(String ip) {
-        try {
-            // Execute the arp command to get the ARP table
-            Process p = Runtime.getRuntime().exec("arp -a");
-            BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            String line;
-            
-            // Search for the line containing the IP address
-            while ((line = r.readLine()) != null) {
-                if (line.contains(ip)) {
-                    // Parse the line to extract the MAC address
-                    String[] t = line.trim().split("\\s+");
-                    if (t.length >= 2) {
-                        // Format the MAC address with colons
-                        return t[1].replace('-', ':');
-                    }
-                }
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
+    private String getMacAddressForNode(NetworkNode node) {
+        NeighborTable neighbors = NeighborTable.getInstance();
+        String mac = neighbors.getMac(node.getIpOrHostname());
+        if (mac == null) {
+            mac = neighbors.getMac(node.getResolvedIp());
+        }
+        DiscoveryCache cache = DiscoveryCache.getInstance();
+        if (mac == null && cache != null) {
+            mac = cache.getMac(node.getIpOrHostname());
+            if (mac == null) mac = cache.getMac(node.getResolvedIp());
         }
-        return "N/A";
+        return mac != null ? mac : "N/A";
+    }
+
+    /**
+     * Summarising a month of rollups can mean reading them from disk, so do it
+     * off the FX thread and fill the field in when it is done.
+     */
+    private void loadAvailability30d(NetworkNode node, Text valueText) {
+        CompletableFuture.supplyAsync(() -> {
+            RollupEngine rollups = RollupEngine.getInstance();
+            if (rollups == null) return "No data";
+            long now = System.currentTimeMillis();
+            long range = 30 * 24 * 3600_000L;
+            // One number for the whole month, so any resolution will do: hourly rollups
+            Rollup month = rollups.summarize(node.getIpOrHostname(), now - range, now, range);
+            return month.isEmpty() ? "No data"
+                : String.format("%.3f%% (%d samples)", month.getAvailability() * 100, month.getCount());
+        }).whenComplete((value, error) -> Platform.runLater(() -> {
+            if (currentNode != node) return;   // the panel moved on to another node
+            valueText.setText(value != null ? value : "No data");
+        }));
     }
 
         private String getNodeFieldValue(NetworkNode node, DeviceField field) {
@@ -628,7 +641,7 @@ public class NodeDetailPanel extends VBox {
                 String mac = node.getMacAddress();
                 if (mac == null || mac.isEmpty()) {
                     // Try to look up MAC address for the IP
-                    return getMacAddressForIP(node.getIpOrHostname());
+                    return getMacAddressForNode(node);
                 }
                 return mac;
                 
@@ -697,6 +710,51 @@ public class NodeDetailPanel extends VBox {
                 }
                 return "None";
                 
+            case AVAILABILITY_24H: {
+                long now = System.currentTimeMillis();
+                LatencyHistory.Window window = LatencyHistory.getInstance()
+                    .window(node.getIpOrHostname(), now - 24 * 3600_000L, now);
+                double availability = window.getAvailability();
+                return Double.isNaN(availability) ? "No data"
+                    : String.format("%.2f%% (%d samples)", availability * 100, window.size());
+            }
+
+            case AVG_LATENCY_1H: {
+                long now = System.currentTimeMillis();
+                double meanMicros = LatencyHistory.getInstance()
+                    .window(node.getIpOrHostname(), now - 3600_000L, now).getMeanLatencyMicros();
+                return Double.isNaN(meanMicros) ? "No data" : String.format("%.1f ms", meanMicros / 1000);
+            }
+
+            case AVAILABILITY_30D:
+                // Filled in by loadAvailability30d once the rollups are read
+                return "Loading...";
+
+            case LATENCY_PERCENTILES: {
+                String percentiles = PercentileTracker.format(
+                    PercentileTracker.getInstance().getNodeSketch(node.getNodeId()));
+                return percentiles != null ? percentiles : "No data";
+            }
+
+            case SUBTREE_LATENCY_PERCENTILES: {
+                String percentiles = PercentileTracker.format(
+                    PercentileTracker.getInstance().getSubtreeSketch(node.getNodeId()));
+                return percentiles != null ? percentiles : "No data";
+            }
+
+            case ACTIVE_ALERTS: {
+                AlertEngine alerts = AlertEngine.getInstance();
+                if (alerts == null) return "Alerting off";
+                List<Alert> firing = alerts.getActiveAlerts(node.getNodeId());
+                if (firing.isEmpty()) return "None";
+                StringBuilder text = new StringBuilder();
+                for (Alert alert : firing) {
+                    if (text.length() > 0) text.append('\n');
+                    text.append(alert.rule).append(" (").append(alert.severity).append("): ").append(alert.message);
+                }
+                return text.toString();
+            }
+
             // Add other fields as needed
             default:
                 return "N/A";
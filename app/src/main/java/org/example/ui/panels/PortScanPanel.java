@@ -0,0 +1,263 @@
+package org.example.ui.panels;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.example.model.NetworkNode;
+import org.example.model.PortState;
+import org.example.service.LatencySketch;
+import org.example.service.PercentileTracker;
+import org.example.service.PortScanner;
+import org.example.service.ResolverCache;
+import org.example.util.PortSet;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+
+/**
+ * Portscan results for one node, shown in the right slide panel.
+ *
+ * The scanner reports on its selector thread, so results are queued and
+ * drained once per frame: a LAN host answers a thousand ports in well under
+ * a second, and one layout pass per frame keeps that from stalling the UI.
+ */
+public class PortScanPanel extends VBox {
+    private final NetworkNode targetNode;
+    private final TextField portsField;
+    private final Label statusLabel;
+    private final VBox resultsBox;
+    private final Button closeButton;
+    private final ConcurrentLinkedQueue<PortScanner.PortResult> pending = new ConcurrentLinkedQueue<>();
+    private final AnimationTimer drainTimer;
+
+    private PortScanner.Scan activeScan;
+    private volatile int generation;   // results of a replaced scan are dropped
+    private long scanStartNanos;
+    private int openCount;
+
+    public PortScanPanel(NetworkNode targetNode) {
+        this.targetNode = targetNode;
+
+        setPadding(new Insets(5));
+        setSpacing(5);
+
+        Label title = new Label(targetNode.getDisplayName());
+        title.getStyleClass().add("portscan-title");
+
+        // Ports to scan, starting from the preset for the node's device type
+        portsField = new TextField(PortSet.presetFor(targetNode.getDeviceType()));
+        portsField.getStyleClass().add("portscan-ports-field");
+        portsField.setOnAction(e -> startScan());
+
+        Button scanButton = new Button("Scan");
+        scanButton.getStyleClass().add("portscan-scan-button");
+        scanButton.setOnAction(e -> startScan());
+
+        HBox portsRow = new HBox(5, portsField, scanButton);
+        portsRow.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(portsField, Priority.ALWAYS);
+
+        resultsBox = new VBox(2);
+        resultsBox.setPrefWidth(170); // 200px - 10px padding on each side
+
+        ScrollPane scrollPane = new ScrollPane(resultsBox);
+        scrollPane.setFitToWidth(true);
+        scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        scrollPane.getStyleClass().add("traceroute-scrollpane");
+        scrollPane.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
+        VBox.setVgrow(scrollPane, Priority.ALWAYS);
+
+        statusLabel = new Label("READY");
+        statusLabel.getStyleClass().add("traceroute-status-label");
+        statusLabel.setMaxWidth(Double.MAX_VALUE);
+        statusLabel.setWrapText(true);
+
+        closeButton = createCloseButton();
+
+        getChildren().addAll(title, portsRow, scrollPane, statusLabel, closeButton);
+        VBox.setMargin(statusLabel, new Insets(10, 5, 5, 5));
+
+        drainTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drainResults();
+            }
+        };
+
+        // Stop scanning if the panel is replaced or its window goes away
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) stopScan();
+        });
+
+        // Add ESC key handler
+        setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                closePortScan();
+                e.consume();
+            }
+        });
+    }
+
+    /**
+     * Scan the ports in the spec field, replacing any scan still running.
+     */
+    public void startScan() {
+        PortSet ports;
+        try {
+            ports = PortSet.parse(portsField.getText());
+        } catch (IllegalArgumentException e) {
+            setStatus(e.getMessage().toUpperCase(), "traceroute-status-failed");
+            return;
+        }
+        PortScanner scanner = PortScanner.getInstance();
+        if (scanner == null) {
+            setStatus("PORT SCANNER UNAVAILABLE", "traceroute-status-failed");
+            return;
+        }
+
+        stopScan();
+        pending.clear();
+        resultsBox.getChildren().clear();
+        openCount = 0;
+        setStatus("RESOLVING", "traceroute-status-inprogress");
+
+        String target = targetNode.getIpOrHostname();
+        long rttHintMicros = rttHintMicros();
+        int scanGeneration = generation;
+        ResolverCache.getInstance().resolveAsync(target).whenComplete((address, error) -> Platform.runLater(() -> {
+            // Replaced by a newer scan or closed while resolving
+            if (scanGeneration != generation || getScene() == null) return;
+            if (address == null) {
+                setStatus("FAILED: Cannot resolve " + target, "traceroute-status-failed");
+                return;
+            }
+            scanStartNanos = System.nanoTime();
+            activeScan = scanner.scan(target, address, ports, rttHintMicros, result -> {
+                if (result.state() == PortState.OPEN && scanGeneration == generation) pending.add(result);
+            });
+            setStatus("SCANNING 0/" + activeScan.getTotal(), "traceroute-status-inprogress");
+            drainTimer.start();
+        }));
+    }
+
+    private void drainResults() {
+        PortScanner.Scan scan = activeScan;
+        PortScanner.PortResult result;
+        while ((result = pending.poll()) != null) {
+            addOpenPort(result);
+        }
+        if (scan == null) {
+            drainTimer.stop();
+            return;
+        }
+        if (!scan.getFuture().isDone()) {
+            statusLabel.setText("SCANNING " + scan.getCompleted() + "/" + scan.getTotal());
+            return;
+        }
+
+        drainTimer.stop();
+        activeScan = null;
+        double seconds = (System.nanoTime() - scanStartNanos) / 1e9;
+        if (scan.getCompleted() < scan.getTotal()) {
+            setStatus(String.format("STOPPED: %d open of %d/%d ports", openCount, scan.getCompleted(),
+                scan.getTotal()), "traceroute-status-failed");
+        } else {
+            setStatus(String.format("COMPLETED: %d open of %d ports in %.1f s", openCount, scan.getTotal(),
+                seconds), "traceroute-status-completed");
+        }
+    }
+
+    private void addOpenPort(PortScanner.PortResult result) {
+        openCount++;
+        Label port = new Label(result.port() + "/tcp");
+        port.getStyleClass().add("portscan-port");
+        Label service = new Label(PortSet.getServiceName(result.port()));
+        service.getStyleClass().add("portscan-service");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        Label rtt = new Label(String.format("%.1f ms", result.rttMicros() / 1000.0));
+        rtt.getStyleClass().add("portscan-rtt");
+
+        HBox row = new HBox(6, port, service, spacer, rtt);
+        row.setAlignment(Pos.CENTER_LEFT);
+        row.getStyleClass().add("portscan-row");
+
+        // Keep the list in port order; results arrive roughly, not exactly, in it
+        int index = 0;
+        for (javafx.scene.Node child : resultsBox.getChildren()) {
+            if ((int) child.getUserData() > result.port()) break;
+            index++;
+        }
+        row.setUserData(result.port());
+        resultsBox.getChildren().add(index, row);
+    }
+
+    /** The node's p95 probe latency, so the first timeouts already fit the host */
+    private long rttHintMicros() {
+        LatencySketch sketch = PercentileTracker.getInstance().getNodeSketch(targetNode.getNodeId());
+        return sketch.isEmpty() ? 0 : Math.round(sketch.quantile(0.95));
+    }
+
+    private void setStatus(String text, String styleClass) {
+        statusLabel.setText(text);
+        statusLabel.getStyleClass().removeAll("traceroute-status-inprogress", "traceroute-status-completed",
+            "traceroute-status-failed");
+        statusLabel.getStyleClass().add(styleClass);
+    }
+
+    private void stopScan() {
+        generation++;
+        PortScanner.Scan scan = activeScan;
+        activeScan = null;
+        if (scan != null) {
+            scan.cancel();
+        }
+        drainTimer.stop();
+    }
+
+    private Button createCloseButton() {
+        Button button = new Button("Close & Stop");
+        button.getStyleClass().add("traceroute-close-button");
+        button.setPrefHeight(40);
+        button.setPrefWidth(Double.MAX_VALUE);
+        button.setMaxWidth(Double.MAX_VALUE);
+        button.setAlignment(Pos.CENTER);
+
+        VBox.setMargin(button, new Insets(5, 5, 5, 5));
+
+        button.setOnAction(e -> closePortScan());
+
+        return button;
+    }
+
+    private void closePortScan() {
+        stopScan();
+
+        RightSlidePanel panel = findParentPanel();
+        if (panel != null) {
+            panel.hide();
+        }
+    }
+
+    private RightSlidePanel findParentPanel() {
+        javafx.scene.Node current = this;
+        while (current != null) {
+            if (current instanceof RightSlidePanel) {
+                return (RightSlidePanel) current;
+            }
+            current = current.getParent();
+        }
+        return null;
+    }
+}
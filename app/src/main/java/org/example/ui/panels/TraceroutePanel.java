@@ -1,12 +1,12 @@
 package org.example.ui.panels;
 
-import java.net.InetAddress; // Add this import statement
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.example.app.NetworkMonitorApp;
 import org.example.model.NetworkNode;
+import org.example.service.ResolverCache;
 import org.example.service.TracerouteTask;
 import org.example.ui.components.TracerouteHop;
 
@@ -327,7 +327,7 @@ public class TraceroutePanel extends VBox {
             // Try to resolve the IP address (important for hostname comparisons)
             String resolvedIp = ipAddress;
             try {
-                resolvedIp = InetAddress.getByName(ipAddress).getHostAddress();
+                resolvedIp = ResolverCache.getInstance().resolve(ipAddress).getHostAddress();
             } catch (Exception e) {
                 // Keep original IP if resolution fails
             }
@@ -341,7 +341,7 @@ public class TraceroutePanel extends VBox {
                 
                 // Try to match by resolved IP
                 try {
-                    String nodeIp = InetAddress.getByName(node.getIpOrHostname()).getHostAddress();
+                    String nodeIp = ResolverCache.getInstance().resolve(node.getIpOrHostname()).getHostAddress();
                     if (nodeIp.equals(resolvedIp)) {
                         return node;
                     }
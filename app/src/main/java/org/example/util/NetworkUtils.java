@@ -3,16 +3,16 @@ package org.example.util;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 public class NetworkUtils {
     /** 
@@ -180,21 +180,6 @@ public class NetworkUtils {
             mask & 0xFF);
     }
 
-    /**
-     * Calculates the network address from IP and subnet mask
-     */
-    private static String calculateNetworkAddress(String ip, String subnetMask) {
-        String[] ipParts = ip.split("\\.");
-        String[] maskParts = subnetMask.split("\\.");
-        int[] network = new int[4];
-        
-        for (int i = 0; i < 4; i++) {
-            network[i] = Integer.parseInt(ipParts[i]) & Integer.parseInt(maskParts[i]);
-        }
-        
-        return String.format("%d.%d.%d.%d", network[0], network[1], network[2], network[3]);
-    }
-
     /**
      * Gets all local IP addresses and subnet masks
      * @return List of String[] where [0] is IP address and [1] is subnet mask
@@ -238,114 +223,44 @@ public class NetworkUtils {
     }
 
     /**
-     * Performs a ping sweep of the local subnet
-     * @return List of responsive IP addresses
+     * The IPv4 subnets of every active non-loopback interface, each taken from
+     * the interface address's own prefix length. Subnets wider than /16 are
+     * narrowed to the /16 around our address.
      */
-    public static List<String> pingSweep() {
-        List<String> activeHosts = new ArrayList<>();
-        List<String[]> allNetworkInfo = getAllLocalNetworkInfo();
-        
-        if (allNetworkInfo.isEmpty()) {
-            System.err.println("[DEBUG] Could not determine network information");
-            return activeHosts;
-        }
-
-        // Create thread pool for parallel execution
-        ExecutorService executor = Executors.newFixedThreadPool(20);
-        List<Future<String>> futures = new ArrayList<>();
-        int attemptedPings = 0;
-
-        // Scan each network interface
-        for (String[] networkInfo : allNetworkInfo) {
-            String localIp = networkInfo[0];
-            String subnetMask = networkInfo[1];
-            String networkAddress = calculateNetworkAddress(localIp, subnetMask);
-            
-            System.out.println("\n[DEBUG] Network Sweep Details:");
-            System.out.println("Local IP: " + localIp);
-            System.out.println("Subnet Mask: " + subnetMask);
-            System.out.println("Network Address: " + networkAddress);
-
-            // Calculate hosts for this subnet
-            String[] networkParts = networkAddress.split("\\.");
-            String[] maskParts = subnetMask.split("\\.");
-            int[] network = new int[4];
-            int[] mask = new int[4];
-            
-            for (int i = 0; i < 4; i++) {
-                network[i] = Integer.parseInt(networkParts[i]);
-                mask[i] = Integer.parseInt(maskParts[i]);
+    public static List<Subnet> getLocalSubnets() {
+        List<Subnet> subnets = new ArrayList<>();
+        for (Subnet subnet : getLocalSubnetsByAddress().values()) {
+            if (!subnets.contains(subnet)) {
+                subnets.add(subnet);
             }
+        }
+        return subnets;
+    }
 
-            // Calculate total hosts to scan based on subnet mask
-            int hostBits = 32 - Integer.bitCount((mask[0] << 24) | (mask[1] << 16) | (mask[2] << 8) | mask[3]);
-            int totalHosts = (1 << hostBits) - 2;
-            
-            System.out.println("Total hosts to scan: " + totalHosts);
-            System.out.println("Starting ping sweep for this subnet...\n");
-
-            // Iterate through possible addresses for this subnet
-            for (int i = 1; i < 255; i++) {
-                final String ipToTest = String.format("%d.%d.%d.%d",
-                    network[0],
-                    network[1],
-                    network[2],
-                    i);
-
-                // Skip if it's our own IP
-                if (ipToTest.equals(localIp)) {
-                    System.out.println("[DEBUG] Skipping local IP: " + ipToTest);
+    /**
+     * The same subnets keyed by our own address on each, so a host found in a
+     * subnet can be put down to the interface it was reached through.
+     */
+    public static Map<String, Subnet> getLocalSubnetsByAddress() {
+        Map<String, Subnet> subnets = new LinkedHashMap<>();
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces.hasMoreElements()) {
+                NetworkInterface iface = interfaces.nextElement();
+                if (iface.isLoopback() || !iface.isUp()) {
                     continue;
                 }
-
-                attemptedPings++;
-                System.out.println("[DEBUG] Queuing ping to: " + ipToTest);
-
-                // Submit ping task
-                futures.add(executor.submit(() -> {
-                    try {
-                        Process ping = new ProcessBuilder("ping", "-n", "1", "-w", "500", ipToTest).start();
-                        if (ping.waitFor() == 0) {
-                            System.out.println("[DEBUG] ✓ Host responding: " + ipToTest);
-                            return ipToTest;
-                        } else {
-                            System.out.println("[DEBUG] ✗ No response from: " + ipToTest);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("[DEBUG] Error pinging " + ipToTest + ": " + e.getMessage());
+                for (InterfaceAddress interfaceAddress : iface.getInterfaceAddresses()) {
+                    if (!(interfaceAddress.getAddress() instanceof Inet4Address address)) {
+                        continue;
                     }
-                    return null;
-                }));
-            }
-        }
-
-        // Collect results
-        for (Future<String> future : futures) {
-            try {
-                String result = future.get(750, TimeUnit.MILLISECONDS);
-                if (result != null) {
-                    activeHosts.add(result);
+                    int prefixLength = Math.max(interfaceAddress.getNetworkPrefixLength(), Subnet.MIN_PREFIX);
+                    subnets.put(address.getHostAddress(), Subnet.of(address, prefixLength));
                 }
-            } catch (Exception e) {
-                // Timeout or execution exception - ignore
             }
+        } catch (SocketException e) {
+            e.printStackTrace();
         }
-
-        executor.shutdown();
-        try {
-            executor.awaitTermination(30, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        System.out.println("\n[DEBUG] Ping sweep summary:");
-        System.out.println("Attempted pings: " + attemptedPings);
-        System.out.println("Responsive hosts: " + activeHosts.size());
-        System.out.println("Response rate: " + String.format("%.1f%%", (activeHosts.size() / (double)attemptedPings) * 100));
-        System.out.println("Active hosts:");
-        activeHosts.forEach(host -> System.out.println("- " + host));
-        System.out.println();
-
-        return activeHosts;
+        return subnets;
     }
 }
@@ -0,0 +1,170 @@
+package org.example.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.example.model.DeviceType;
+
+/**
+ * An ordered set of TCP ports to scan, written as a spec such as
+ * "top100,8000-8100,8291": a comma separated mix of topN, ranges and single
+ * ports. Order matters, since a scan reports in roughly the order it probes:
+ * duplicates keep their first position.
+ *
+ * topN is the commonly open ports first, roughly in order of how often they
+ * are found open, then the rest of 1..65535 in order until there are N.
+ * Each {@link DeviceType} has a preset spec, which can be replaced with the
+ * nodemonitor.portscan.&lt;type&gt; system property (e.g.
+ * -Dnodemonitor.portscan.router=top200).
+ */
+public final class PortSet {
+    private static final int[] COMMON_PORTS = {
+        80, 23, 443, 21, 22, 25, 3389, 110, 445, 139, 143, 53, 135, 3306, 8080, 1723, 111, 995, 993,
+        5900, 1025, 587, 8888, 199, 1720, 465, 548, 113, 81, 6001, 10000, 514, 5060, 179, 1026, 2000,
+        8443, 8000, 32768, 554, 26, 1433, 49152, 2001, 515, 8008, 49154, 1027, 5666, 646, 5000, 5631,
+        631, 49153, 8081, 2049, 88, 79, 5800, 106, 2121, 1110, 49155, 6000, 513, 990, 5357, 427,
+        49156, 543, 544, 5101, 144, 7, 389, 8009, 9100, 62078, 1883, 8883, 5432, 6379, 27017, 9200,
+        2375, 9090, 3000, 5001, 8123, 32400, 37777, 8060, 7000, 8291, 8728, 1900
+    };
+
+    private static final Map<DeviceType, String> PRESETS = Map.ofEntries(
+        Map.entry(DeviceType.COMPUTER, "22,135,139,445,3389,5900,5357,top100"),
+        Map.entry(DeviceType.LAPTOP, "22,135,139,445,3389,5900,5357,top100"),
+        Map.entry(DeviceType.SERVER, "top1000"),
+        Map.entry(DeviceType.VIRTUAL_MACHINE, "top1000"),
+        Map.entry(DeviceType.ROUTER, "21,22,23,53,80,443,179,1900,8080,8291,8443,8728,top100"),
+        Map.entry(DeviceType.GATEWAY, "21,22,23,53,80,443,179,1900,8080,8291,8443,8728,top100"),
+        Map.entry(DeviceType.MANAGED_SWITCH, "22,23,80,443,830,8080,8443"),
+        Map.entry(DeviceType.UNMANAGED_SWITCH, "80,443"),
+        Map.entry(DeviceType.WIRELESS_ACCESS_POINT, "22,23,80,443,8080,8443,8880"),
+        Map.entry(DeviceType.PHONE, "62078,49152,8080,8443"),
+        Map.entry(DeviceType.TV, "7000,8001,8002,8008,8009,8060,9080,1925,1926,55000"),
+        Map.entry(DeviceType.SECURITY_CAMERA, "80,443,554,8000,8080,8443,8554,37777,34567")
+    );
+
+    private static final Map<Integer, String> SERVICES = Map.ofEntries(
+        Map.entry(21, "ftp"), Map.entry(22, "ssh"), Map.entry(23, "telnet"), Map.entry(25, "smtp"),
+        Map.entry(53, "dns"), Map.entry(80, "http"), Map.entry(110, "pop3"), Map.entry(111, "rpcbind"),
+        Map.entry(135, "msrpc"), Map.entry(139, "netbios"), Map.entry(143, "imap"), Map.entry(179, "bgp"),
+        Map.entry(389, "ldap"), Map.entry(443, "https"), Map.entry(445, "smb"), Map.entry(465, "smtps"),
+        Map.entry(515, "lpd"), Map.entry(548, "afp"), Map.entry(554, "rtsp"), Map.entry(587, "submission"),
+        Map.entry(631, "ipp"), Map.entry(830, "netconf"), Map.entry(993, "imaps"), Map.entry(995, "pop3s"),
+        Map.entry(1433, "mssql"), Map.entry(1723, "pptp"), Map.entry(1883, "mqtt"), Map.entry(1900, "upnp"),
+        Map.entry(2049, "nfs"), Map.entry(2375, "docker"), Map.entry(3306, "mysql"), Map.entry(3389, "rdp"),
+        Map.entry(5060, "sip"), Map.entry(5432, "postgres"), Map.entry(5900, "vnc"),
+        Map.entry(6379, "redis"), Map.entry(8008, "http-alt"), Map.entry(8009, "cast"),
+        Map.entry(8080, "http-proxy"), Map.entry(8123, "home-assistant"), Map.entry(8291, "winbox"),
+        Map.entry(8443, "https-alt"), Map.entry(8728, "routeros-api"), Map.entry(8883, "mqtts"),
+        Map.entry(9100, "jetdirect"), Map.entry(9200, "elasticsearch"), Map.entry(27017, "mongodb"),
+        Map.entry(32400, "plex"), Map.entry(37777, "dahua"), Map.entry(62078, "iphone-sync")
+    );
+
+    private final int[] ports;
+    private final String spec;
+
+    private PortSet(int[] ports, String spec) {
+        this.ports = ports;
+        this.spec = spec;
+    }
+
+    /**
+     * Parse a spec like "top100,8000-8100,22".
+     *
+     * @throws IllegalArgumentException if a part is not a port, range or topN
+     */
+    public static PortSet parse(String spec) {
+        Set<Integer> ports = new LinkedHashSet<>();
+        for (String part : spec.split(",")) {
+            String p = part.trim().toLowerCase();
+            if (p.isEmpty()) continue;
+            try {
+                if (p.startsWith("top")) {
+                    addTop(ports, Integer.parseInt(p.substring(3)));
+                } else if (p.contains("-")) {
+                    String[] bounds = p.split("-", 2);
+                    int from = port(bounds[0]);
+                    int to = port(bounds[1]);
+                    if (from > to) throw new IllegalArgumentException("Empty port range: " + part);
+                    for (int port = from; port <= to; port++) ports.add(port);
+                } else {
+                    ports.add(port(p));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a port, range or topN: " + part);
+            }
+        }
+        if (ports.isEmpty()) throw new IllegalArgumentException("No ports in " + spec);
+        return new PortSet(ports.stream().mapToInt(Integer::intValue).toArray(), spec.trim());
+    }
+
+    public static PortSet top(int n) {
+        return parse("top" + n);
+    }
+
+    public static PortSet range(int from, int to) {
+        return parse(from + "-" + to);
+    }
+
+    /** The preset spec for a device type, or top100 for a node without one */
+    public static String presetFor(DeviceType type) {
+        String preset = type != null ? PRESETS.get(type) : null;
+        if (type != null) {
+            preset = System.getProperty("nodemonitor.portscan." + type.name().toLowerCase(), preset);
+        }
+        return preset != null ? preset : "top100";
+    }
+
+    /** The usual service on a port, e.g. "ssh" for 22, or "" if it has none worth naming */
+    public static String getServiceName(int port) {
+        return SERVICES.getOrDefault(port, "");
+    }
+
+    public int size() {
+        return ports.length;
+    }
+
+    public int get(int index) {
+        return ports[index];
+    }
+
+    public int[] toArray() {
+        return ports.clone();
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static void addTop(Set<Integer> ports, int n) {
+        if (n < 1 || n > 65535) throw new IllegalArgumentException("top" + n + " is out of range");
+        int added = 0;
+        Set<Integer> top = new LinkedHashSet<>();
+        for (int port : COMMON_PORTS) {
+            if (added == n) break;
+            if (top.add(port)) added++;
+        }
+        for (int port = 1; added < n; port++) {
+            if (top.add(port)) added++;
+        }
+        ports.addAll(top);
+    }
+
+    private static int port(String s) {
+        int port = Integer.parseInt(s.trim());
+        if (port < 1 || port > 65535) throw new IllegalArgumentException("Port out of range: " + s);
+        return port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PortSet other && Arrays.equals(ports, other.ports);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ports);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.util;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * An IPv4 prefix such as 192.168.4.0/22, with its host addresses numbered
+ * from 0 so a sweep can walk them without building a list.
+ */
+public final class Subnet {
+    public static final int MIN_PREFIX = 16;   // 65534 hosts; anything wider is not swept
+
+    private final int network;
+    private final int prefixLength;
+
+    private Subnet(int network, int prefixLength) {
+        this.network = network;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * The subnet an address belongs to, e.g. of(192.168.4.77, 22) is
+     * 192.168.4.0/22.
+     */
+    public static Subnet of(Inet4Address address, int prefixLength) {
+        if (prefixLength < 0 || prefixLength > 32) {
+            throw new IllegalArgumentException("Prefix length out of range: " + prefixLength);
+        }
+        return new Subnet(toInt(address) & mask(prefixLength), prefixLength);
+    }
+
+    /** Parse "a.b.c.d/n"; a bare address is a /32 */
+    public static Subnet parse(String cidr) {
+        String[] parts = cidr.trim().split("/");
+        try {
+            InetAddress address = InetAddress.getByName(parts[0]);
+            if (!(address instanceof Inet4Address) || !parts[0].matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
+                throw new IllegalArgumentException("Not an IPv4 address: " + parts[0]);
+            }
+            return of((Inet4Address) address, parts.length > 1 ? Integer.parseInt(parts[1]) : 32);
+        } catch (UnknownHostException | NumberFormatException e) {
+            throw new IllegalArgumentException("Not a CIDR prefix: " + cidr, e);
+        }
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Usable host addresses: all but the network and broadcast address, except
+     * for /31 point-to-point links and single /32 hosts.
+     */
+    public int getHostCount() {
+        long size = 1L << (32 - prefixLength);
+        return (int) (prefixLength >= 31 ? size : size - 2);
+    }
+
+    /** The index-th host address, 0 based */
+    public Inet4Address getHost(int index) {
+        if (index < 0 || index >= getHostCount()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return toAddress(network + (prefixLength >= 31 ? index : index + 1));
+    }
+
+    public boolean contains(Inet4Address address) {
+        return (toInt(address) & mask(prefixLength)) == network;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Subnet other && other.network == network && other.prefixLength == prefixLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return network * 31 + prefixLength;
+    }
+
+    @Override
+    public String toString() {
+        return toAddress(network).getHostAddress() + "/" + prefixLength;
+    }
+
+    private static int mask(int prefixLength) {
+        return prefixLength == 0 ? 0 : 0xffffffff << (32 - prefixLength);
+    }
+
+    private static int toInt(Inet4Address address) {
+        byte[] b = address.getAddress();
+        return (b[0] & 0xff) << 24 | (b[1] & 0xff) << 16 | (b[2] & 0xff) << 8 | (b[3] & 0xff);
+    }
+
+    private static Inet4Address toAddress(int value) {
+        byte[] b = { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+        try {
+            return (Inet4Address) InetAddress.getByAddress(b);
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);   // four bytes are always a valid address
+        }
+    }
+}
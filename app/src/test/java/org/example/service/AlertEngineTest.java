@@ -0,0 +1,255 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.example.config.AlertConfig;
+import org.example.config.AlertRule;
+import org.example.model.AlertCondition;
+import org.example.model.ConnectionType;
+import org.example.model.DeviceType;
+import org.example.model.NetworkLocation;
+import org.example.model.NodeModel;
+import org.junit.jupiter.api.Test;
+
+public class AlertEngineTest {
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    void webhookPostsNotificationAsJson() throws Exception {
+        BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/hook", exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/broken", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            new WebhookAlertSink("hook", base + "/hook").send(notification());
+
+            String body = bodies.poll(5, TimeUnit.SECONDS);
+            assertNotNull(body);
+            assertTrue(body.contains("\"rule\":\"Node down\""), body);
+            assertTrue(body.contains("\"status\":\"firing\""), body);
+
+            assertThrows(IOException.class,
+                () -> new WebhookAlertSink("broken", base + "/broken").send(notification()));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void smtpSinkTalksToRelay() throws Exception {
+        List<String> received = new ArrayList<>();
+        try (ServerSocket relay = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread standIn = new Thread(() -> {
+                try (Socket client = relay.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                    OutputStream out = client.getOutputStream();
+                    reply(out, "220 relay ready");
+                    boolean data = false;
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        received.add(line);
+                        if (data) {
+                            if (line.equals(".")) {
+                                data = false;
+                                reply(out, "250 queued");
+                            }
+                        } else if (line.startsWith("EHLO")) {
+                            reply(out, "250-relay\r\n250 8BITMIME");
+                        } else if (line.equals("DATA")) {
+                            data = true;
+                            reply(out, "354 go ahead");
+                        } else if (line.equals("QUIT")) {
+                            reply(out, "221 bye");
+                            return;
+                        } else {
+                            reply(out, "250 ok");
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            standIn.start();
+
+            new SmtpAlertSink("mail", "127.0.0.1", relay.getLocalPort(), "monitor@example.org",
+                List.of("ops@example.org")).send(notification());
+            standIn.join(5000);
+        }
+
+        assertTrue(received.contains("MAIL FROM:<monitor@example.org>"), received.toString());
+        assertTrue(received.contains("RCPT TO:<ops@example.org>"), received.toString());
+        assertTrue(received.stream().anyMatch(line -> line.startsWith("Subject: [NodeMonitor] FIRING: Node down")),
+            received.toString());
+        assertEquals("QUIT", received.get(received.size() - 1));
+    }
+
+    @Test
+    void downAlertsBehindOneSwitchAreGroupedAndSentOnce() throws Exception {
+        AlertConfig config = new AlertConfig();
+        config.getRules().add(new AlertRule("Node down", AlertCondition.NODE_DOWN, 60, "critical"));
+        CapturingSink sink = new CapturingSink();
+        AlertEngine engine = new AlertEngine(config, List.of(sink));
+        engine.setNodes(List.of(
+            node(1, null, DeviceType.UNMANAGED_SWITCH, "Switch"),
+            node(2, 1L, DeviceType.COMPUTER, "Desk"),
+            node(3, 1L, DeviceType.COMPUTER, "Printer")));
+
+        engine.onEvent(new MonitorEvent.NodeDown(2, "10.0.0.2", null, T0));
+        engine.onEvent(new MonitorEvent.NodeDown(3, "10.0.0.3", null, T0 + 1000));
+        engine.tick(T0 + 59_000);
+        assertTrue(engine.getActiveAlerts(2).isEmpty());
+
+        engine.tick(T0 + 61_000);
+        assertEquals(1, engine.getActiveAlerts(2).size());
+        engine.onEvent(new MonitorEvent.NodeDown(2, "10.0.0.2", null, T0 + 62_000));   // still the same episode
+        engine.tick(T0 + 71_000);
+
+        AlertNotification fired = sink.next();
+        assertEquals("behind Switch", fired.group);
+        assertEquals(2, fired.alerts.size());
+        assertTrue(fired.alerts.stream().allMatch(Alert::isFiring));
+        assertNull(sink.poll());
+
+        engine.onEvent(new MonitorEvent.NodeUp(2, "10.0.0.2", 1000, T0 + 80_000));
+        engine.onEvent(new MonitorEvent.NodeUp(3, "10.0.0.3", 1000, T0 + 80_000));
+        engine.tick(T0 + 91_000);
+        AlertNotification resolved = sink.next();
+        assertEquals(2, resolved.alerts.size());
+        assertFalse(resolved.alerts.stream().anyMatch(Alert::isFiring));
+        assertTrue(engine.getActiveAlerts(2).isEmpty());
+        engine.close();
+    }
+
+    @Test
+    void latencyRuleIsRateLimitedPerSink() throws Exception {
+        AlertConfig config = new AlertConfig();
+        AlertRule rule = new AlertRule("High latency", AlertCondition.P95_LATENCY_ABOVE, 100, "warning");
+        rule.setSamples(5);
+        config.getRules().add(rule);
+        config.setGroupWaitSeconds(0);
+        config.setMaxNotificationsPerMinute(1);
+        CapturingSink sink = new CapturingSink();
+        AlertEngine engine = new AlertEngine(config, List.of(sink));
+        engine.setNodes(List.of(node(7, null, DeviceType.ROUTER, "Router")));
+
+        long t = T0;
+        t = probe(engine, "10.0.0.7", 300_000, 5, t);
+        engine.tick(t);
+        assertEquals(1, sink.next().alerts.size());
+
+        // Resolved, but the minute's only notification is used up: held, not lost
+        t = probe(engine, "10.0.0.7", 5_000, 5, t);
+        engine.tick(t);
+        assertNull(sink.poll());
+
+        // Fired again within the minute; goes out with the resolution once a token is back
+        t = probe(engine, "10.0.0.7", 300_000, 5, t);
+        engine.tick(t);
+        assertNull(sink.poll());
+
+        engine.tick(t + 60_000);
+        AlertNotification next = sink.next();
+        assertEquals(1, next.suppressed);
+        assertEquals(2, next.alerts.size());
+        assertFalse(next.alerts.get(0).isFiring());
+        assertTrue(next.alerts.get(1).isFiring());
+        engine.close();
+    }
+
+    @Test
+    void unsentAlertsOfRemovedNodesAreDropped() throws Exception {
+        AlertConfig config = new AlertConfig();
+        config.getRules().add(new AlertRule("Node down", AlertCondition.NODE_DOWN, 60, "critical"));
+        CapturingSink sink = new CapturingSink();
+        AlertEngine engine = new AlertEngine(config, List.of(sink));
+        engine.setNodes(List.of(node(2, null, DeviceType.COMPUTER, "Desk")));
+
+        engine.onEvent(new MonitorEvent.NodeDown(2, "10.0.0.2", null, T0));
+        engine.tick(T0 + 61_000);
+        assertEquals(1, engine.getActiveAlerts(2).size());
+
+        // Removed while its alert waited out the group wait
+        engine.setNodes(List.of());
+        engine.tick(T0 + 91_000);
+        assertNull(sink.poll());
+        engine.close();
+    }
+
+    private static long probe(AlertEngine engine, String target, long latencyMicros, int count, long t) {
+        for (int i = 0; i < count; i++) {
+            t += 2000;
+            engine.record(new ProbeResult(target, null, true, latencyMicros, t, null));
+        }
+        return t;
+    }
+
+    private static NodeModel node(long id, Long switchId, DeviceType type, String name) {
+        return new NodeModel(id, "10.0.0." + id, name, type, NetworkLocation.LOCAL, ConnectionType.ETHERNET,
+            switchId, null, null);
+    }
+
+    private static AlertNotification notification() {
+        Alert alert = new Alert("Node down", "critical", 2, "Desk", "10.0.0.2", "down for 60 s", T0, 0);
+        return new AlertNotification("Desk", List.of(alert), 0);
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static class CapturingSink implements AlertSink {
+        private final BlockingQueue<AlertNotification> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public String getName() {
+            return "capture";
+        }
+
+        @Override
+        public void send(AlertNotification notification) {
+            sent.add(notification);
+        }
+
+        AlertNotification next() throws InterruptedException {
+            AlertNotification notification = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(notification, "expected a notification");
+            return notification;
+        }
+
+        AlertNotification poll() throws InterruptedException {
+            return sent.poll(200, TimeUnit.MILLISECONDS);
+        }
+    }
+}
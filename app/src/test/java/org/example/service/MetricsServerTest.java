@@ -0,0 +1,97 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.example.model.ConnectionType;
+import org.example.model.DeviceType;
+import org.example.model.NetworkLocation;
+import org.example.model.NodeModel;
+import org.junit.jupiter.api.Test;
+
+public class MetricsServerTest {
+    // name, optional {labels}, one space, value
+    private static final Pattern SAMPLE = Pattern.compile(
+        "([a-zA-Z_:][a-zA-Z0-9_:]*)(\\{(?:[a-zA-Z_][a-zA-Z0-9_]*=\"(?:[^\"\\\\\\n]|\\\\[\\\\\"n])*\",?)*\\})? (\\S+)");
+
+    @Test
+    void numbersAreWrittenInPlace() {
+        MetricsServer metrics = MetricsServer.getInstance();
+        metrics.registerGauge("test_fraction", "gauge", "A fraction", () -> 2.5);
+        metrics.registerGauge("test_negative", "gauge", "A negative fraction", () -> -0.25);
+        metrics.registerGauge("test_whole", "gauge", "A whole number", () -> 3.0);
+        metrics.registerGauge("test_nan", "gauge", "Not a number", () -> Double.NaN);
+        metrics.registerGauge("test_inf", "gauge", "Infinite", () -> Double.POSITIVE_INFINITY);
+        metrics.setNodes(List.of(node(41, "10.0.41.1", "Plain")));
+        metrics.record(new ProbeResult("10.0.41.1", null, true, 1234, System.currentTimeMillis(), null));
+
+        metrics.render();
+        String text = metrics.rendered();
+        assertTrue(text.contains("\ntest_fraction 2.500000\n"), text);
+        assertTrue(text.contains("\ntest_negative -0.250000\n"), text);
+        assertTrue(text.contains("\ntest_whole 3\n"), text);
+        assertTrue(text.contains("\ntest_nan NaN\n"), text);
+        assertTrue(text.contains("\ntest_inf +Inf\n"), text);
+        // writeFixed: 1234 us as seconds, exactly six decimals
+        assertTrue(text.contains("name=\"Plain\",target=\"10.0.41.1\"} 0.001234\n"), text);
+        assertTrue(text.contains("nodemonitor_node_loss_ratio{node_id=\"41\""), text);
+    }
+
+    @Test
+    void labelValuesAreEscaped() {
+        assertEquals("a \\\"b\\\" c\\\\d\\ne", MetricsServer.escapeLabel("a \"b\" c\\d\ne"));
+        assertEquals("", MetricsServer.escapeLabel(null));
+
+        MetricsServer metrics = MetricsServer.getInstance();
+        metrics.setNodes(List.of(node(42, "10.0.42.1", "Desk \"2\"\\left")));
+        metrics.record(new ProbeResult("10.0.42.1", null, true, 500, System.currentTimeMillis(), null));
+        metrics.render();
+        assertTrue(metrics.rendered().contains("name=\"Desk \\\"2\\\"\\\\left\""), metrics.rendered());
+    }
+
+    @Test
+    void scrapeIsParseable() throws Exception {
+        MetricsServer metrics = MetricsServer.getInstance();
+        metrics.setNodes(List.of(node(43, "10.0.43.1", "Odd \"name\"\nsecond line")));
+        metrics.record(new ProbeResult("10.0.43.1", null, false, 0, System.currentTimeMillis(), "timeout"));
+        metrics.start("127.0.0.1", 0);
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + metrics.getPort() + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+
+            String body = response.body();
+            assertTrue(body.endsWith("\n"));
+            int samples = 0;
+            for (String line : body.split("\n")) {
+                if (line.startsWith("# HELP ") || line.startsWith("# TYPE ")) continue;
+                Matcher sample = SAMPLE.matcher(line);
+                assertTrue(sample.matches(), "not a sample line: " + line);
+                String value = sample.group(3);
+                if (!value.equals("NaN") && !value.equals("+Inf") && !value.equals("-Inf")) {
+                    Double.parseDouble(value);
+                }
+                samples++;
+            }
+            assertTrue(body.contains("nodemonitor_node_up{node_id=\"43\""), body);
+            assertTrue(samples > 0);
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    private static NodeModel node(long id, String ip, String name) {
+        return new NodeModel(id, ip, name, DeviceType.COMPUTER, NetworkLocation.LOCAL, ConnectionType.ETHERNET,
+            null, null, null);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.example.model.DeviceType;
+import org.example.model.PortState;
+import org.example.util.PortSet;
+import org.junit.jupiter.api.Test;
+
+public class PortScannerTest {
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    @Test
+    void reportsOpenAndClosedPortsOnLoopback() throws Exception {
+        PortScanner scanner = new PortScanner(64, 8);
+        try (ServerSocket a = listen(); ServerSocket b = listen()) {
+            int closed1 = freePort();
+            int closed2 = freePort();
+            PortSet ports = PortSet.parse(a.getLocalPort() + "," + closed1 + "," + b.getLocalPort() + "," + closed2);
+
+            Map<Integer, PortState> streamed = new ConcurrentHashMap<>();
+            PortScanner.Scan scan = scanner.scan("127.0.0.1", LOOPBACK, ports, 0,
+                result -> streamed.put(result.port(), result.state()));
+            List<PortScanner.PortResult> open = scan.getFuture().get(5, TimeUnit.SECONDS);
+
+            assertEquals(List.of(Math.min(a.getLocalPort(), b.getLocalPort()), Math.max(a.getLocalPort(), b.getLocalPort())),
+                open.stream().map(PortScanner.PortResult::port).toList());
+            assertEquals(PortState.OPEN, streamed.get(a.getLocalPort()));
+            assertEquals(PortState.OPEN, streamed.get(b.getLocalPort()));
+            assertEquals(PortState.CLOSED, streamed.get(closed1));
+            assertEquals(PortState.CLOSED, streamed.get(closed2));
+            assertEquals(4, scan.getCompleted());
+        } finally {
+            scanner.shutdown();
+        }
+    }
+
+    @Test
+    void scansAThousandPortsQuickly() throws Exception {
+        PortScanner scanner = new PortScanner(PortScanner.DEFAULT_MAX_IN_FLIGHT, PortScanner.DEFAULT_MAX_PER_HOST);
+        try (ServerSocket listener = listen()) {
+            // The listener's port is ephemeral, so never inside 1-999
+            PortSet ports = PortSet.parse("1-999," + listener.getLocalPort());
+            assertEquals(1000, ports.size());
+
+            long start = System.nanoTime();
+            PortScanner.Scan scan = scanner.scan("127.0.0.1", LOOPBACK, ports, 0, result -> { });
+            List<PortScanner.PortResult> open = scan.getFuture().get(10, TimeUnit.SECONDS);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(open.stream().anyMatch(result -> result.port() == listener.getLocalPort()), open.toString());
+            assertEquals(1000, scan.getCompleted());
+            assertTrue(elapsedMs < 3000, "took " + elapsedMs + " ms");
+        } finally {
+            scanner.shutdown();
+        }
+    }
+
+    @Test
+    void cancelledScanCompletes() throws Exception {
+        PortScanner scanner = new PortScanner(4, 2);
+        try {
+            PortScanner.Scan scan = scanner.scan("127.0.0.1", LOOPBACK, PortSet.range(1, 65535), 0, result -> { });
+            scan.cancel();
+            scan.getFuture().get(5, TimeUnit.SECONDS);
+            assertTrue(scan.getCompleted() < scan.getTotal());
+        } finally {
+            scanner.shutdown();
+        }
+    }
+
+    @Test
+    void portSetsParseTopNRangesAndPresets() {
+        PortSet set = PortSet.parse("22, 8000-8002 ,22,top3");
+        assertEquals(List.of(22, 8000, 8001, 8002, 80, 23, 443),
+            Arrays.stream(set.toArray()).boxed().toList());
+        assertEquals(1000, PortSet.top(1000).size());
+        assertEquals(65535, PortSet.top(65535).size());
+        for (DeviceType type : DeviceType.values()) {
+            assertTrue(PortSet.parse(PortSet.presetFor(type)).size() > 0, type.name());
+        }
+        assertThrows(IllegalArgumentException.class, () -> PortSet.parse("70000"));
+        assertThrows(IllegalArgumentException.class, () -> PortSet.parse("http"));
+        assertThrows(IllegalArgumentException.class, () -> PortSet.parse("10-5"));
+    }
+
+    private static ServerSocket listen() throws Exception {
+        return new ServerSocket(0, 50, LOOPBACK);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = listen()) {
+            return socket.getLocalPort();
+        }
+    }
+}